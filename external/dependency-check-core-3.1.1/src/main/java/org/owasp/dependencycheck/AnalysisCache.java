@@ -0,0 +1,664 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.ThreadSafe;
+import org.owasp.dependencycheck.analyzer.AbstractDependencyComparingAnalyzer;
+import org.owasp.dependencycheck.analyzer.AnalysisPhase;
+import org.owasp.dependencycheck.analyzer.Analyzer;
+import org.owasp.dependencycheck.analyzer.ArchiveAnalyzer;
+import org.owasp.dependencycheck.data.nvdcve.CveDB;
+import org.owasp.dependencycheck.data.nvdcve.DatabaseProperties;
+import org.owasp.dependencycheck.dependency.Dependency;
+import org.owasp.dependencycheck.dependency.Evidence;
+import org.owasp.dependencycheck.dependency.EvidenceType;
+import org.owasp.dependencycheck.dependency.Identifier;
+import org.owasp.dependencycheck.utils.Checksum;
+import org.owasp.dependencycheck.utils.InvalidSettingException;
+import org.owasp.dependencycheck.utils.Settings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A persistent cache of analysis results keyed by the SHA1 of a JAR file. The
+ * evidence and identifiers of a dependency are stored once the
+ * {@link #CACHED_PHASE} has completed; on later scans a dependency whose SHA1
+ * is found in the cache is restored from the cache and the analyzers of the
+ * cached phases are not run against it. The analyzers of the later phases -
+ * which determine the vulnerabilities, bundle related dependencies, and apply
+ * the suppression rules - always run.
+ * <p>
+ * Each entry records a stamp computed from the version of dependency-check,
+ * the database properties, the enabled analyzers, the analyzer settings, and
+ * the hints and suppression files; an entry with a different stamp is treated
+ * as a miss and is replaced.</p>
+ * <p>
+ * Only JAR files that did not produce any additional dependencies (e.g.
+ * embedded JAR files or POM files) are cached.</p>
+ */
+@ThreadSafe
+public class AnalysisCache {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnalysisCache.class);
+    /**
+     * The settings key to enable the analysis cache.
+     */
+    public static final String ENABLED = "analysis.cache.enabled";
+    /**
+     * The settings key for the directory the analysis cache is stored in; when
+     * not configured the cache is stored within the data directory.
+     */
+    public static final String DIRECTORY = "analysis.cache.directory";
+    /**
+     * The last phase whose results are cached.
+     */
+    public static final AnalysisPhase CACHED_PHASE = AnalysisPhase.IDENTIFIER_ANALYSIS;
+    /**
+     * The name of the cache directory.
+     */
+    static final String CACHE_NAME = "analysis.cache";
+    /**
+     * The format of the cache entries; changed whenever the entries are no
+     * longer compatible.
+     */
+    private static final String FORMAT = "1";
+    /**
+     * The settings that change the results of the analyzers, other than
+     * enabling or disabling an analyzer, and are included in the stamp.
+     */
+    private static final String[] STAMPED_SETTINGS = {
+        Settings.KEYS.ANALYZER_EXPERIMENTAL_ENABLED,
+        Settings.KEYS.ANALYZER_RETIRED_ENABLED,
+        Settings.KEYS.ANALYZER_CENTRAL_URL,
+        Settings.KEYS.ANALYZER_CENTRAL_QUERY,
+        Settings.KEYS.ANALYZER_NEXUS_URL,
+        Settings.KEYS.ANALYZER_NEXUS_USES_PROXY,
+        Settings.KEYS.ANALYZER_NSP_URL,
+        Settings.KEYS.ANALYZER_ASSEMBLY_MONO_PATH,
+        Settings.KEYS.ANALYZER_BUNDLE_AUDIT_PATH,
+        Settings.KEYS.ADDITIONAL_ZIP_EXTENSIONS,
+        Settings.KEYS.CVE_CPE_STARTS_WITH_FILTER,
+        Settings.KEYS.ECOSYSTEM_SKIP_CPEANALYZER,
+        Settings.KEYS.SUPPRESSION_FILE,
+        Settings.KEYS.HINTS_FILE,
+        ArchiveAnalyzer.MAX_TEMP_SIZE};
+    /**
+     * The directory containing the cache entries.
+     */
+    private final File directory;
+    /**
+     * The stamp identifying the database and configuration the cached results
+     * were produced with.
+     */
+    private final String stamp;
+    /**
+     * The dependencies that were restored from the cache.
+     */
+    private final Set<Dependency> restored = Collections.newSetFromMap(new IdentityHashMap<Dependency, Boolean>());
+    /**
+     * The number of dependencies restored from the cache.
+     */
+    private final AtomicLong hits = new AtomicLong();
+    /**
+     * The number of cacheable dependencies not found in the cache.
+     */
+    private final AtomicLong misses = new AtomicLong();
+    /**
+     * The number of dependencies written to the cache.
+     */
+    private final AtomicLong stores = new AtomicLong();
+
+    /**
+     * Constructs a new analysis cache.
+     *
+     * @param directory the directory containing the cache entries
+     * @param stamp the stamp identifying the database and configuration
+     */
+    AnalysisCache(File directory, String stamp) {
+        this.directory = directory;
+        this.stamp = stamp;
+    }
+
+    /**
+     * Opens the analysis cache for the given engine if the cache is enabled.
+     *
+     * @param engine the dependency-check engine
+     * @return the analysis cache; or <code>null</code> if the cache is not
+     * enabled or could not be opened
+     */
+    static AnalysisCache open(Engine engine) {
+        final Settings settings = engine.getSettings();
+        try {
+            if (!settings.getBoolean(ENABLED, false)) {
+                return null;
+            }
+            final String path = settings.getString(DIRECTORY);
+            final File parent = path == null || path.isEmpty() ? settings.getDataDirectory() : new File(path);
+            final File directory = new File(parent, CACHE_NAME);
+            Files.createDirectories(directory.toPath());
+            return new AnalysisCache(directory, createStamp(engine));
+        } catch (InvalidSettingException ex) {
+            LOGGER.warn("Invalid setting for {}; the analysis cache is disabled", ENABLED);
+            LOGGER.debug("", ex);
+        } catch (IOException ex) {
+            LOGGER.warn("Unable to open the analysis cache; the analysis cache is disabled");
+            LOGGER.debug("", ex);
+        }
+        return null;
+    }
+
+    /**
+     * Creates the stamp identifying the database and configuration used by the
+     * engine; the version of dependency-check, the database properties,
+     * excluding the last checked timestamp, the enabled analyzers, the
+     * settings used by the analyzers, and the content of the hints and
+     * suppression files.
+     *
+     * @param engine the dependency-check engine
+     * @return the stamp
+     * @throws IOException thrown if the hints or suppression files cannot be
+     * read
+     */
+    static String createStamp(Engine engine) throws IOException {
+        final Settings settings = engine.getSettings();
+        final StringBuilder sb = new StringBuilder(1024);
+        sb.append(FORMAT).append('\n');
+        sb.append(Engine.class.getPackage().getImplementationVersion()).append('\n');
+        sb.append(settings.getString(Settings.KEYS.APPLICATION_VERSION)).append('\n');
+        final CveDB cve = engine.getDatabase();
+        if (cve != null) {
+            final Map<String, String> properties = new TreeMap<>();
+            for (Map.Entry<Object, Object> entry : cve.getDatabaseProperties().getProperties().entrySet()) {
+                properties.put(String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
+            }
+            properties.remove(DatabaseProperties.LAST_CHECKED);
+            for (Map.Entry<String, String> entry : properties.entrySet()) {
+                sb.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+            }
+        }
+        for (Analyzer analyzer : engine.getAnalyzers()) {
+            if (analyzer.isEnabled()) {
+                sb.append(analyzer.getClass().getName()).append('\n');
+            }
+        }
+        for (String key : STAMPED_SETTINGS) {
+            sb.append(key).append('=').append(settings.getString(key)).append('\n');
+        }
+        appendChecksum(sb, settings.getString(Settings.KEYS.HINTS_FILE));
+        final String[] suppressionFiles = settings.getArray(Settings.KEYS.SUPPRESSION_FILE);
+        if (suppressionFiles != null) {
+            for (String suppressionFile : suppressionFiles) {
+                appendChecksum(sb, suppressionFile);
+            }
+        }
+        return sha1(sb.toString());
+    }
+
+    /**
+     * Appends the checksum of a local file to the stamp; remote and classpath
+     * resources are only identified by their location.
+     *
+     * @param sb the stamp being built
+     * @param location the location of the file; may be <code>null</code>
+     * @throws IOException thrown if the file cannot be read
+     */
+    private static void appendChecksum(StringBuilder sb, String location) throws IOException {
+        if (location == null || location.isEmpty()) {
+            return;
+        }
+        final File file = new File(location);
+        if (file.isFile()) {
+            try {
+                sb.append(Checksum.getSHA1Checksum(file)).append('\n');
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException("Unable to compute the SHA-1 hash", ex);
+            }
+        }
+    }
+
+    /**
+     * Restores the cached analysis results into the given dependencies.
+     *
+     * @param dependencies the dependencies that have been scanned
+     */
+    void restore(Dependency[] dependencies) {
+        for (Dependency dependency : dependencies) {
+            if (!isCacheable(dependency)) {
+                continue;
+            }
+            final Entry entry = read(dependency.getSha1sum());
+            if (entry != null && stamp.equals(entry.stamp)) {
+                entry.apply(dependency);
+                synchronized (restored) {
+                    restored.add(dependency);
+                }
+                hits.incrementAndGet();
+            } else {
+                misses.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Writes the analysis results of the given dependencies to the cache; the
+     * dependencies restored from the cache and those that produced additional
+     * dependencies are skipped.
+     *
+     * @param dependencies the analyzed dependencies
+     */
+    void store(Dependency[] dependencies) {
+        final NavigableSet<String> paths = new TreeSet<>();
+        for (Dependency dependency : dependencies) {
+            if (dependency.getFilePath() != null) {
+                paths.add(dependency.getFilePath());
+            }
+        }
+        for (Dependency dependency : dependencies) {
+            if (!isCacheable(dependency) || isRestored(dependency) || hasChildren(dependency, paths)) {
+                continue;
+            }
+            if (write(dependency.getSha1sum(), new Entry(stamp, dependency))) {
+                stores.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Determines if the given analyzer should be skipped for the dependency
+     * because its results were restored from the cache. Analyzers that compare
+     * the dependencies with each other are never skipped.
+     *
+     * @param analyzer the analyzer
+     * @param dependency the dependency
+     * @return <code>true</code> if the analyzer should be skipped; otherwise
+     * <code>false</code>
+     */
+    boolean isRestored(Analyzer analyzer, Dependency dependency) {
+        return analyzer.getAnalysisPhase().compareTo(CACHED_PHASE) <= 0
+                && !(analyzer instanceof AbstractDependencyComparingAnalyzer)
+                && isRestored(dependency);
+    }
+
+    /**
+     * Determines if the dependency was restored from the cache.
+     *
+     * @param dependency the dependency
+     * @return <code>true</code> if the dependency was restored from the cache;
+     * otherwise <code>false</code>
+     */
+    private boolean isRestored(Dependency dependency) {
+        synchronized (restored) {
+            return restored.contains(dependency);
+        }
+    }
+
+    /**
+     * Determines if the analysis results of the dependency can be cached.
+     *
+     * @param dependency the dependency
+     * @return <code>true</code> if the dependency can be cached; otherwise
+     * <code>false</code>
+     */
+    static boolean isCacheable(Dependency dependency) {
+        final String sha1 = dependency.getSha1sum();
+        return !dependency.isVirtual()
+                && sha1 != null && sha1.length() == 40
+                && dependency.getFileName() != null
+                && dependency.getFileName().toLowerCase(Locale.ENGLISH).endsWith(".jar");
+    }
+
+    /**
+     * Determines if the analysis of the dependency added dependencies located
+     * within it, e.g. embedded JAR files or POM files.
+     *
+     * @param dependency the dependency
+     * @param paths the sorted file paths of all of the dependencies
+     * @return <code>true</code> if the dependency has child dependencies;
+     * otherwise <code>false</code>
+     */
+    private static boolean hasChildren(Dependency dependency, NavigableSet<String> paths) {
+        if (dependency.getFilePath() == null) {
+            return false;
+        }
+        final String prefix = dependency.getFilePath() + File.separator;
+        final String next = paths.ceiling(prefix);
+        return next != null && next.startsWith(prefix);
+    }
+
+    /**
+     * Returns the number of dependencies restored from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of cacheable dependencies that were not found in the
+     * cache.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of dependencies written to the cache.
+     *
+     * @return the number of dependencies written
+     */
+    public long getStoreCount() {
+        return stores.get();
+    }
+
+    /**
+     * Returns a summary of the cache statistics.
+     *
+     * @return a summary of the cache statistics
+     */
+    @Override
+    public String toString() {
+        return String.format("AnalysisCache{hits=%d, misses=%d, stored=%d}", getHitCount(), getMissCount(), getStoreCount());
+    }
+
+    /**
+     * Returns the file containing the cache entry for the given SHA1.
+     *
+     * @param sha1 the SHA1 of the dependency
+     * @return the cache entry file
+     */
+    private File getFile(String sha1) {
+        final String name = sha1.toLowerCase(Locale.ENGLISH);
+        return new File(new File(directory, name.substring(0, 2)), name + ".ser");
+    }
+
+    /**
+     * Reads the cache entry for the given SHA1.
+     *
+     * @param sha1 the SHA1 of the dependency
+     * @return the cache entry; or <code>null</code> if it does not exist or
+     * could not be read
+     */
+    private Entry read(String sha1) {
+        final File file = getFile(sha1);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (ObjectInputStream in = new EntryInputStream(new FileInputStream(file))) {
+            return (Entry) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException ex) {
+            LOGGER.debug("Unable to read the analysis cache entry {}", file, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the cache entry for the given SHA1; the entry is written to a
+     * temporary file that is then moved into place so that concurrent scans
+     * never read a partially written entry.
+     *
+     * @param sha1 the SHA1 of the dependency
+     * @param entry the cache entry
+     * @return <code>true</code> if the entry was written; otherwise
+     * <code>false</code>
+     */
+    private boolean write(String sha1, Entry entry) {
+        final File file = getFile(sha1);
+        File tmp = null;
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            tmp = File.createTempFile(sha1, ".tmp", file.getParentFile());
+            try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(tmp))) {
+                out.writeObject(entry);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (IOException ex) {
+            LOGGER.debug("Unable to write the analysis cache entry {}", file, ex);
+            if (tmp != null && tmp.exists() && !tmp.delete()) {
+                tmp.deleteOnExit();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Computes the hex encoded SHA1 of the given text.
+     *
+     * @param text the text
+     * @return the hex encoded SHA1
+     */
+    private static String sha1(String text) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return Checksum.getHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Unable to compute the SHA-1 hash", ex);
+        }
+    }
+
+    /**
+     * The cached analysis results of a single dependency.
+     */
+    static final class Entry implements Serializable {
+
+        /**
+         * The serial version UID.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * The stamp identifying the database and configuration.
+         */
+        private final String stamp;
+        /**
+         * The vendor evidence.
+         */
+        private final HashSet<Evidence> vendors;
+        /**
+         * The product evidence.
+         */
+        private final HashSet<Evidence> products;
+        /**
+         * The version evidence.
+         */
+        private final HashSet<Evidence> versions;
+        /**
+         * The vendor weightings.
+         */
+        private final HashSet<String> vendorWeightings;
+        /**
+         * The product weightings.
+         */
+        private final HashSet<String> productWeightings;
+        /**
+         * The identifiers.
+         */
+        private final HashSet<Identifier> identifiers;
+        /**
+         * The suppressed identifiers.
+         */
+        private final HashSet<Identifier> suppressedIdentifiers;
+        /**
+         * The available versions.
+         */
+        private final ArrayList<String> availableVersions;
+        /**
+         * The name of the dependency.
+         */
+        private final String name;
+        /**
+         * The version of the dependency.
+         */
+        private final String version;
+        /**
+         * The description of the dependency.
+         */
+        private final String description;
+        /**
+         * The license of the dependency.
+         */
+        private final String license;
+        /**
+         * The ecosystem of the dependency.
+         */
+        private final String ecosystem;
+
+        /**
+         * Captures the analysis results of the given dependency.
+         *
+         * @param stamp the stamp identifying the database and configuration
+         * @param dependency the analyzed dependency
+         */
+        Entry(String stamp, Dependency dependency) {
+            this.stamp = stamp;
+            this.vendors = new HashSet<>(dependency.getEvidence(EvidenceType.VENDOR));
+            this.products = new HashSet<>(dependency.getEvidence(EvidenceType.PRODUCT));
+            this.versions = new HashSet<>(dependency.getEvidence(EvidenceType.VERSION));
+            this.vendorWeightings = new HashSet<>(dependency.getVendorWeightings());
+            this.productWeightings = new HashSet<>(dependency.getProductWeightings());
+            this.identifiers = new HashSet<>(dependency.getIdentifiers());
+            this.suppressedIdentifiers = new HashSet<>(dependency.getSuppressedIdentifiers());
+            this.availableVersions = new ArrayList<>(dependency.getAvailableVersions());
+            this.name = dependency.getName();
+            this.version = dependency.getVersion();
+            this.description = dependency.getDescription();
+            this.license = dependency.getLicense();
+            this.ecosystem = dependency.getEcosystem();
+        }
+
+        /**
+         * Applies the cached analysis results to the given dependency.
+         *
+         * @param dependency the dependency
+         */
+        void apply(Dependency dependency) {
+            for (Evidence e : vendors) {
+                dependency.addEvidence(EvidenceType.VENDOR, e);
+            }
+            for (Evidence e : products) {
+                dependency.addEvidence(EvidenceType.PRODUCT, e);
+            }
+            for (Evidence e : versions) {
+                dependency.addEvidence(EvidenceType.VERSION, e);
+            }
+            for (String s : vendorWeightings) {
+                dependency.addVendorWeighting(s);
+            }
+            for (String s : productWeightings) {
+                dependency.addProductWeighting(s);
+            }
+            for (Identifier i : identifiers) {
+                dependency.addIdentifier(i);
+            }
+            for (Identifier i : suppressedIdentifiers) {
+                dependency.addSuppressedIdentifier(i);
+            }
+            for (String v : availableVersions) {
+                dependency.addAvailableVersion(v);
+            }
+            if (name != null) {
+                dependency.setName(name);
+            }
+            if (version != null) {
+                dependency.setVersion(version);
+            }
+            if (description != null) {
+                dependency.setDescription(description);
+            }
+            if (license != null) {
+                dependency.setLicense(license);
+            }
+            if (ecosystem != null) {
+                dependency.setEcosystem(ecosystem);
+            }
+        }
+    }
+
+    /**
+     * An object input stream that only resolves the classes that make up a
+     * cache entry.
+     */
+    private static final class EntryInputStream extends ObjectInputStream {
+
+        /**
+         * The packages of the classes permitted within a cache entry.
+         */
+        private static final String[] PERMITTED = {"java.lang.", "java.util.",
+            "org.owasp.dependencycheck.dependency.", AnalysisCache.class.getName()};
+
+        /**
+         * Constructs a new entry input stream.
+         *
+         * @param in the underlying input stream
+         * @throws IOException thrown if the stream header cannot be read
+         */
+        EntryInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        /**
+         * Resolves the class, rejecting any class that is not permitted within
+         * a cache entry.
+         *
+         * @param desc the class descriptor
+         * @return the class
+         * @throws IOException thrown if the class is not permitted
+         * @throws ClassNotFoundException thrown if the class cannot be found
+         */
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            for (String permitted : PERMITTED) {
+                if (desc.getName().startsWith(permitted)) {
+                    return super.resolveClass(desc);
+                }
+            }
+            throw new InvalidClassException(desc.getName(), "Unexpected class in the analysis cache");
+        }
+    }
+}
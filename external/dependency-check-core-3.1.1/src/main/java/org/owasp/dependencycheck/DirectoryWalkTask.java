@@ -0,0 +1,178 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import javax.annotation.concurrent.ThreadSafe;
+import org.owasp.dependencycheck.dependency.Dependency;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A fork/join task that walks a directory tree and hashes the files accepted
+ * by a filter. Each sub-directory is walked by its own task so that large or
+ * slow (e.g. network mounted) trees are listed using multiple threads, and
+ * each accepted file is hashed by its own task as soon as it is found so that
+ * hashing overlaps the walk. Symbolic links to directories are followed, but
+ * each directory is only walked once so that links cannot cause a cycle.
+ */
+@ThreadSafe
+class DirectoryWalkTask extends RecursiveTask<Map<File, Future<Dependency>>> {
+
+    /**
+     * The serial version UID for serialization.
+     */
+    private static final long serialVersionUID = 1L;
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryWalkTask.class);
+    /**
+     * The directory to walk.
+     */
+    private final File directory;
+    /**
+     * The filter used to select the files to hash.
+     */
+    private final transient FileFilter filter;
+    /**
+     * The real paths of the directories that have been walked; shared by all
+     * of the tasks of a walk.
+     */
+    private final transient Set<Path> visited;
+
+    /**
+     * Constructs a new directory walk task.
+     *
+     * @param directory the directory to walk
+     * @param filter the filter used to select the files to hash
+     */
+    DirectoryWalkTask(File directory, FileFilter filter) {
+        this(directory, filter, Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>()));
+    }
+
+    /**
+     * Constructs a new directory walk task.
+     *
+     * @param directory the directory to walk
+     * @param filter the filter used to select the files to hash
+     * @param visited the real paths of the directories that have been walked
+     */
+    private DirectoryWalkTask(File directory, FileFilter filter, Set<Path> visited) {
+        this.directory = directory;
+        this.filter = filter;
+        this.visited = visited;
+    }
+
+    /**
+     * Lists the directory, forking a task for each sub-directory and each
+     * accepted file, and returns the accepted files of the entire tree mapped
+     * to the dependency being created for them. The files directly within the
+     * directory precede those of the sub-directories.
+     *
+     * @return the accepted files and their dependencies
+     */
+    @Override
+    protected Map<File, Future<Dependency>> compute() {
+        final Map<File, Future<Dependency>> files = new LinkedHashMap<>();
+        if (!visit()) {
+            return files;
+        }
+        final List<DirectoryWalkTask> subtasks = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath())) {
+            for (Path path : stream) {
+                final File file = path.toFile();
+                if (file.isDirectory()) {
+                    subtasks.add(new DirectoryWalkTask(file, filter, visited));
+                } else if (filter.accept(file)) {
+                    files.put(file, new HashTask(file).fork());
+                }
+            }
+        } catch (IOException | DirectoryIteratorException ex) {
+            LOGGER.debug("Unable to list the contents of '{}'", directory, ex);
+        }
+        invokeAll(subtasks);
+        for (DirectoryWalkTask subtask : subtasks) {
+            files.putAll(subtask.join());
+        }
+        return files;
+    }
+
+    /**
+     * Records the directory as visited.
+     *
+     * @return <code>true</code> if the directory has not been walked before;
+     * otherwise <code>false</code>
+     */
+    private boolean visit() {
+        try {
+            if (visited.add(directory.toPath().toRealPath())) {
+                return true;
+            }
+            LOGGER.debug("Skipping '{}' as the directory has already been scanned", directory);
+        } catch (IOException ex) {
+            LOGGER.debug("Unable to resolve the real path of '{}'", directory, ex);
+        }
+        return false;
+    }
+
+    /**
+     * A fork/join task that creates the dependency for a file, computing its
+     * hashes.
+     */
+    private static class HashTask extends RecursiveTask<Dependency> {
+
+        /**
+         * The serial version UID for serialization.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * The file to hash.
+         */
+        private final File file;
+
+        /**
+         * Constructs a new hash task.
+         *
+         * @param file the file to hash
+         */
+        HashTask(File file) {
+            this.file = file;
+        }
+
+        @Override
+        protected Dependency compute() {
+            return new Dependency(file);
+        }
+    }
+}
@@ -21,6 +21,8 @@ import org.owasp.dependencycheck.analyzer.AnalysisPhase;
 import org.owasp.dependencycheck.analyzer.Analyzer;
 import org.owasp.dependencycheck.analyzer.AnalyzerService;
 import org.owasp.dependencycheck.analyzer.FileTypeAnalyzer;
+import org.owasp.dependencycheck.data.cpe.CpeMemoryIndex;
+import org.owasp.dependencycheck.data.nexus.MavenArtifactCache;
 import org.owasp.dependencycheck.data.nvdcve.ConnectionFactory;
 import org.owasp.dependencycheck.data.nvdcve.CveDB;
 import org.owasp.dependencycheck.data.nvdcve.DatabaseException;
@@ -47,6 +49,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -54,8 +57,10 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.concurrent.NotThreadSafe;
@@ -161,6 +166,11 @@ public class Engine implements FileFilter, AutoCloseable {
      * The external view of the dependency list.
      */
     private Dependency[] dependenciesExternalView = null;
+    /**
+     * An index of the dependencies keyed by their SHA1 checksum; used to find
+     * files that have already been scanned. Guarded by the engine's monitor.
+     */
+    private final Map<String, Dependency> dependenciesBySha1 = new HashMap<>();
     /**
      * A Map of analyzers grouped by Analysis phase.
      */
@@ -186,6 +196,22 @@ public class Engine implements FileFilter, AutoCloseable {
      * A reference to the database.
      */
     private CveDB database = null;
+    /**
+     * The cache of analysis results used during the current analysis; only
+     * set while the dependencies are being analyzed and the cache is enabled.
+     */
+    private volatile AnalysisCache analysisCache = null;
+    /**
+     * The cache of analysis results used by the most recent analysis; kept
+     * to report its statistics once the analysis has completed.
+     */
+    private AnalysisCache lastAnalysisCache = null;
+    /**
+     * The pool used to walk the scanned directories and hash the scanned
+     * files; created when first needed and shut down when the engine is
+     * closed. Guarded by the engine's monitor.
+     */
+    private ForkJoinPool scanPool = null;
     /**
      * The Logger for use throughout the class.
      */
@@ -254,6 +280,12 @@ public class Engine implements FileFilter, AutoCloseable {
      */
     @Override
     public void close() {
+        synchronized (this) {
+            if (scanPool != null) {
+                scanPool.shutdown();
+                scanPool = null;
+            }
+        }
         if (mode.isDatabaseRequired()) {
             if (database != null) {
                 database.close();
@@ -301,6 +333,7 @@ public class Engine implements FileFilter, AutoCloseable {
      */
     public synchronized void addDependency(Dependency dependency) {
         dependencies.add(dependency);
+        indexDependency(dependency);
         dependenciesExternalView = null;
     }
 
@@ -319,7 +352,9 @@ public class Engine implements FileFilter, AutoCloseable {
      * @param dependency the dependency to remove.
      */
     public synchronized void removeDependency(Dependency dependency) {
-        dependencies.remove(dependency);
+        if (dependencies.remove(dependency)) {
+            unindexDependency(dependency);
+        }
         dependenciesExternalView = null;
     }
 
@@ -343,9 +378,50 @@ public class Engine implements FileFilter, AutoCloseable {
     public synchronized void setDependencies(List<Dependency> dependencies) {
         this.dependencies.clear();
         this.dependencies.addAll(dependencies);
+        dependenciesBySha1.clear();
+        for (Dependency dependency : dependencies) {
+            indexDependency(dependency);
+        }
         dependenciesExternalView = null;
     }
 
+    /**
+     * Adds the dependency to the SHA1 index unless a dependency with the same
+     * checksum is already indexed. Must be called while holding the engine's
+     * monitor.
+     *
+     * @param dependency the dependency to index
+     */
+    private void indexDependency(Dependency dependency) {
+        final String sha1 = dependency.getSha1sum();
+        if (sha1 != null && !dependenciesBySha1.containsKey(sha1)) {
+            dependenciesBySha1.put(sha1, dependency);
+        }
+    }
+
+    /**
+     * Removes the dependency from the SHA1 index. The checksum of a dependency
+     * can be changed after it was indexed, so if the dependency is not found
+     * under its current checksum the index is searched for it. Must be called
+     * while holding the engine's monitor.
+     *
+     * @param dependency the dependency to remove from the index
+     */
+    private void unindexDependency(Dependency dependency) {
+        final String sha1 = dependency.getSha1sum();
+        if (sha1 != null && dependenciesBySha1.get(sha1) == dependency) {
+            dependenciesBySha1.remove(sha1);
+            return;
+        }
+        final Iterator<Dependency> itr = dependenciesBySha1.values().iterator();
+        while (itr.hasNext()) {
+            if (itr.next() == dependency) {
+                itr.remove();
+                return;
+            }
+        }
+    }
+
     /**
      * Scans an array of files or directories. If a directory is specified, it
      * will be scanned recursively. Any dependencies identified are added to the
@@ -469,16 +545,121 @@ public class Engine implements FileFilter, AutoCloseable {
      * @since v1.4.4
      */
     public List<Dependency> scan(Collection<File> files, String projectReference) {
+        final Map<File, Future<Dependency>> hashed = hashFiles(files);
         final List<Dependency> deps = new ArrayList<>();
         for (File file : files) {
-            final List<Dependency> d = scan(file, projectReference);
-            if (d != null) {
-                deps.addAll(d);
+            final Future<Dependency> future = hashed.get(file);
+            if (future != null) {
+                final Dependency d = getHashedDependency(future, file, projectReference);
+                if (d != null) {
+                    deps.add(d);
+                }
+            } else {
+                final List<Dependency> d = scan(file, projectReference);
+                if (d != null) {
+                    deps.addAll(d);
+                }
             }
         }
         return deps;
     }
 
+    /**
+     * Starts computing the hashes of the regular files within the collection
+     * using multiple threads. Directories and single files are not hashed in
+     * advance.
+     *
+     * @param files the files and directories being scanned
+     * @return a map of the files to the dependency being created for them; the
+     * value will be <code>null</code> for files that are not accepted by the
+     * analyzers
+     */
+    private Map<File, Future<Dependency>> hashFiles(Collection<File> files) {
+        final List<File> regularFiles = new ArrayList<>();
+        for (File file : files) {
+            if (file.isFile()) {
+                regularFiles.add(file);
+            }
+        }
+        if (regularFiles.size() < 2) {
+            return Collections.emptyMap();
+        }
+        final ExecutorService executorService = getScanPool();
+        final Map<File, Future<Dependency>> hashed = new HashMap<>();
+        for (final File file : regularFiles) {
+            hashed.put(file, executorService.submit(new Callable<Dependency>() {
+                @Override
+                public Dependency call() {
+                    return accept(file) ? new Dependency(file) : null;
+                }
+            }));
+        }
+        return hashed;
+    }
+
+    /**
+     * Returns the pool used to walk the scanned directories and hash the
+     * scanned files.
+     *
+     * @return the scan pool
+     */
+    private synchronized ForkJoinPool getScanPool() {
+        if (scanPool == null) {
+            scanPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+        return scanPool;
+    }
+
+    /**
+     * Determines if the given analyzer is skipped for the dependency because
+     * its results were restored from the analysis cache.
+     *
+     * @param analyzer the analyzer
+     * @param dependency the dependency
+     * @return <code>true</code> if the analyzer is skipped for the dependency;
+     * otherwise <code>false</code>
+     */
+    public boolean isRestored(Analyzer analyzer, Dependency dependency) {
+        final AnalysisCache cache = analysisCache;
+        return cache != null && cache.isRestored(analyzer, dependency);
+    }
+
+    /**
+     * Returns the cache of analysis results used by the most recent analysis.
+     *
+     * @return the analysis cache, or <code>null</code> if no analysis has
+     * completed or the cache is disabled
+     */
+    AnalysisCache getLastAnalysisCache() {
+        return lastAnalysisCache;
+    }
+
+    /**
+     * Adds the dependency that was created and hashed in the background to the
+     * dependency collection. If the hashing failed the file is scanned again.
+     *
+     * @param future the result of the background hashing
+     * @param file the file being scanned
+     * @param projectReference the name of the project or scope in which the
+     * dependency was identified
+     * @return the scanned dependency
+     */
+    private Dependency getHashedDependency(Future<Dependency> future, File file, String projectReference) {
+        try {
+            final Dependency dependency = future.get();
+            if (dependency == null) {
+                return null;
+            }
+            return addScannedDependency(dependency, projectReference);
+        } catch (ExecutionException ex) {
+            LOGGER.debug("Unable to hash '{}' in the background", file, ex);
+        } catch (InterruptedException ex) {
+            LOGGER.debug("Interrupted while hashing '{}'", file, ex);
+            Thread.currentThread().interrupt();
+        }
+        return scanFile(file, projectReference);
+    }
+
     /**
      * Scans a given file or directory. If a directory is specified, it will be
      * scanned recursively. Any dependencies identified are added to the
@@ -532,7 +713,9 @@ public class Engine implements FileFilter, AutoCloseable {
 
     /**
      * Recursively scans files and directories. Any dependencies identified are
-     * added to the dependency collection.
+     * added to the dependency collection. The directory tree is walked using
+     * multiple threads and only the files accepted by the analyzers are
+     * hashed and scanned.
      *
      * @param dir the directory to scan
      * @param projectReference the name of the project or scope in which the
@@ -541,21 +724,12 @@ public class Engine implements FileFilter, AutoCloseable {
      * @since v1.4.4
      */
     protected List<Dependency> scanDirectory(File dir, String projectReference) {
-        final File[] files = dir.listFiles();
-        final List<Dependency> deps = new ArrayList<>();
-        if (files != null) {
-            for (File f : files) {
-                if (f.isDirectory()) {
-                    final List<Dependency> d = scanDirectory(f, projectReference);
-                    if (d != null) {
-                        deps.addAll(d);
-                    }
-                } else {
-                    final Dependency d = scanFile(f, projectReference);
-                    if (d != null) {
-                        deps.add(d);
-                    }
-                }
+        final Map<File, Future<Dependency>> hashed = getScanPool().invoke(new DirectoryWalkTask(dir, this));
+        final List<Dependency> deps = new ArrayList<>(hashed.size());
+        for (Map.Entry<File, Future<Dependency>> entry : hashed.entrySet()) {
+            final Dependency d = getHashedDependency(entry.getValue(), entry.getKey(), projectReference);
+            if (d != null) {
+                deps.add(d);
             }
         }
         return deps;
@@ -582,42 +756,53 @@ public class Engine implements FileFilter, AutoCloseable {
      * @return the scanned dependency
      * @since v1.4.4
      */
-    protected synchronized Dependency scanFile(File file, String projectReference) {
+    protected Dependency scanFile(File file, String projectReference) {
         Dependency dependency = null;
         if (file.isFile()) {
             if (accept(file)) {
-                dependency = new Dependency(file);
+                //the hashes are computed outside of the engine's monitor
+                dependency = addScannedDependency(new Dependency(file), projectReference);
+            }
+        } else {
+            LOGGER.debug("Path passed to scanFile(File) is not a file that can be scanned by dependency-check: {}. Skipping the file.", file);
+        }
+        return dependency;
+    }
+
+    /**
+     * Adds a newly scanned dependency to the dependency collection. If a
+     * dependency with the same SHA1 checksum has already been scanned the new
+     * dependency is either added as a related dependency of the existing one
+     * or, if it is the same file, the existing dependency is returned.
+     *
+     * @param dependency the newly scanned dependency
+     * @param projectReference the name of the project or scope in which the
+     * dependency was identified
+     * @return the scanned dependency
+     */
+    private synchronized Dependency addScannedDependency(Dependency dependency, String projectReference) {
+        if (projectReference != null) {
+            dependency.addProjectReference(projectReference);
+        }
+        final String sha1 = dependency.getSha1sum();
+        if (sha1 != null) {
+            final Dependency existing = dependenciesBySha1.get(sha1);
+            //the checksum of an indexed dependency may have been changed since it was indexed
+            if (existing != null && sha1.equals(existing.getSha1sum())) {
                 if (projectReference != null) {
-                    dependency.addProjectReference(projectReference);
+                    existing.addProjectReference(projectReference);
                 }
-                final String sha1 = dependency.getSha1sum();
-                boolean found = false;
-
-                if (sha1 != null) {
-                    for (Dependency existing : dependencies) {
-                        if (sha1.equals(existing.getSha1sum())) {
-                            found = true;
-                            if (projectReference != null) {
-                                existing.addProjectReference(projectReference);
-                            }
-                            if (existing.getActualFilePath() != null && dependency.getActualFilePath() != null
-                                    && !existing.getActualFilePath().equals(dependency.getActualFilePath())) {
-                                existing.addRelatedDependency(dependency);
-                            } else {
-                                dependency = existing;
-                            }
-                            break;
-                        }
-                    }
-                }
-                if (!found) {
-                    dependencies.add(dependency);
-                    dependenciesExternalView = null;
+                if (existing.getActualFilePath() != null && dependency.getActualFilePath() != null
+                        && !existing.getActualFilePath().equals(dependency.getActualFilePath())) {
+                    existing.addRelatedDependency(dependency);
+                    return dependency;
                 }
+                return existing;
             }
-        } else {
-            LOGGER.debug("Path passed to scanFile(File) is not a file that can be scanned by dependency-check: {}. Skipping the file.", file);
+            dependenciesBySha1.put(sha1, dependency);
         }
+        dependencies.add(dependency);
+        dependenciesExternalView = null;
         return dependency;
     }
 
@@ -652,6 +837,12 @@ public class Engine implements FileFilter, AutoCloseable {
         LOGGER.info("Analysis Started");
         final long analysisStart = System.currentTimeMillis();
 
+        //the cached results span the evidence collection and processing phases
+        analysisCache = mode == Mode.STANDALONE ? AnalysisCache.open(this) : null;
+        if (analysisCache != null) {
+            analysisCache.restore(getDependencies());
+        }
+
         // analysis phases
         for (AnalysisPhase phase : mode.getPhases()) {
             final List<Analyzer> analyzerList = analyzers.get(phase);
@@ -677,6 +868,14 @@ public class Engine implements FileFilter, AutoCloseable {
                     LOGGER.debug("Skipping {} (not enabled)", analyzer.getName());
                 }
             }
+            if (analysisCache != null && phase == AnalysisCache.CACHED_PHASE && exceptions.isEmpty()) {
+                analysisCache.store(getDependencies());
+            }
+        }
+        if (analysisCache != null) {
+            LOGGER.debug("{}", analysisCache);
+            lastAnalysisCache = analysisCache;
+            analysisCache = null;
         }
         for (AnalysisPhase phase : mode.getPhases()) {
             final List<Analyzer> analyzerList = analyzers.get(phase);
@@ -781,6 +980,9 @@ public class Engine implements FileFilter, AutoCloseable {
     protected synchronized List<AnalysisTask> getAnalysisTasks(Analyzer analyzer, List<Throwable> exceptions) {
         final List<AnalysisTask> result = new ArrayList<>();
         for (final Dependency dependency : dependencies) {
+            if (isRestored(analyzer, dependency)) {
+                continue;
+            }
             final AnalysisTask task = new AnalysisTask(analyzer, dependency, this, exceptions);
             result.add(task);
         }
@@ -929,7 +1131,7 @@ public class Engine implements FileFilter, AutoCloseable {
      * dependency-check-core.</p>
      * <p>
      * Opens the database connection; if readOnly is true a copy of the database
-     * will be made.</p>
+     * will be made and lookups will be serviced by a pool of connections.</p>
      *
      * @param readOnly whether or not the database connection should be readonly
      * @param lockRequired whether or not a lock needs to be acquired when
@@ -939,7 +1141,7 @@ public class Engine implements FileFilter, AutoCloseable {
     public void openDatabase(boolean readOnly, boolean lockRequired) throws DatabaseException {
         if (mode.isDatabaseRequired() && database == null) {
             //needed to update schema any required schema changes
-            database = new CveDB(settings);
+            database = new CveDB(settings, readOnly);
             if (readOnly
                     && ConnectionFactory.isH2Connection(settings)
                     && settings.getString(Settings.KEYS.DB_CONNECTION_STRING).contains("file:%s")) {
@@ -949,18 +1151,32 @@ public class Engine implements FileFilter, AutoCloseable {
                     if (db.isFile()) {
                         database.close();
                         if (lockRequired) {
+                            //the database is only copied; other processes may copy it at the same time
                             lock = new H2DBLock(settings);
-                            lock.lock();
+                            lock.lockShared();
                         }
                         LOGGER.debug("copying database");
                         final File temp = settings.getTempDirectory();
                         final File tempDB = new File(temp, db.getName());
                         Files.copy(db.toPath(), tempDB.toPath());
                         LOGGER.debug("copying complete '{}'", temp.toPath());
+                        //keep a persistent CPE index next to the original database rather than the copy
+                        final String indexDirectory = settings.getString(CpeMemoryIndex.INDEX_DIRECTORY);
+                        if (indexDirectory == null || indexDirectory.isEmpty()) {
+                            settings.setString(CpeMemoryIndex.INDEX_DIRECTORY, db.getParent());
+                        }
+                        final String cacheDirectory = settings.getString(AnalysisCache.DIRECTORY);
+                        if (cacheDirectory == null || cacheDirectory.isEmpty()) {
+                            settings.setString(AnalysisCache.DIRECTORY, db.getParent());
+                        }
+                        final String artifactCacheDirectory = settings.getString(MavenArtifactCache.DIRECTORY);
+                        if (artifactCacheDirectory == null || artifactCacheDirectory.isEmpty()) {
+                            settings.setString(MavenArtifactCache.DIRECTORY, db.getParent());
+                        }
                         settings.setString(Settings.KEYS.DATA_DIRECTORY, temp.getPath());
                         final String connStr = settings.getString(Settings.KEYS.DB_CONNECTION_STRING);
                         settings.setString(Settings.KEYS.DB_CONNECTION_STRING, connStr + "ACCESS_MODE_DATA=r");
-                        database = new CveDB(settings);
+                        database = new CveDB(settings, true);
                     }
                 } catch (IOException ex) {
                     throw new DatabaseException("Unable to open db in read only mode", ex);
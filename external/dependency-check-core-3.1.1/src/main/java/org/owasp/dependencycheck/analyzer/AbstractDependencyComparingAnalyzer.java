@@ -17,8 +17,13 @@
  */
 package org.owasp.dependencycheck.analyzer;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import javax.annotation.concurrent.ThreadSafe;
 import org.owasp.dependencycheck.Engine;
 import org.owasp.dependencycheck.analyzer.exception.AnalysisException;
@@ -95,13 +100,39 @@ public abstract class AbstractDependencyComparingAnalyzer extends AbstractAnalyz
             if (dependencies.length < 2) {
                 return;
             }
+            final List<Set<String>> keys = new ArrayList<>(dependencies.length);
+            final Map<String, List<Integer>> blocks = new HashMap<>();
+            final List<Integer> unblocked = new ArrayList<>();
+            for (int i = 0; i < dependencies.length; i++) {
+                final Set<String> k = getBlockingKeys(dependencies[i]);
+                keys.add(k);
+                if (k == null) {
+                    unblocked.add(i);
+                } else {
+                    for (String key : k) {
+                        List<Integer> block = blocks.get(key);
+                        if (block == null) {
+                            block = new ArrayList<>();
+                            blocks.put(key, block);
+                        }
+                        block.add(i);
+                    }
+                }
+            }
             for (int x = 0; x < dependencies.length - 1; x++) {
                 final Dependency dependency = dependencies[x];
                 if (!dependenciesToRemove.contains(dependency)) {
-                    for (int y = x + 1; y < dependencies.length; y++) {
-                        final Dependency nextDependency = dependencies[y];
-                        if (evaluateDependencies(dependency, nextDependency, dependenciesToRemove)) {
-                            break;
+                    if (keys.get(x) == null) {
+                        for (int y = x + 1; y < dependencies.length; y++) {
+                            if (evaluateDependencies(dependency, dependencies[y], dependenciesToRemove)) {
+                                break;
+                            }
+                        }
+                    } else {
+                        for (int y : getCandidates(x, keys.get(x), blocks, unblocked)) {
+                            if (evaluateDependencies(dependency, dependencies[y], dependenciesToRemove)) {
+                                break;
+                            }
                         }
                     }
                 }
@@ -112,6 +143,54 @@ public abstract class AbstractDependencyComparingAnalyzer extends AbstractAnalyz
         }
     }
 
+    /**
+     * Returns the positions, in ascending order, of the dependencies after
+     * the given position that share a blocking key with it or that have no
+     * blocking keys.
+     *
+     * @param position the position of the dependency being compared
+     * @param keys the blocking keys of the dependency being compared
+     * @param blocks the positions of the dependencies by blocking key
+     * @param unblocked the positions of the dependencies without blocking
+     * keys
+     * @return the positions of the dependencies to compare against
+     */
+    private Set<Integer> getCandidates(int position, Set<String> keys, Map<String, List<Integer>> blocks,
+            List<Integer> unblocked) {
+        final Set<Integer> candidates = new TreeSet<>();
+        for (String key : keys) {
+            for (Integer i : blocks.get(key)) {
+                if (i > position) {
+                    candidates.add(i);
+                }
+            }
+        }
+        for (Integer i : unblocked) {
+            if (i > position) {
+                candidates.add(i);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Returns the blocking keys of the dependency. Two dependencies are only
+     * passed to {@link #evaluateDependencies(Dependency, Dependency, Set)} if
+     * they share a blocking key or if either one has no blocking keys. An
+     * implementation must therefore return keys such that every pair of
+     * dependencies that could be merged shares at least one key.
+     * <p>
+     * The default implementation returns <code>null</code> so that every pair
+     * of dependencies is evaluated.</p>
+     *
+     * @param dependency the dependency
+     * @return the blocking keys, or <code>null</code> if the dependency must
+     * be compared to all other dependencies
+     */
+    protected Set<String> getBlockingKeys(Dependency dependency) {
+        return null;
+    }
+
     /**
      * Evaluates the dependencies
      *
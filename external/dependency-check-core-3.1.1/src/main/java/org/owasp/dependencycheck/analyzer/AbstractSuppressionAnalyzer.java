@@ -17,23 +17,28 @@
  */
 package org.owasp.dependencycheck.analyzer;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
 import javax.annotation.concurrent.ThreadSafe;
+import org.apache.commons.io.IOUtils;
 import org.owasp.dependencycheck.Engine;
 import org.owasp.dependencycheck.analyzer.exception.AnalysisException;
 import org.owasp.dependencycheck.dependency.Dependency;
 import org.owasp.dependencycheck.exception.InitializationException;
+import org.owasp.dependencycheck.xml.RuleFileCache;
 import org.owasp.dependencycheck.xml.suppression.SuppressionParseException;
 import org.owasp.dependencycheck.xml.suppression.SuppressionParser;
 import org.owasp.dependencycheck.xml.suppression.SuppressionRule;
+import org.owasp.dependencycheck.xml.suppression.SuppressionRuleIndex;
 import org.owasp.dependencycheck.utils.DownloadFailedException;
 import org.owasp.dependencycheck.utils.Downloader;
 import org.owasp.dependencycheck.utils.FileUtils;
@@ -55,10 +60,24 @@ public abstract class AbstractSuppressionAnalyzer extends AbstractAnalyzer {
      * The Logger for use throughout the class.
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractSuppressionAnalyzer.class);
+    /**
+     * The name of the base suppression file.
+     */
+    private static final String BASE_SUPPRESSION_FILE = "dependencycheck-base-suppression.xml";
+    /**
+     * The suppression rules parsed from each suppression file, shared by all
+     * engines so that unchanged files are not parsed again.
+     */
+    private static final RuleFileCache<List<SuppressionRule>> RULE_CACHE = new RuleFileCache<>();
     /**
      * The list of suppression rules.
      */
     private List<SuppressionRule> rules = new ArrayList<>();
+    /**
+     * The index of the suppression rules used to find the rules that could
+     * apply to a dependency; created once the rules have been loaded.
+     */
+    private volatile SuppressionRuleIndex ruleIndex = null;
 
     /**
      * Get the number of suppression rules.
@@ -97,18 +116,19 @@ public abstract class AbstractSuppressionAnalyzer extends AbstractAnalyzer {
                 loadSuppressionData();
             } catch (SuppressionParseException ex) {
                 throw new InitializationException("Warn initializing the suppression analyzer: " + ex.getLocalizedMessage(), ex, false);
+            } finally {
+                ruleIndex = new SuppressionRuleIndex(rules);
             }
         }
     }
 
     @Override
     protected void analyzeDependency(Dependency dependency, Engine engine) throws AnalysisException {
-        if (rules.isEmpty()) {
+        final SuppressionRuleIndex index = ruleIndex;
+        if (index == null || index.size() == 0) {
             return;
         }
-        for (final SuppressionRule rule : rules) {
-            rule.process(dependency);
-        }
+        index.process(dependency);
     }
 
     /**
@@ -151,14 +171,19 @@ public abstract class AbstractSuppressionAnalyzer extends AbstractAnalyzer {
      */
     private void loadSuppressionBaseData() throws SuppressionParseException {
         final SuppressionParser parser = new SuppressionParser();
-        List<SuppressionRule> ruleList;
-        try {
-            final InputStream in = FileUtils.getResourceAsStream("dependencycheck-base-suppression.xml");
-            ruleList = parser.parseSuppressionRules(in);
-        } catch (SAXException ex) {
+        final String location = "classpath:" + BASE_SUPPRESSION_FILE;
+        try (InputStream in = FileUtils.getResourceAsStream(BASE_SUPPRESSION_FILE)) {
+            final byte[] content = IOUtils.toByteArray(in);
+            final String checksum = RuleFileCache.getChecksum(content);
+            List<SuppressionRule> ruleList = RULE_CACHE.get(location, checksum);
+            if (ruleList == null) {
+                ruleList = Collections.unmodifiableList(parser.parseSuppressionRules(new ByteArrayInputStream(content)));
+                RULE_CACHE.put(location, checksum, null, ruleList);
+            }
+            rules.addAll(ruleList);
+        } catch (SAXException | IOException ex) {
             throw new SuppressionParseException("Unable to parse the base suppression data file", ex);
         }
-        rules.addAll(ruleList);
     }
 
     /**
@@ -176,13 +201,20 @@ public abstract class AbstractSuppressionAnalyzer extends AbstractAnalyzer {
         LOGGER.debug("Loading suppression rules from '{}'", suppressionFilePath);
         final List<SuppressionRule> list = new ArrayList<>();
         File file = null;
+        String etag = null;
         boolean deleteTempFile = false;
         try {
             final Pattern uriRx = Pattern.compile("^(https?|file)\\:.*", Pattern.CASE_INSENSITIVE);
             if (uriRx.matcher(suppressionFilePath).matches()) {
+                final URL url = new URL(suppressionFilePath);
+                etag = RuleFileCache.getETag(url, getSettings());
+                final List<SuppressionRule> cached = RULE_CACHE.getByETag(suppressionFilePath, etag);
+                if (cached != null) {
+                    list.addAll(cached);
+                    return list;
+                }
                 deleteTempFile = true;
                 file = getSettings().getTempFile("suppression", "xml");
-                final URL url = new URL(suppressionFilePath);
                 final Downloader downloader = new Downloader(getSettings());
                 try {
                     downloader.fetchFile(url, file, false);
@@ -213,13 +245,19 @@ public abstract class AbstractSuppressionAnalyzer extends AbstractAnalyzer {
                     LOGGER.warn(msg);
                     throw new SuppressionParseException(msg);
                 }
-                try {
-                    list.addAll(parser.parseSuppressionRules(file));
-                } catch (SuppressionParseException ex) {
-                    LOGGER.warn("Unable to parse suppression xml file '{}'", file.getPath());
-                    LOGGER.warn(ex.getMessage());
-                    throw ex;
+                final String checksum = RuleFileCache.getChecksum(file);
+                List<SuppressionRule> parsed = RULE_CACHE.get(suppressionFilePath, checksum);
+                if (parsed == null) {
+                    try {
+                        parsed = Collections.unmodifiableList(parser.parseSuppressionRules(file));
+                    } catch (SuppressionParseException ex) {
+                        LOGGER.warn("Unable to parse suppression xml file '{}'", file.getPath());
+                        LOGGER.warn(ex.getMessage());
+                        throw ex;
+                    }
                 }
+                RULE_CACHE.put(suppressionFilePath, checksum, etag, parsed);
+                list.addAll(parsed);
             }
         } catch (DownloadFailedException ex) {
             throwSuppressionParseException("Unable to fetch the configured suppression file", ex, suppressionFilePath);
@@ -24,11 +24,18 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.concurrent.ThreadSafe;
 
 import org.apache.commons.compress.archivers.ArchiveEntry;
@@ -42,7 +49,6 @@ import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2Utils;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.apache.commons.compress.compressors.gzip.GzipUtils;
-import org.apache.commons.compress.utils.IOUtils;
 
 import org.owasp.dependencycheck.Engine;
 import org.owasp.dependencycheck.analyzer.exception.AnalysisException;
@@ -51,6 +57,7 @@ import org.owasp.dependencycheck.dependency.Dependency;
 import org.owasp.dependencycheck.exception.InitializationException;
 import org.owasp.dependencycheck.utils.FileFilterBuilder;
 import org.owasp.dependencycheck.utils.FileUtils;
+import org.owasp.dependencycheck.utils.InvalidSettingException;
 import org.owasp.dependencycheck.utils.Settings;
 
 import org.slf4j.Logger;
@@ -70,6 +77,28 @@ public class ArchiveAnalyzer extends AbstractFileTypeAnalyzer {
      * The logger.
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(ArchiveAnalyzer.class);
+    /**
+     * The key for the setting that enables the fork/join extraction mode where
+     * each nested archive is extracted and scanned as a separate task.
+     */
+    public static final String PARALLEL_EXTRACTION = "archive.extraction.parallel";
+    /**
+     * The key for the setting that caps the number of archives that are
+     * extracted concurrently when the parallel extraction mode is enabled.
+     */
+    public static final String EXTRACTION_THREADS = "archive.extraction.threads";
+    /**
+     * The key for the setting that caps the temporary disk space, in
+     * megabytes, used for extracted files. The cap is checked while files are
+     * extracted; once it is reached the file being extracted is discarded, no
+     * further files are extracted, and the archives that could not be fully
+     * extracted remain in the analysis. Zero or less means there is no cap.
+     */
+    public static final String MAX_TEMP_SIZE = "archive.extraction.maxtempsize";
+    /**
+     * The size of the buffer used to extract files.
+     */
+    private static final int BUFFER_SIZE = 8192;
     /**
      * The count of directories created during analysis. This is used for
      * creating temporary directories.
@@ -88,6 +117,28 @@ public class ArchiveAnalyzer extends AbstractFileTypeAnalyzer {
      * The file filter used to filter supported files.
      */
     private FileFilter fileFilter = null;
+    /**
+     * The pool used to extract archives when the parallel extraction mode is
+     * enabled; both the archives being analyzed and their nested archives are
+     * extracted on the pool so that its parallelism caps the number of
+     * concurrent extractions. <code>null</code> when archives are extracted
+     * sequentially.
+     */
+    private volatile ForkJoinPool extractionPool = null;
+    /**
+     * The maximum number of bytes that may be extracted into the temporary
+     * directory; zero or less means there is no cap.
+     */
+    private long maxTempBytes;
+    /**
+     * The number of bytes written to the temporary directory.
+     */
+    private final AtomicLong extractedBytes = new AtomicLong(0);
+    /**
+     * Whether or not the warning that the temporary disk space cap was reached
+     * has been logged.
+     */
+    private final AtomicBoolean tempSizeWarned = new AtomicBoolean(false);
     /**
      * The set of things we can handle with Zip methods
      */
@@ -194,6 +245,19 @@ public class ArchiveAnalyzer extends AbstractFileTypeAnalyzer {
             setEnabled(false);
             throw new InitializationException("Unable to create a temporary file", ex);
         }
+        extractedBytes.set(0);
+        tempSizeWarned.set(false);
+        boolean parallel = false;
+        try {
+            parallel = getSettings().getBoolean(PARALLEL_EXTRACTION, false);
+        } catch (InvalidSettingException ex) {
+            LOGGER.debug("Invalid setting for {}; archives will be extracted sequentially", PARALLEL_EXTRACTION, ex);
+        }
+        if (parallel) {
+            final int threads = getSettings().getInt(EXTRACTION_THREADS, Runtime.getRuntime().availableProcessors());
+            extractionPool = new ForkJoinPool(Math.max(1, threads));
+            LOGGER.debug("Nested archives will be extracted using {} threads", extractionPool.getParallelism());
+        }
     }
 
     /**
@@ -205,6 +269,10 @@ public class ArchiveAnalyzer extends AbstractFileTypeAnalyzer {
      */
     @Override
     public void closeAnalyzer() throws Exception {
+        if (extractionPool != null) {
+            extractionPool.shutdown();
+            extractionPool = null;
+        }
         if (tempFileLocation != null && tempFileLocation.exists()) {
             LOGGER.debug("Attempting to delete temporary files from `{}`", tempFileLocation.toString());
             final boolean success = FileUtils.delete(tempFileLocation);
@@ -229,7 +297,7 @@ public class ArchiveAnalyzer extends AbstractFileTypeAnalyzer {
      */
     @Override
     public void analyzeDependency(Dependency dependency, Engine engine) throws AnalysisException {
-        extractAndAnalyze(dependency, engine, 0);
+        extract(Collections.singletonList(dependency), engine, 0);
         engine.sortDependencies();
     }
 
@@ -247,10 +315,20 @@ public class ArchiveAnalyzer extends AbstractFileTypeAnalyzer {
     private void extractAndAnalyze(Dependency dependency, Engine engine, int scanDepth) throws AnalysisException {
         final File f = new File(dependency.getActualFilePath());
         final File tmpDir = getNextTempDirectory();
-        extractFiles(f, tmpDir, engine);
-
-        //make a copy
-        final List<Dependency> dependencySet = findMoreDependencies(engine, tmpDir);
+        final List<Dependency> dependencySet;
+        final List<Dependency> nested = new ArrayList<>();
+        //the archive is only replaced by its contents if it was fully extracted
+        boolean complete = !isTempSizeExceeded();
+        if (complete && extractFiles(f, tmpDir, engine) > 0) {
+            dependencySet = findMoreDependencies(engine, tmpDir);
+        } else {
+            //nothing was extracted; there is no need to scan the directory
+            dependencySet = null;
+            if (!tmpDir.delete()) {
+                LOGGER.debug("Unable to delete the empty temporary directory '{}'", tmpDir);
+            }
+        }
+        complete = complete && !isTempSizeExceeded();
 
         if (dependencySet != null && !dependencySet.isEmpty()) {
             for (Dependency d : dependencySet) {
@@ -269,7 +347,7 @@ public class ArchiveAnalyzer extends AbstractFileTypeAnalyzer {
                     //TODO - can we get more evidence from the parent? EAR contains module name, etc.
                     //analyze the dependency (i.e. extract files) if it is a supported type.
                     if (this.accept(d.getActualFile()) && scanDepth < maxScanDepth) {
-                        extractAndAnalyze(d, engine, scanDepth + 1);
+                        nested.add(d);
                     }
                 } else {
                     for (Dependency sub : dependencySet) {
@@ -287,12 +365,86 @@ public class ArchiveAnalyzer extends AbstractFileTypeAnalyzer {
                 }
             }
         }
-        if (REMOVE_FROM_ANALYSIS.accept(dependency.getActualFile())) {
+        extract(nested, engine, scanDepth + 1);
+        if (!complete) {
+            LOGGER.debug("'{}' was not fully extracted and remains in the analysis", dependency.getFileName());
+        } else if (REMOVE_FROM_ANALYSIS.accept(dependency.getActualFile())) {
             addDisguisedJarsToDependencies(dependency, engine);
             engine.removeDependency(dependency);
         }
     }
 
+    /**
+     * Extracts and analyzes archives; either an archive being analyzed or the
+     * nested archives discovered within an archive. When the parallel
+     * extraction mode is enabled each archive becomes its own fork/join task
+     * so that idle extraction threads can steal work from archives that
+     * contain many nested archives; archives being analyzed by the engine's
+     * threads are handed to the pool so that the pool limits the number of
+     * concurrent extractions.
+     *
+     * @param nested the archives to extract
+     * @param engine the engine doing the analysis
+     * @param scanDepth the scan depth of the archives
+     * @throws AnalysisException thrown if there is a problem analyzing the
+     * dependencies
+     */
+    private void extract(List<Dependency> nested, Engine engine, int scanDepth) throws AnalysisException {
+        if (nested.isEmpty()) {
+            return;
+        }
+        final ForkJoinPool pool = extractionPool;
+        if (pool == null || (nested.size() == 1 && ForkJoinTask.getPool() == pool)) {
+            for (Dependency d : nested) {
+                extractAndAnalyze(d, engine, scanDepth);
+            }
+            return;
+        }
+        final List<ExtractionTask> tasks = new ArrayList<>(nested.size());
+        for (Dependency d : nested) {
+            tasks.add(new ExtractionTask(d, engine, scanDepth));
+        }
+        if (ForkJoinTask.getPool() == pool) {
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            pool.invoke(new RecursiveAction() {
+                /**
+                 * The serial version UID for serialization.
+                 */
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        }
+        for (ExtractionTask task : tasks) {
+            if (task.getAnalysisException() != null) {
+                throw task.getAnalysisException();
+            }
+        }
+    }
+
+    /**
+     * Determines if the cap on the temporary disk space used for extracted
+     * files has been reached; the first time the cap is reached a warning is
+     * logged.
+     *
+     * @return <code>true</code> if no further archives should be extracted;
+     * otherwise <code>false</code>
+     */
+    private boolean isTempSizeExceeded() {
+        if (maxTempBytes > 0 && extractedBytes.get() >= maxTempBytes) {
+            if (tempSizeWarned.compareAndSet(false, true)) {
+                LOGGER.warn("The Archive Analyzer has extracted {} bytes, exceeding {}; "
+                        + "no further archives will be extracted", extractedBytes.get(), MAX_TEMP_SIZE);
+            }
+            return true;
+        }
+        return false;
+    }
+
     /**
      * If a zip file was identified as a possible JAR, this method will add the
      * zip to the list of dependencies.
@@ -370,20 +522,44 @@ public class ArchiveAnalyzer extends AbstractFileTypeAnalyzer {
     }
 
     /**
-     * Extracts the contents of an archive into the specified directory.
+     * Extracts the contents of an archive into the specified directory. Only
+     * the files accepted by the engine are extracted.
      *
      * @param archive an archive file such as a WAR or EAR
      * @param destination a directory to extract the contents to
      * @param engine the scanning engine
+     * @return the number of files extracted
      * @throws AnalysisException thrown if the archive is not found
      */
-    private void extractFiles(File archive, File destination, Engine engine) throws AnalysisException {
+    int extractFiles(File archive, File destination, Engine engine) throws AnalysisException {
+        int extracted = 0;
         if (archive != null && destination != null) {
             String archiveExt = FileUtils.getFileExtension(archive.getName());
             if (archiveExt == null) {
-                return;
+                return extracted;
             }
             archiveExt = archiveExt.toLowerCase();
+            //fully executable JAR files are streamed as the script preceding the zip data is skipped
+            if (KNOWN_ZIP_EXT.contains(archiveExt) && !startsWithScript(archive)) {
+                ZipFile zip = null;
+                try {
+                    zip = new ZipFile(archive);
+                } catch (IOException ex) {
+                    LOGGER.debug("Unable to read the central directory of '{}'; streaming the archive instead",
+                            archive.getName(), ex);
+                }
+                if (zip != null) {
+                    try {
+                        return extractZipFile(zip, destination, engine);
+                    } catch (ArchiveExtractionException ex) {
+                        LOGGER.warn("Exception extracting archive '{}'.", archive.getName());
+                        LOGGER.debug("", ex);
+                        return extracted;
+                    } finally {
+                        ZipFile.closeQuietly(zip);
+                    }
+                }
+            }
 
             final FileInputStream fis;
             try {
@@ -403,18 +579,20 @@ public class ArchiveAnalyzer extends AbstractFileTypeAnalyzer {
                     in = new BufferedInputStream(fis);
                     ensureReadableJar(archiveExt, in);
                     zin = new ZipArchiveInputStream(in);
-                    extractArchive(zin, destination, engine);
+                    extracted = extractArchive(zin, destination, engine);
                 } else if ("tar".equals(archiveExt)) {
                     in = new BufferedInputStream(fis);
                     tin = new TarArchiveInputStream(in);
-                    extractArchive(tin, destination, engine);
+                    extracted = extractArchive(tin, destination, engine);
                 } else if ("gz".equals(archiveExt) || "tgz".equals(archiveExt)) {
                     final String uncompressedName = GzipUtils.getUncompressedFilename(archive.getName());
                     final File f = new File(destination, uncompressedName);
                     if (engine.accept(f)) {
                         in = new BufferedInputStream(fis);
                         gin = new GzipCompressorInputStream(in);
-                        decompressFile(gin, f);
+                        if (decompressFile(gin, f)) {
+                            extracted = 1;
+                        }
                     }
                 } else if ("bz2".equals(archiveExt) || "tbz2".equals(archiveExt)) {
                     final String uncompressedName = BZip2Utils.getUncompressedFilename(archive.getName());
@@ -422,7 +600,9 @@ public class ArchiveAnalyzer extends AbstractFileTypeAnalyzer {
                     if (engine.accept(f)) {
                         in = new BufferedInputStream(fis);
                         bzin = new BZip2CompressorInputStream(in);
-                        decompressFile(bzin, f);
+                        if (decompressFile(bzin, f)) {
+                            extracted = 1;
+                        }
                     }
                 }
             } catch (ArchiveExtractionException ex) {
@@ -442,6 +622,65 @@ public class ArchiveAnalyzer extends AbstractFileTypeAnalyzer {
                 FileUtils.close(bzin);
             }
         }
+        return extracted;
+    }
+
+    /**
+     * Extracts the files accepted by the engine from a zip file. The entries
+     * are located using the zip file's central directory, so entries that are
+     * not accepted are neither read nor decompressed.
+     *
+     * @param zip the zip file to extract files from
+     * @param destination the location to write the files too
+     * @param engine the dependency-check engine
+     * @return the number of files extracted
+     * @throws ArchiveExtractionException thrown if there is an exception
+     * extracting files from the archive
+     */
+    private int extractZipFile(ZipFile zip, File destination, Engine engine) throws ArchiveExtractionException {
+        int extracted = 0;
+        final Enumeration<ZipArchiveEntry> entries = zip.getEntriesInPhysicalOrder();
+        try {
+            while (entries.hasMoreElements()) {
+                final ZipArchiveEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                final File file = new File(destination, entry.getName());
+                if (engine.accept(file)) {
+                    if (!zip.canReadEntryData(entry)) {
+                        LOGGER.debug("Unable to read the compressed entry '{}'", entry.getName());
+                        continue;
+                    }
+                    try (InputStream input = zip.getInputStream(entry)) {
+                        if (!extractAcceptedFile(input, file)) {
+                            break;
+                        }
+                    }
+                    extracted += 1;
+                }
+            }
+        } catch (IOException | AnalysisException ex) {
+            throw new ArchiveExtractionException(ex);
+        }
+        return extracted;
+    }
+
+    /**
+     * Checks if the file begins with '#!' which indicates it is a fully
+     * executable archive.
+     *
+     * @param archive the archive to check
+     * @return <code>true</code> if the archive begins with a script; otherwise
+     * <code>false</code>
+     */
+    private static boolean startsWithScript(File archive) {
+        try (InputStream in = new FileInputStream(archive)) {
+            return in.read() == '#' && in.read() == '!';
+        } catch (IOException ex) {
+            LOGGER.trace("", ex);
+            return false;
+        }
     }
 
     /**
@@ -506,21 +745,24 @@ public class ArchiveAnalyzer extends AbstractFileTypeAnalyzer {
      * @param input the archive to extract files from
      * @param destination the location to write the files too
      * @param engine the dependency-check engine
+     * @return the number of files extracted
      * @throws ArchiveExtractionException thrown if there is an exception
      * extracting files from the archive
      */
-    private void extractArchive(ArchiveInputStream input, File destination, Engine engine) throws ArchiveExtractionException {
+    private int extractArchive(ArchiveInputStream input, File destination, Engine engine) throws ArchiveExtractionException {
         ArchiveEntry entry;
+        int extracted = 0;
         try {
             while ((entry = input.getNextEntry()) != null) {
-                final File file = new File(destination, entry.getName());
-                if (entry.isDirectory()) {
-                    if (!file.exists() && !file.mkdirs()) {
-                        final String msg = String.format("Unable to create directory '%s'.", file.getAbsolutePath());
-                        throw new AnalysisException(msg);
+                //directories are created as needed when the accepted files are extracted
+                if (!entry.isDirectory()) {
+                    final File file = new File(destination, entry.getName());
+                    if (engine.accept(file)) {
+                        if (!extractAcceptedFile(input, file)) {
+                            break;
+                        }
+                        extracted += 1;
                     }
-                } else if (engine.accept(file)) {
-                    extractAcceptedFile(input, file);
                 }
             }
         } catch (IOException | AnalysisException ex) {
@@ -528,24 +770,31 @@ public class ArchiveAnalyzer extends AbstractFileTypeAnalyzer {
         } finally {
             FileUtils.close(input);
         }
+        return extracted;
     }
 
     /**
      * Extracts a file from an archive.
      *
-     * @param input the archives input stream
+     * @param input the input stream of the archive entry
      * @param file the file to extract
+     * @return <code>true</code> if the file was extracted;
+     * <code>false</code> if the cap on the temporary disk space was reached
+     * and the file was discarded
      * @throws AnalysisException thrown if there is an error
      */
-    private static void extractAcceptedFile(ArchiveInputStream input, File file) throws AnalysisException {
+    private boolean extractAcceptedFile(InputStream input, File file) throws AnalysisException {
+        if (isTempSizeExceeded()) {
+            return false;
+        }
         LOGGER.debug("Extracting '{}'", file.getPath());
         final File parent = file.getParentFile();
         if (!parent.isDirectory() && !parent.mkdirs()) {
             final String msg = String.format("Unable to build directory '%s'.", parent.getAbsolutePath());
             throw new AnalysisException(msg);
         }
-        try (FileOutputStream fos = new FileOutputStream(file)) {
-            IOUtils.copy(input, fos);
+        try {
+            return copy(input, file);
         } catch (FileNotFoundException ex) {
             LOGGER.debug("", ex);
             final String msg = String.format("Unable to find file '%s'.", file.getName());
@@ -562,19 +811,53 @@ public class ArchiveAnalyzer extends AbstractFileTypeAnalyzer {
      *
      * @param inputStream the compressed file
      * @param outputFile the location to write the decompressed file
+     * @return <code>true</code> if the file was decompressed;
+     * <code>false</code> if the cap on the temporary disk space was reached
      * @throws ArchiveExtractionException thrown if there is an exception
      * decompressing the file
      */
-    private void decompressFile(CompressorInputStream inputStream, File outputFile) throws ArchiveExtractionException {
+    private boolean decompressFile(CompressorInputStream inputStream, File outputFile) throws ArchiveExtractionException {
         LOGGER.debug("Decompressing '{}'", outputFile.getPath());
-        try (FileOutputStream out = new FileOutputStream(outputFile)) {
-            IOUtils.copy(inputStream, out);
+        try {
+            return copy(inputStream, outputFile);
         } catch (IOException ex) {
             LOGGER.debug("", ex);
             throw new ArchiveExtractionException(ex);
         }
     }
 
+    /**
+     * Writes the input stream to the file while counting the bytes written
+     * against the cap on the temporary disk space; if the cap is reached the
+     * partially written file is deleted.
+     *
+     * @param input the input stream
+     * @param file the file to write
+     * @return <code>true</code> if the file was written; <code>false</code>
+     * if the cap on the temporary disk space was reached
+     * @throws IOException thrown if the stream cannot be read or the file
+     * cannot be written
+     */
+    private boolean copy(InputStream input, File file) throws IOException {
+        boolean complete = true;
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                extractedBytes.addAndGet(read);
+                if (isTempSizeExceeded()) {
+                    complete = false;
+                    break;
+                }
+            }
+        }
+        if (!complete && !file.delete()) {
+            LOGGER.debug("Unable to delete the partially extracted file '{}'", file);
+        }
+        return complete;
+    }
+
     /**
      * Attempts to determine if a zip file is actually a JAR file.
      *
@@ -614,6 +897,7 @@ public class ArchiveAnalyzer extends AbstractFileTypeAnalyzer {
      */
     private void initializeSettings() {
         maxScanDepth = getSettings().getInt("archive.scan.depth", 3);
+        maxTempBytes = getSettings().getInt(MAX_TEMP_SIZE, 0) * 1024L * 1024L;
         final String additionalZipExt = getSettings().getString(Settings.KEYS.ADDITIONAL_ZIP_EXTENSIONS);
         if (additionalZipExt != null) {
             final String[] ext = additionalZipExt.split("\\s*,\\s*");
@@ -622,4 +906,63 @@ public class ArchiveAnalyzer extends AbstractFileTypeAnalyzer {
         EXTENSIONS.addAll(KNOWN_ZIP_EXT);
         fileFilter = FileFilterBuilder.newInstance().addExtensions(EXTENSIONS).build();
     }
+
+    /**
+     * A fork/join task that extracts and analyzes a single nested archive.
+     */
+    private class ExtractionTask extends RecursiveAction {
+
+        /**
+         * The serial version UID for serialization.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * The nested archive to extract.
+         */
+        private final transient Dependency dependency;
+        /**
+         * The engine doing the analysis.
+         */
+        private final transient Engine engine;
+        /**
+         * The scan depth of the nested archive.
+         */
+        private final int scanDepth;
+        /**
+         * The exception thrown while extracting the archive, if any.
+         */
+        private AnalysisException analysisException;
+
+        /**
+         * Constructs a new extraction task.
+         *
+         * @param dependency the nested archive to extract
+         * @param engine the engine doing the analysis
+         * @param scanDepth the scan depth of the nested archive
+         */
+        ExtractionTask(Dependency dependency, Engine engine, int scanDepth) {
+            this.dependency = dependency;
+            this.engine = engine;
+            this.scanDepth = scanDepth;
+        }
+
+        /**
+         * Returns the exception thrown while extracting the archive.
+         *
+         * @return the exception, or <code>null</code> if the extraction
+         * succeeded
+         */
+        AnalysisException getAnalysisException() {
+            return analysisException;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                extractAndAnalyze(dependency, engine, scanDepth);
+            } catch (AnalysisException ex) {
+                analysisException = ex;
+            }
+        }
+    }
 }
@@ -23,10 +23,13 @@ import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.concurrent.ThreadSafe;
 import org.apache.commons.lang3.builder.CompareToBuilder;
 import org.apache.lucene.analysis.util.CharArraySet;
@@ -101,6 +104,15 @@ public class CPEAnalyzer extends AbstractAnalyzer {
      * The URL to perform a search of the NVD CVE data at NIST.
      */
     public static final String NVD_SEARCH_URL = "https://web.nvd.nist.gov/view/vuln/search-results?adv_search=true&cves=on&cpe_version=%s";
+    /**
+     * The settings key for the maximum number of CPE search results cached by
+     * the analyzer; a value of zero disables the cache.
+     */
+    public static final String SEARCH_CACHE_SIZE = "analyzer.cpe.searchcache.size";
+    /**
+     * The default maximum number of cached CPE search results.
+     */
+    private static final int DEFAULT_SEARCH_CACHE_SIZE = 10000;
     /**
      * The CPE in memory index.
      */
@@ -115,6 +127,21 @@ public class CPEAnalyzer extends AbstractAnalyzer {
      * pipeline.
      */
     private List<String> skipEcosystems;
+    /**
+     * Cache of the CPE search results keyed by the Lucene query; the query
+     * includes the normalized vendor and product evidence as well as the
+     * weightings. Identical dependencies (e.g. copies of the same JAR) produce
+     * the same query so the index only needs to be searched once.
+     */
+    private Map<String, List<IndexEntry>> searchCache;
+    /**
+     * The number of searches answered from the search cache.
+     */
+    private final AtomicLong searchCacheHits = new AtomicLong();
+    /**
+     * The number of searches that were not in the search cache.
+     */
+    private final AtomicLong searchCacheMisses = new AtomicLong();
 
     /**
      * Returns the name of this analyzer.
@@ -178,13 +205,38 @@ public class CPEAnalyzer extends AbstractAnalyzer {
         this.cpe = CpeMemoryIndex.getInstance();
         try {
             final long creationStart = System.currentTimeMillis();
-            cpe.open(cve);
+            cpe.open(cve, getSettings());
             final long creationSeconds = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - creationStart);
             LOGGER.info("Created CPE Index ({} seconds)", creationSeconds);
         } catch (IndexException ex) {
             LOGGER.debug("IndexException", ex);
             throw new DatabaseException(ex);
         }
+        searchCache = createSearchCache(getSettings() == null ? DEFAULT_SEARCH_CACHE_SIZE
+                : getSettings().getInt(SEARCH_CACHE_SIZE, DEFAULT_SEARCH_CACHE_SIZE));
+    }
+
+    /**
+     * Creates the least recently used cache of CPE search results.
+     *
+     * @param maxSize the maximum number of cached search results
+     * @return the cache; or <code>null</code> if the cache is disabled
+     */
+    private static Map<String, List<IndexEntry>> createSearchCache(final int maxSize) {
+        if (maxSize < 1) {
+            return null;
+        }
+        return Collections.synchronizedMap(new LinkedHashMap<String, List<IndexEntry>>(16, 0.75f, true) {
+            /**
+             * The serial version UID for serialization.
+             */
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<IndexEntry>> eldest) {
+                return size() > maxSize;
+            }
+        });
     }
 
     /**
@@ -196,6 +248,28 @@ public class CPEAnalyzer extends AbstractAnalyzer {
             cpe.close();
             cpe = null;
         }
+        if (searchCache != null) {
+            LOGGER.debug("CPE search cache: {} hits, {} misses", searchCacheHits.get(), searchCacheMisses.get());
+            searchCache = null;
+        }
+    }
+
+    /**
+     * Returns the number of CPE searches answered from the search cache.
+     *
+     * @return the number of search cache hits
+     */
+    protected long getSearchCacheHits() {
+        return searchCacheHits.get();
+    }
+
+    /**
+     * Returns the number of CPE searches that were not in the search cache.
+     *
+     * @return the number of search cache misses
+     */
+    protected long getSearchCacheMisses() {
+        return searchCacheMisses.get();
     }
 
     /**
@@ -286,6 +360,10 @@ public class CPEAnalyzer extends AbstractAnalyzer {
      * If either the vendorWeightings or productWeightings lists have been
      * populated this data is used to add weighting factors to the search.</p>
      *
+     * <p>
+     * Results are cached by the generated query so that repeated searches for
+     * identical evidence do not search the index again.</p>
+     *
      * @param vendor the text used to search the vendor field
      * @param product the text used to search the product field
      * @param vendorWeightings a list of strings to use to add weighting factors
@@ -303,6 +381,16 @@ public class CPEAnalyzer extends AbstractAnalyzer {
         if (searchString == null) {
             return ret;
         }
+        final Map<String, List<IndexEntry>> cache = searchCache;
+        if (cache != null) {
+            final List<IndexEntry> cached = cache.get(searchString);
+            if (cached != null) {
+                searchCacheHits.incrementAndGet();
+                ret.addAll(cached);
+                return ret;
+            }
+            searchCacheMisses.incrementAndGet();
+        }
         try {
             final TopDocs docs = cpe.search(searchString, MAX_QUERY_RESULTS);
             for (ScoreDoc d : docs.scoreDocs) {
@@ -317,6 +405,9 @@ public class CPEAnalyzer extends AbstractAnalyzer {
                     }
                 }
             }
+            if (cache != null) {
+                cache.put(searchString, Collections.unmodifiableList(new ArrayList<>(ret)));
+            }
             return ret;
         } catch (ParseException ex) {
             LOGGER.warn("An error occurred querying the CPE data. See the log for more details.");
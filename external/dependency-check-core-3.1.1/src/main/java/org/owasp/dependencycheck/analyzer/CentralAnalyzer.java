@@ -22,6 +22,7 @@ import org.owasp.dependencycheck.Engine;
 import org.owasp.dependencycheck.analyzer.exception.AnalysisException;
 import org.owasp.dependencycheck.data.central.CentralSearch;
 import org.owasp.dependencycheck.data.nexus.MavenArtifact;
+import org.owasp.dependencycheck.data.nexus.MavenArtifactCache;
 import org.owasp.dependencycheck.dependency.Confidence;
 import org.owasp.dependencycheck.dependency.Dependency;
 import org.owasp.dependencycheck.dependency.Evidence;
@@ -33,9 +34,20 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.concurrent.ThreadSafe;
 import org.owasp.dependencycheck.dependency.EvidenceType;
 import org.owasp.dependencycheck.exception.InitializationException;
@@ -43,6 +55,7 @@ import org.owasp.dependencycheck.utils.DownloadFailedException;
 import org.owasp.dependencycheck.utils.Downloader;
 import org.owasp.dependencycheck.utils.FileFilterBuilder;
 import org.owasp.dependencycheck.utils.InvalidSettingException;
+import org.owasp.dependencycheck.utils.RateLimiter;
 import org.owasp.dependencycheck.utils.Settings;
 
 /**
@@ -80,11 +93,56 @@ public class CentralAnalyzer extends AbstractFileTypeAnalyzer {
      * failing the analysis.
      */
     private static final int NUMBER_OF_TRIES = 5;
+    /**
+     * The settings key to enable prefetching; when enabled the SHA1 of every
+     * JAR is looked up concurrently when the analyzer is prepared and each
+     * dependency is completed as its response arrives.
+     */
+    public static final String PREFETCH_ENABLED = "analyzer.central.prefetch.enabled";
+    /**
+     * The settings key for the maximum number of concurrent lookups when
+     * prefetching.
+     */
+    public static final String PREFETCH_MAX_IN_FLIGHT = "analyzer.central.prefetch.maxinflight";
+    /**
+     * The settings key for the maximum number of requests per second sent to
+     * Central when prefetching; zero or less means no limit.
+     */
+    public static final String PREFETCH_RATE_LIMIT = "analyzer.central.prefetch.ratelimit";
+    /**
+     * The default maximum number of concurrent lookups when prefetching.
+     */
+    private static final int DEFAULT_MAX_IN_FLIGHT = 8;
+    /**
+     * The default maximum number of requests per second sent to Central when
+     * prefetching.
+     */
+    private static final int DEFAULT_RATE_LIMIT = 10;
 
     /**
      * The searcher itself.
      */
     private CentralSearch searcher;
+    /**
+     * The persistent cache of the artifacts found by SHA1; <code>null</code>
+     * if the cache is disabled.
+     */
+    private MavenArtifactCache cache;
+    /**
+     * The executor running the prefetched lookups; <code>null</code> unless
+     * prefetching is enabled.
+     */
+    private ExecutorService lookupExecutor;
+    /**
+     * The prefetched lookups keyed by SHA1; <code>null</code> unless
+     * prefetching is enabled.
+     */
+    private ConcurrentMap<String, Future<List<MavenArtifact>>> lookups;
+    /**
+     * Limits the rate of requests sent to Central; <code>null</code> if the
+     * rate is not limited.
+     */
+    private RateLimiter rateLimiter;
 
     /**
      * Initializes the analyzer with the configured settings.
@@ -137,11 +195,74 @@ public class CentralAnalyzer extends AbstractFileTypeAnalyzer {
         if (isEnabled()) {
             try {
                 searcher = new CentralSearch(getSettings());
+                cache = MavenArtifactCache.open(getSettings(), getSettings().getString(Settings.KEYS.ANALYZER_CENTRAL_URL));
             } catch (MalformedURLException ex) {
                 setEnabled(false);
                 throw new InitializationException("The configured URL to Maven Central is malformed", ex);
             }
+            boolean prefetch = false;
+            try {
+                prefetch = getSettings().getBoolean(PREFETCH_ENABLED, false);
+            } catch (InvalidSettingException ex) {
+                LOGGER.warn("Invalid setting for {}; prefetching is disabled", PREFETCH_ENABLED);
+            }
+            if (prefetch && engine != null) {
+                prefetch(engine);
+            }
+        }
+    }
+
+    /**
+     * Starts the lookups of the SHA1 of every JAR file in the engine that was
+     * not restored from the analysis cache. At most the configured number of
+     * lookups are in flight at once and the requests, as well as the downloads
+     * of the POM files, are spread out to honor the configured rate limit; the
+     * analysis of each dependency waits only for its own lookup.
+     *
+     * @param engine the dependency-check engine
+     */
+    private void prefetch(Engine engine) {
+        final Set<String> sha1s = new LinkedHashSet<>();
+        for (Dependency dependency : engine.getDependencies()) {
+            final String sha1 = dependency.getSha1sum();
+            if (sha1 != null && sha1.matches("^[0-9A-Fa-f]{40}$") && accept(dependency.getActualFile())
+                    && !engine.isRestored(this, dependency)) {
+                sha1s.add(sha1);
+            }
+        }
+        if (sha1s.isEmpty()) {
+            return;
         }
+        final int maxInFlight = Math.max(1, getSettings().getInt(PREFETCH_MAX_IN_FLIGHT, DEFAULT_MAX_IN_FLIGHT));
+        final int rateLimit = getSettings().getInt(PREFETCH_RATE_LIMIT, DEFAULT_RATE_LIMIT);
+        rateLimiter = rateLimit > 0 ? new RateLimiter(rateLimit) : null;
+        LOGGER.debug("Prefetching {} SHA1s from Central with up to {} concurrent requests", sha1s.size(), maxInFlight);
+        lookupExecutor = Executors.newFixedThreadPool(Math.min(maxInFlight, sha1s.size()));
+        lookups = new ConcurrentHashMap<>();
+        for (final String sha1 : sha1s) {
+            lookups.put(sha1, lookupExecutor.submit(new Callable<List<MavenArtifact>>() {
+                @Override
+                public List<MavenArtifact> call() throws IOException {
+                    return search(sha1);
+                }
+            }));
+        }
+        lookupExecutor.shutdown();
+    }
+
+    /**
+     * Cancels any outstanding prefetched lookups.
+     *
+     * @throws Exception thrown if there is an exception closing the analyzer
+     */
+    @Override
+    protected void closeAnalyzer() throws Exception {
+        if (lookupExecutor != null) {
+            lookupExecutor.shutdownNow();
+            lookupExecutor = null;
+        }
+        lookups = null;
+        rateLimiter = null;
     }
 
     /**
@@ -207,7 +328,10 @@ public class CentralAnalyzer extends AbstractFileTypeAnalyzer {
                         break;
                     }
                 }
-                if (!pomAnalyzed && ma.getPomUrl() != null) {
+                final File cachedPom = cache == null || pomAnalyzed ? null : cache.getPom(ma.getPomUrl());
+                if (cachedPom != null) {
+                    PomUtils.analyzePOM(dependency, cachedPom);
+                } else if (!pomAnalyzed && ma.getPomUrl() != null) {
                     File pomFile = null;
                     try {
                         final File baseDir = getSettings().getTempDirectory();
@@ -217,14 +341,23 @@ public class CentralAnalyzer extends AbstractFileTypeAnalyzer {
                                     + "this could result in undetected CPE/CVEs.", dependency.getFileName());
                             LOGGER.debug("Unable to delete temp file");
                         }
+                        if (rateLimiter != null) {
+                            rateLimiter.acquire();
+                        }
                         LOGGER.debug("Downloading {}", ma.getPomUrl());
                         final Downloader downloader = new Downloader(getSettings());
                         downloader.fetchFile(new URL(ma.getPomUrl()), pomFile);
+                        if (cache != null) {
+                            cache.putPom(ma.getPomUrl(), pomFile);
+                        }
                         PomUtils.analyzePOM(dependency, pomFile);
 
                     } catch (DownloadFailedException ex) {
                         LOGGER.warn("Unable to download pom.xml for {} from Central; "
                                 + "this could result in undetected CPE/CVEs.", dependency.getFileName());
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new AnalysisException("Interrupted waiting to download the pom.xml from Central", ex);
                     } finally {
                         if (pomFile != null && pomFile.exists() && !FileUtils.deleteQuietly(pomFile)) {
                             LOGGER.debug("Failed to delete temporary pom file {}", pomFile.toString());
@@ -250,7 +383,9 @@ public class CentralAnalyzer extends AbstractFileTypeAnalyzer {
      * dependency from MavenCentral.
      * <p>
      * As the connection to MavenCentral is known to be unreliable, we implement
-     * a simple retry logic in order to compensate for 99% of the issues.
+     * a simple retry logic in order to compensate for 99% of the issues. The
+     * results, including artifacts that were not found, are stored in the
+     * Maven artifact cache when it is enabled.
      *
      * @param dependency the dependency to analyze
      * @return the downloaded list of MavenArtifacts
@@ -258,15 +393,72 @@ public class CentralAnalyzer extends AbstractFileTypeAnalyzer {
      * @throws IOException if connecting to MavenCentral finally failed
      */
     protected List<MavenArtifact> fetchMavenArtifacts(Dependency dependency) throws IOException {
+        final String sha1 = dependency.getSha1sum();
+        final ConcurrentMap<String, Future<List<MavenArtifact>>> prefetched = lookups;
+        final Future<List<MavenArtifact>> lookup = prefetched == null || sha1 == null ? null : prefetched.get(sha1);
+        if (lookup != null) {
+            try {
+                return lookup.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                final InterruptedIOException iioe = new InterruptedIOException("Interrupted waiting for Central search");
+                iioe.initCause(ex);
+                throw iioe;
+            } catch (ExecutionException ex) {
+                final Throwable cause = ex.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException(cause);
+            }
+        }
+        return search(sha1);
+    }
+
+    /**
+     * Searches Central for the given SHA1, retrying on connection failures.
+     *
+     * @param sha1 the SHA1 to search for
+     * @return the list of MavenArtifacts found
+     * @throws FileNotFoundException if the specified artifact is not found
+     * @throws IOException if connecting to MavenCentral finally failed
+     */
+    private List<MavenArtifact> search(String sha1) throws IOException {
+        if (cache != null) {
+            final List<MavenArtifact> cached = cache.get(sha1);
+            if (cached != null) {
+                if (cached.isEmpty()) {
+                    throw new FileNotFoundException("Artifact not found in Central (cached)");
+                }
+                return cached;
+            }
+        }
         IOException lastException = null;
         long sleepingTimeBetweenRetriesInMillis = 1000;
         int triesLeft = NUMBER_OF_TRIES;
         while (triesLeft-- > 0) {
             try {
-                return searcher.searchSha1(dependency.getSha1sum());
+                if (rateLimiter != null) {
+                    rateLimiter.acquire();
+                }
+                final List<MavenArtifact> artifacts = searcher.searchSha1(sha1);
+                if (cache != null && artifacts != null) {
+                    cache.put(sha1, artifacts);
+                }
+                return artifacts;
             } catch (FileNotFoundException fnfe) {
+                if (cache != null) {
+                    cache.put(sha1, Collections.<MavenArtifact>emptyList());
+                }
                 // retry does not make sense, just throw the exception
                 throw fnfe;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                final InterruptedIOException iioe = new InterruptedIOException("Interrupted waiting to search Central");
+                iioe.initCause(ex);
+                throw iioe;
             } catch (IOException ioe) {
                 LOGGER.debug("Could not connect to Central search (tries left: {}): {}",
                         triesLeft, ioe.getMessage());
@@ -21,6 +21,7 @@ import com.vdurmont.semver4j.Semver;
 import com.vdurmont.semver4j.Semver.SemverType;
 import com.vdurmont.semver4j.SemverException;
 import java.io.File;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -152,6 +153,35 @@ public class DependencyBundlingAnalyzer extends AbstractDependencyComparingAnaly
         return false;
     }
 
+    /**
+     * Returns the blocking keys of the dependency; dependencies can only be
+     * bundled if they have the same SHA1, share an identifier, or are NPM
+     * modules with the same name. A pom.xml without identifiers can be bundled
+     * into any JAR and is therefore compared to all dependencies.
+     *
+     * @param dependency the dependency
+     * @return the blocking keys of the dependency
+     */
+    @Override
+    protected Set<String> getBlockingKeys(Dependency dependency) {
+        final Set<Identifier> identifiers = dependency.getIdentifiers();
+        if (identifiers.isEmpty() && dependency.getFileName() != null
+                && dependency.getFileName().toLowerCase().endsWith("pom.xml")) {
+            return null;
+        }
+        final Set<String> keys = new HashSet<>();
+        if (dependency.getSha1sum() != null) {
+            keys.add("sha1:" + dependency.getSha1sum());
+        }
+        for (Identifier i : identifiers) {
+            keys.add("identifier:" + i.getType() + ':' + i.getValue());
+        }
+        if (AbstractNpmAnalyzer.NPM_DEPENDENCY_ECOSYSTEM.equals(dependency.getEcosystem()) && dependency.getName() != null) {
+            keys.add("npm:" + dependency.getName());
+        }
+        return keys;
+    }
+
     /**
      * Adds the relatedDependency to the dependency's related dependencies.
      *
@@ -18,6 +18,7 @@
 package org.owasp.dependencycheck.analyzer;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.Set;
 import org.owasp.dependencycheck.dependency.Dependency;
 import org.owasp.dependencycheck.dependency.Evidence;
@@ -110,6 +111,29 @@ public class DependencyMergingAnalyzer extends AbstractDependencyComparingAnalyz
         return false;
     }
 
+    /**
+     * Returns the blocking keys of the dependency; only Ruby gem specs and
+     * Swift packages with the same package path, ignoring case, are merged.
+     *
+     * @param dependency the dependency
+     * @return the blocking keys of the dependency
+     */
+    @Override
+    protected Set<String> getBlockingKeys(Dependency dependency) {
+        final String fileName = dependency.getFileName();
+        final String packagePath = dependency.getPackagePath();
+        if (fileName == null || packagePath == null
+                || !fileName.endsWith(".gemspec") && !fileName.endsWith(".podspec") && !fileName.equals("Package.swift")) {
+            return Collections.emptySet();
+        }
+        //matches the case folding used by String.equalsIgnoreCase
+        final StringBuilder key = new StringBuilder(packagePath.length());
+        for (int i = 0; i < packagePath.length(); i++) {
+            key.append(Character.toLowerCase(Character.toUpperCase(packagePath.charAt(i))));
+        }
+        return Collections.singleton(key.toString());
+    }
+
     /**
      * Adds the relatedDependency to the dependency's related dependencies.
      *
@@ -17,17 +17,20 @@
  */
 package org.owasp.dependencycheck.analyzer;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
 import javax.annotation.concurrent.ThreadSafe;
+import org.apache.commons.io.IOUtils;
 import org.owasp.dependencycheck.Engine;
 import org.owasp.dependencycheck.analyzer.exception.AnalysisException;
 import org.owasp.dependencycheck.dependency.Dependency;
@@ -38,7 +41,9 @@ import org.owasp.dependencycheck.xml.suppression.PropertyType;
 import org.owasp.dependencycheck.utils.DownloadFailedException;
 import org.owasp.dependencycheck.utils.Downloader;
 import org.owasp.dependencycheck.utils.FileUtils;
+import org.owasp.dependencycheck.utils.Pair;
 import org.owasp.dependencycheck.utils.Settings;
+import org.owasp.dependencycheck.xml.RuleFileCache;
 import org.owasp.dependencycheck.xml.hints.EvidenceMatcher;
 import org.owasp.dependencycheck.xml.hints.VendorDuplicatingHintRule;
 import org.owasp.dependencycheck.xml.hints.HintParseException;
@@ -65,6 +70,12 @@ public class HintAnalyzer extends AbstractAnalyzer {
      * The name of the hint rule file
      */
     private static final String HINT_RULE_FILE_NAME = "dependencycheck-base-hint.xml";
+    /**
+     * The hint rules and vendor duplicating hint rules parsed from each hint
+     * file, shared by all engines so that unchanged files are not parsed
+     * again.
+     */
+    private static final RuleFileCache<Pair<List<HintRule>, List<VendorDuplicatingHintRule>>> RULE_CACHE = new RuleFileCache<>();
     /**
      * The array of hint rules.
      */
@@ -248,32 +259,46 @@ public class HintAnalyzer extends AbstractAnalyzer {
      * @throws HintParseException thrown if the XML cannot be parsed.
      */
     private void loadHintRules() throws HintParseException {
-        List<HintRule> localHints;
-        List<VendorDuplicatingHintRule> localVendorHints;
+        final List<HintRule> localHints = new ArrayList<>();
+        final List<VendorDuplicatingHintRule> localVendorHints = new ArrayList<>();
         final HintParser parser = new HintParser();
         File file = null;
-        try {
-            parser.parseHints(FileUtils.getResourceAsStream(HINT_RULE_FILE_NAME));
-        } catch (SAXException ex) {
+        final String location = "classpath:" + HINT_RULE_FILE_NAME;
+        try (InputStream in = FileUtils.getResourceAsStream(HINT_RULE_FILE_NAME)) {
+            final byte[] content = IOUtils.toByteArray(in);
+            final String checksum = RuleFileCache.getChecksum(content);
+            Pair<List<HintRule>, List<VendorDuplicatingHintRule>> base = RULE_CACHE.get(location, checksum);
+            if (base == null) {
+                parser.parseHints(new ByteArrayInputStream(content));
+                base = getParsedRules(parser);
+                RULE_CACHE.put(location, checksum, null, base);
+            }
+            localHints.addAll(base.getLeft());
+            localVendorHints.addAll(base.getRight());
+        } catch (SAXException | IOException ex) {
             throw new HintParseException("Error parsing hinits: " + ex.getMessage(), ex);
         }
-        localHints = parser.getHintRules();
-        localVendorHints = parser.getVendorDuplicatingHintRules();
 
         final String filePath = getSettings().getString(Settings.KEYS.HINTS_FILE);
         if (filePath != null) {
             boolean deleteTempFile = false;
             try {
                 final Pattern uriRx = Pattern.compile("^(https?|file)\\:.*", Pattern.CASE_INSENSITIVE);
+                String etag = null;
+                Pair<List<HintRule>, List<VendorDuplicatingHintRule>> cached = null;
                 if (uriRx.matcher(filePath).matches()) {
-                    deleteTempFile = true;
-                    file = getSettings().getTempFile("hint", "xml");
                     final URL url = new URL(filePath);
-                    final Downloader downloader = new Downloader(getSettings());
-                    try {
-                        downloader.fetchFile(url, file, false);
-                    } catch (DownloadFailedException ex) {
-                        downloader.fetchFile(url, file, true);
+                    etag = RuleFileCache.getETag(url, getSettings());
+                    cached = RULE_CACHE.getByETag(filePath, etag);
+                    if (cached == null) {
+                        deleteTempFile = true;
+                        file = getSettings().getTempFile("hint", "xml");
+                        final Downloader downloader = new Downloader(getSettings());
+                        try {
+                            downloader.fetchFile(url, file, false);
+                        } catch (DownloadFailedException ex) {
+                            downloader.fetchFile(url, file, true);
+                        }
                     }
                 } else {
                     file = new File(filePath);
@@ -292,21 +317,26 @@ public class HintAnalyzer extends AbstractAnalyzer {
                     }
                 }
 
-                if (file != null) {
-                    try {
-                        parser.parseHints(file);
-                        if (parser.getHintRules() != null && !parser.getHintRules().isEmpty()) {
-                            localHints.addAll(parser.getHintRules());
-                        }
-                        if (parser.getVendorDuplicatingHintRules() != null && !parser.getVendorDuplicatingHintRules().isEmpty()) {
-                            localVendorHints.addAll(parser.getVendorDuplicatingHintRules());
+                if (cached != null) {
+                    localHints.addAll(cached.getLeft());
+                    localVendorHints.addAll(cached.getRight());
+                } else if (file != null) {
+                    final String checksum = file.isFile() ? RuleFileCache.getChecksum(file) : null;
+                    Pair<List<HintRule>, List<VendorDuplicatingHintRule>> parsed = RULE_CACHE.get(filePath, checksum);
+                    if (parsed == null) {
+                        try {
+                            parser.parseHints(file);
+                            parsed = getParsedRules(parser);
+                        } catch (HintParseException ex) {
+                            LOGGER.warn("Unable to parse hint rule xml file '{}'", file.getPath());
+                            LOGGER.warn(ex.getMessage());
+                            LOGGER.debug("", ex);
+                            throw ex;
                         }
-                    } catch (HintParseException ex) {
-                        LOGGER.warn("Unable to parse hint rule xml file '{}'", file.getPath());
-                        LOGGER.warn(ex.getMessage());
-                        LOGGER.debug("", ex);
-                        throw ex;
                     }
+                    RULE_CACHE.put(filePath, checksum, etag, parsed);
+                    localHints.addAll(parsed.getLeft());
+                    localVendorHints.addAll(parsed.getRight());
                 }
             } catch (DownloadFailedException ex) {
                 throw new HintParseException("Unable to fetch the configured hint file", ex);
@@ -325,4 +355,23 @@ public class HintAnalyzer extends AbstractAnalyzer {
         LOGGER.debug("{} hint rules were loaded.", hints.length);
         LOGGER.debug("{} duplicating hint rules were loaded.", vendorHints.length);
     }
+
+    /**
+     * Returns the rules of the last file parsed by the hint parser as
+     * unmodifiable lists that can be shared through the rule cache.
+     *
+     * @param parser the hint parser
+     * @return the hint rules and the vendor duplicating hint rules
+     */
+    private static Pair<List<HintRule>, List<VendorDuplicatingHintRule>> getParsedRules(HintParser parser) {
+        final List<HintRule> hintRules = new ArrayList<>();
+        if (parser.getHintRules() != null) {
+            hintRules.addAll(parser.getHintRules());
+        }
+        final List<VendorDuplicatingHintRule> vendorDuplicatingHintRules = new ArrayList<>();
+        if (parser.getVendorDuplicatingHintRules() != null) {
+            vendorDuplicatingHintRules.addAll(parser.getVendorDuplicatingHintRules());
+        }
+        return new Pair<>(Collections.unmodifiableList(hintRules), Collections.unmodifiableList(vendorDuplicatingHintRules));
+    }
 }
@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -652,7 +653,10 @@ public class JarAnalyzer extends AbstractFileTypeAnalyzer {
         final Map<String, Integer> productIdentifiers = new HashMap<>();
         analyzeFullyQualifiedClassNames(classNames, vendorIdentifiers, productIdentifiers);
 
-        final int classCount = classNames.size();
+        int classCount = 0;
+        for (ClassNameInformation entry : classNames) {
+            classCount += entry.getCount();
+        }
 
         for (Map.Entry<String, Integer> entry : vendorIdentifiers.entrySet()) {
             final float ratio = entry.getValue() / (float) classCount;
@@ -1000,29 +1004,74 @@ public class JarAnalyzer extends AbstractFileTypeAnalyzer {
     /**
      * Cycles through an enumeration of JarEntries, contained within the
      * dependency, and returns a list of the class names. This does not include
-     * core Java package names (i.e. java.* or javax.*).
+     * core Java package names (i.e. java.* or javax.*). Classes that share the
+     * same package structure are collected into a single entry whose count is
+     * the number of classes it represents.
      *
      * @param dependency the dependency being analyzed
      * @return an list of fully qualified class names
      */
     private List<ClassNameInformation> collectClassNames(Dependency dependency) {
-        final List<ClassNameInformation> classNames = new ArrayList<>();
+        final Map<String, ClassNameInformation> classNames = new LinkedHashMap<>();
         try (JarFile jar = new JarFile(dependency.getActualFilePath())) {
             final Enumeration<JarEntry> entries = jar.entries();
             while (entries.hasMoreElements()) {
-                final JarEntry entry = entries.nextElement();
-                final String name = entry.getName().toLowerCase();
+                final String name = entries.nextElement().getName();
                 //no longer stripping "|com\\.sun" - there are some com.sun jar files with CVEs.
-                if (name.endsWith(".class") && !name.matches("^javax?\\..*$")) {
-                    final ClassNameInformation className = new ClassNameInformation(name.substring(0, name.length() - 6));
-                    classNames.add(className);
+                if (name.regionMatches(true, name.length() - 6, ".class", 0, 6)
+                        && !name.regionMatches(true, 0, "java.", 0, 5)
+                        && !name.regionMatches(true, 0, "javax.", 0, 6)) {
+                    final String key = getPackageStructureKey(name, name.length() - 6);
+                    final ClassNameInformation className = classNames.get(key);
+                    if (className == null) {
+                        classNames.put(key, new ClassNameInformation(key.toLowerCase()));
+                    } else {
+                        className.incrementCount();
+                    }
                 }
             }
         } catch (IOException ex) {
             LOGGER.warn("Unable to open jar file '{}'.", dependency.getFileName());
             LOGGER.debug("", ex);
         }
-        return classNames;
+        return new ArrayList<>(classNames.values());
+    }
+
+    /**
+     * Returns the leading part of the class name that determines its package
+     * structure (see {@link ClassNameInformation}); i.e. the class name up to
+     * and including the fourth level of the package structure, or the fifth if
+     * the first level is "com" or "org". Empty levels are ignored, consistent
+     * with how the package structure is split.
+     *
+     * @param name the entry name of the class
+     * @param length the length of the class name within the entry name
+     * @return the leading part of the class name
+     */
+    static String getPackageStructureKey(String name, int length) {
+        int levels = 0;
+        int maxLevels = 0;
+        int levelStart = -1;
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) == '/') {
+                if (levelStart >= 0) {
+                    levels += 1;
+                    if (levels == 1) {
+                        final boolean comOrOrg = i - levelStart == 3
+                                && (name.regionMatches(true, levelStart, "com", 0, 3)
+                                || name.regionMatches(true, levelStart, "org", 0, 3));
+                        maxLevels = comOrOrg ? 5 : 4;
+                    }
+                    if (levels == maxLevels) {
+                        return name.substring(0, i);
+                    }
+                    levelStart = -1;
+                }
+            } else if (levelStart < 0) {
+                levelStart = i;
+            }
+        }
+        return name.substring(0, length);
     }
 
     /**
@@ -1041,37 +1090,40 @@ public class JarAnalyzer extends AbstractFileTypeAnalyzer {
             Map<String, Integer> vendor, Map<String, Integer> product) {
         for (ClassNameInformation entry : classNames) {
             final List<String> list = entry.getPackageStructure();
-            addEntry(vendor, list.get(0));
+            final int count = entry.getCount();
+            addEntry(vendor, list.get(0), count);
 
             if (list.size() == 2) {
-                addEntry(product, list.get(1));
+                addEntry(product, list.get(1), count);
             } else if (list.size() == 3) {
-                addEntry(vendor, list.get(1));
-                addEntry(product, list.get(1));
-                addEntry(product, list.get(2));
+                addEntry(vendor, list.get(1), count);
+                addEntry(product, list.get(1), count);
+                addEntry(product, list.get(2), count);
             } else if (list.size() >= 4) {
-                addEntry(vendor, list.get(1));
-                addEntry(vendor, list.get(2));
-                addEntry(product, list.get(1));
-                addEntry(product, list.get(2));
-                addEntry(product, list.get(3));
+                addEntry(vendor, list.get(1), count);
+                addEntry(vendor, list.get(2), count);
+                addEntry(product, list.get(1), count);
+                addEntry(product, list.get(2), count);
+                addEntry(product, list.get(3), count);
             }
         }
     }
 
     /**
      * Adds an entry to the specified collection and sets the Integer (e.g. the
-     * count) to 1. If the entry already exists in the collection then the
-     * Integer is incremented by 1.
+     * count) to the given count. If the entry already exists in the collection
+     * then the Integer is incremented by the count.
      *
      * @param collection a collection of strings and their occurrence count
      * @param key the key to add to the collection
+     * @param count the number of occurrences to add
      */
-    private void addEntry(Map<String, Integer> collection, String key) {
-        if (collection.containsKey(key)) {
-            collection.put(key, collection.get(key) + 1);
+    private void addEntry(Map<String, Integer> collection, String key, int count) {
+        final Integer current = collection.get(key);
+        if (current != null) {
+            collection.put(key, current + count);
         } else {
-            collection.put(key, 1);
+            collection.put(key, count);
         }
     }
 
@@ -1173,6 +1225,11 @@ public class JarAnalyzer extends AbstractFileTypeAnalyzer {
          * leading "org" or "com".
          */
         private final ArrayList<String> packageStructure = new ArrayList<>();
+        /**
+         * The number of classes, sharing the same package structure, that
+         * this object represents.
+         */
+        private int count = 1;
 
         /**
          * <p>
@@ -1241,6 +1298,22 @@ public class JarAnalyzer extends AbstractFileTypeAnalyzer {
         public ArrayList<String> getPackageStructure() {
             return packageStructure;
         }
+
+        /**
+         * Get the number of classes this object represents.
+         *
+         * @return the number of classes
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Increments the number of classes this object represents.
+         */
+        void incrementCount() {
+            count += 1;
+        }
     }
 
     /**
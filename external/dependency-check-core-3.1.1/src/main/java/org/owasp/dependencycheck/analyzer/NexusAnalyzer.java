@@ -21,6 +21,7 @@ import org.apache.commons.io.FileUtils;
 import org.owasp.dependencycheck.Engine;
 import org.owasp.dependencycheck.analyzer.exception.AnalysisException;
 import org.owasp.dependencycheck.data.nexus.MavenArtifact;
+import org.owasp.dependencycheck.data.nexus.MavenArtifactCache;
 import org.owasp.dependencycheck.data.nexus.NexusSearch;
 import org.owasp.dependencycheck.dependency.Confidence;
 import org.owasp.dependencycheck.dependency.Dependency;
@@ -35,6 +36,8 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collections;
+import java.util.List;
 import javax.annotation.concurrent.ThreadSafe;
 import org.owasp.dependencycheck.dependency.EvidenceType;
 import org.owasp.dependencycheck.exception.InitializationException;
@@ -94,6 +97,11 @@ public class NexusAnalyzer extends AbstractFileTypeAnalyzer {
      * The Nexus Search to be set up for this analyzer.
      */
     private NexusSearch searcher;
+    /**
+     * The persistent cache of the artifacts found by SHA1; <code>null</code>
+     * if the cache is disabled.
+     */
+    private MavenArtifactCache cache;
 
     /**
      * Field indicating if the analyzer is enabled.
@@ -167,6 +175,7 @@ public class NexusAnalyzer extends AbstractFileTypeAnalyzer {
                     setEnabled(false);
                     throw new InitializationException("There was an issue getting Nexus status. Disabling analyzer.");
                 }
+                cache = MavenArtifactCache.open(getSettings(), getSettings().getString(Settings.KEYS.ANALYZER_NEXUS_URL));
             } catch (MalformedURLException mue) {
                 setEnabled(false);
                 throw new InitializationException("Malformed URL to Nexus", mue);
@@ -233,7 +242,7 @@ public class NexusAnalyzer extends AbstractFileTypeAnalyzer {
             return;
         }
         try {
-            final MavenArtifact ma = searcher.searchSha1(dependency.getSha1sum());
+            final MavenArtifact ma = searchSha1(dependency.getSha1sum());
             dependency.addAsEvidence("nexus", ma, Confidence.HIGH);
             boolean pomAnalyzed = false;
             LOGGER.debug("POM URL {}", ma.getPomUrl());
@@ -243,7 +252,10 @@ public class NexusAnalyzer extends AbstractFileTypeAnalyzer {
                     break;
                 }
             }
-            if (!pomAnalyzed && ma.getPomUrl() != null) {
+            final File cachedPom = cache == null || pomAnalyzed ? null : cache.getPom(ma.getPomUrl());
+            if (cachedPom != null) {
+                PomUtils.analyzePOM(dependency, cachedPom);
+            } else if (!pomAnalyzed && ma.getPomUrl() != null) {
                 File pomFile = null;
                 try {
                     final File baseDir = getSettings().getTempDirectory();
@@ -256,6 +268,9 @@ public class NexusAnalyzer extends AbstractFileTypeAnalyzer {
                     LOGGER.debug("Downloading {}", ma.getPomUrl());
                     final Downloader downloader = new Downloader(getSettings());
                     downloader.fetchFile(new URL(ma.getPomUrl()), pomFile);
+                    if (cache != null) {
+                        cache.putPom(ma.getPomUrl(), pomFile);
+                    }
                     PomUtils.analyzePOM(dependency, pomFile);
                 } catch (DownloadFailedException ex) {
                     LOGGER.warn("Unable to download pom.xml for {} from Nexus repository; "
@@ -280,6 +295,39 @@ public class NexusAnalyzer extends AbstractFileTypeAnalyzer {
         }
     }
 
+    /**
+     * Searches the Nexus repository for the artifact with the given SHA1,
+     * using the Maven artifact cache when it is enabled.
+     *
+     * @param sha1 the SHA1 of the artifact
+     * @return the artifact found
+     * @throws FileNotFoundException if the specified artifact is not found
+     * @throws IOException if it's unable to connect to the repository
+     */
+    private MavenArtifact searchSha1(String sha1) throws IOException {
+        if (cache != null) {
+            final List<MavenArtifact> cached = cache.get(sha1);
+            if (cached != null) {
+                if (cached.isEmpty()) {
+                    throw new FileNotFoundException("Artifact not found in Nexus (cached)");
+                }
+                return cached.get(0);
+            }
+        }
+        try {
+            final MavenArtifact ma = searcher.searchSha1(sha1);
+            if (cache != null && ma != null) {
+                cache.put(sha1, Collections.singletonList(ma));
+            }
+            return ma;
+        } catch (FileNotFoundException ex) {
+            if (cache != null) {
+                cache.put(sha1, Collections.<MavenArtifact>emptyList());
+            }
+            throw ex;
+        }
+    }
+
     /**
      * Determine if a proxy should be used for the Nexus Analyzer.
      *
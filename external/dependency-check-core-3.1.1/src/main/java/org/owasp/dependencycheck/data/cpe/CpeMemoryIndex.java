@@ -17,9 +17,16 @@
  */
 package org.owasp.dependencycheck.data.cpe;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.concurrent.ThreadSafe;
@@ -39,11 +46,16 @@ import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.store.RAMDirectory;
 import org.owasp.dependencycheck.data.lucene.SearchFieldAnalyzer;
 import org.owasp.dependencycheck.data.nvdcve.CveDB;
 import org.owasp.dependencycheck.data.nvdcve.DatabaseException;
+import org.owasp.dependencycheck.data.nvdcve.DatabaseProperties;
+import org.owasp.dependencycheck.utils.InvalidSettingException;
 import org.owasp.dependencycheck.utils.Pair;
+import org.owasp.dependencycheck.utils.Settings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,6 +63,14 @@ import org.slf4j.LoggerFactory;
  * <p>
  * An in memory Lucene index that contains the vendor/product combinations from
  * the CPE (application) identifiers within the NVD CVE data.</p>
+ * <p>
+ * When {@link #PERSISTENT_INDEX} is enabled the index is instead stored in a
+ * memory mapped directory next to the database and is only rebuilt when the
+ * database properties (i.e. the NVD update timestamps) change.</p>
+ * <p>
+ * Opening and closing the index is synchronized; searching is not. The Lucene
+ * IndexSearcher is thread-safe and each thread uses its own QueryParser so
+ * that parallel analyzers do not serialize on the index.</p>
  *
  * This is the last remaining singleton in dependency-check-core; The use of
  * this singleton - while it may not technically be thread-safe (one database
@@ -72,25 +92,54 @@ public final class CpeMemoryIndex implements AutoCloseable {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(CpeMemoryIndex.class);
     /**
-     * The in memory Lucene index.
+     * The settings key used to enable the persistent, memory mapped, CPE
+     * index.
+     */
+    public static final String PERSISTENT_INDEX = "cpe.index.persistent";
+    /**
+     * The settings key for the directory in which the persistent CPE index is
+     * stored; defaults to the data directory.
+     */
+    public static final String INDEX_DIRECTORY = "cpe.index.directory";
+    /**
+     * The name of the directory containing the persistent CPE index.
+     */
+    private static final String INDEX_NAME = "cpe.index";
+    /**
+     * The name of the file containing the database properties the persistent
+     * CPE index was built from.
+     */
+    private static final String STAMP_NAME = "cpe.index.properties";
+    /**
+     * The key within the stamp file holding the format of the index; must be
+     * incremented if the contents of the index change.
+     */
+    private static final String STAMP_FORMAT_KEY = "cpe.index.format";
+    /**
+     * The current format of the index.
      */
-    private RAMDirectory index;
+    private static final String STAMP_FORMAT = "1";
+    /**
+     * The Lucene index; either in memory or memory mapped.
+     */
+    private Directory index;
     /**
      * The Lucene IndexReader.
      */
-    private IndexReader indexReader;
+    private volatile IndexReader indexReader;
     /**
      * The Lucene IndexSearcher.
      */
-    private IndexSearcher indexSearcher;
+    private volatile IndexSearcher indexSearcher;
     /**
      * The Lucene Analyzer used for Searching.
      */
-    private Analyzer searchingAnalyzer;
+    private volatile Analyzer searchingAnalyzer;
     /**
-     * The Lucene QueryParser used for Searching.
+     * The Lucene QueryParser used for Searching by each thread; a QueryParser
+     * is not thread-safe.
      */
-    private QueryParser queryParser;
+    private final ThreadLocal<QueryParser> queryParsers = new ThreadLocal<>();
     /**
      * Track the number of current users of the Lucene index; used to track it
      * it is okay to actually close the index.
@@ -119,17 +168,33 @@ public final class CpeMemoryIndex implements AutoCloseable {
      * @throws IndexException thrown if there is an error creating the index
      */
     public synchronized void open(CveDB cve) throws IndexException {
+        open(cve, null);
+    }
+
+    /**
+     * Opens the index. If the persistent index has been enabled it is opened
+     * from disk, and only rebuilt if the database has changed since it was
+     * built; otherwise the data is loaded into an in memory index.
+     *
+     * @param cve the data source to retrieve the cpe data
+     * @param settings the configured settings; may be <code>null</code> in
+     * which case an in memory index is used
+     * @throws IndexException thrown if there is an error creating the index
+     */
+    public synchronized void open(CveDB cve, Settings settings) throws IndexException {
         if (INSTANCE.usageCount.addAndGet(1) == 1) {
-            index = new RAMDirectory();
-            buildIndex(cve);
-            try {
-                indexReader = DirectoryReader.open(index);
-            } catch (IOException ex) {
-                throw new IndexException(ex);
+            final File directory = getPersistentIndexDirectory(settings);
+            if (directory == null || !openPersistentIndex(cve, directory)) {
+                index = new RAMDirectory();
+                buildIndex(cve, index);
+                try {
+                    indexReader = DirectoryReader.open(index);
+                } catch (IOException ex) {
+                    throw new IndexException(ex);
+                }
             }
-            indexSearcher = new IndexSearcher(indexReader);
             searchingAnalyzer = createSearchingAnalyzer();
-            queryParser = new QueryParser(Fields.DOCUMENT_KEY, searchingAnalyzer);
+            indexSearcher = new IndexSearcher(indexReader);
         }
     }
 
@@ -166,6 +231,7 @@ public final class CpeMemoryIndex implements AutoCloseable {
         final int count = INSTANCE.usageCount.get() - 1;
         if (count <= 0) {
             INSTANCE.usageCount.set(0);
+            indexSearcher = null;
             if (searchingAnalyzer != null) {
                 searchingAnalyzer.close();
                 searchingAnalyzer = null;
@@ -178,24 +244,150 @@ public final class CpeMemoryIndex implements AutoCloseable {
                 }
                 indexReader = null;
             }
-            queryParser = null;
-            indexSearcher = null;
             if (index != null) {
-                index.close();
+                try {
+                    index.close();
+                } catch (IOException ex) {
+                    LOGGER.trace("", ex);
+                }
                 index = null;
             }
         }
     }
 
+    /**
+     * Returns the directory of the persistent index if it has been enabled.
+     *
+     * @param settings the configured settings
+     * @return the directory of the persistent index; or <code>null</code> if
+     * the persistent index is not enabled
+     */
+    private File getPersistentIndexDirectory(Settings settings) {
+        if (settings == null) {
+            return null;
+        }
+        try {
+            if (!settings.getBoolean(PERSISTENT_INDEX, false)) {
+                return null;
+            }
+            final String path = settings.getString(INDEX_DIRECTORY);
+            final File parent = path == null || path.isEmpty() ? settings.getDataDirectory() : new File(path);
+            return new File(parent, INDEX_NAME);
+        } catch (InvalidSettingException ex) {
+            LOGGER.warn("Invalid setting for {}; using an in memory CPE index", PERSISTENT_INDEX);
+            LOGGER.debug("", ex);
+        } catch (IOException ex) {
+            LOGGER.warn("Unable to determine the data directory; using an in memory CPE index");
+            LOGGER.debug("", ex);
+        }
+        return null;
+    }
+
+    /**
+     * Opens the persistent index, rebuilding it first if the stamp written
+     * when the index was built does not match the current database.
+     *
+     * @param cve the data base containing the CPE data
+     * @param directory the directory of the persistent index
+     * @return <code>true</code> if the persistent index was opened; otherwise
+     * <code>false</code>
+     */
+    private boolean openPersistentIndex(CveDB cve, File directory) {
+        final File stampFile = new File(directory.getParentFile(), STAMP_NAME);
+        final Properties stamp = createStamp(cve);
+        Directory mapped = null;
+        try {
+            Files.createDirectories(directory.toPath());
+            mapped = new MMapDirectory(directory.toPath());
+            if (!stamp.equals(readStamp(stampFile)) || !DirectoryReader.indexExists(mapped)) {
+                LOGGER.info("Building the persistent CPE index in '{}'", directory);
+                if (stampFile.isFile() && !stampFile.delete()) {
+                    throw new IOException("Unable to delete " + stampFile);
+                }
+                buildIndex(cve, mapped);
+                writeStamp(stampFile, stamp);
+            } else {
+                LOGGER.debug("Using the persistent CPE index in '{}'", directory);
+            }
+            indexReader = DirectoryReader.open(mapped);
+            index = mapped;
+            return true;
+        } catch (IOException | IndexException ex) {
+            LOGGER.warn("Unable to use the persistent CPE index in '{}'; using an in memory CPE index", directory);
+            LOGGER.debug("", ex);
+            if (mapped != null) {
+                try {
+                    mapped.close();
+                } catch (IOException ignore) {
+                    LOGGER.trace("", ignore);
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Creates the stamp identifying the data the index is built from; the
+     * database properties, excluding the last checked timestamp, along with
+     * the index format.
+     *
+     * @param cve the data base containing the CPE data
+     * @return the stamp
+     */
+    private Properties createStamp(CveDB cve) {
+        final Properties stamp = new Properties();
+        stamp.putAll(cve.getDatabaseProperties().getProperties());
+        stamp.remove(DatabaseProperties.LAST_CHECKED);
+        stamp.setProperty(STAMP_FORMAT_KEY, STAMP_FORMAT);
+        return stamp;
+    }
+
+    /**
+     * Reads the stamp of the persistent index.
+     *
+     * @param stampFile the stamp file
+     * @return the stamp; or <code>null</code> if it does not exist or could
+     * not be read
+     */
+    private Properties readStamp(File stampFile) {
+        if (!stampFile.isFile()) {
+            return null;
+        }
+        try (InputStream in = new FileInputStream(stampFile)) {
+            final Properties stamp = new Properties();
+            stamp.load(in);
+            return stamp;
+        } catch (IOException ex) {
+            LOGGER.debug("Unable to read the CPE index stamp", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the stamp of the persistent index.
+     *
+     * @param stampFile the stamp file
+     * @param stamp the stamp
+     * @throws IOException thrown if the stamp could not be written
+     */
+    private void writeStamp(File stampFile, Properties stamp) throws IOException {
+        try (OutputStream out = new FileOutputStream(stampFile)) {
+            stamp.store(out, "Database properties the CPE index was built from");
+        }
+    }
+
     /**
      * Builds the CPE Lucene Index based off of the data within the CveDB.
      *
      * @param cve the data base containing the CPE data
+     * @param directory the directory to write the index to; any existing index
+     * is replaced
      * @throws IndexException thrown if there is an issue creating the index
      */
-    private void buildIndex(CveDB cve) throws IndexException {
+    private void buildIndex(CveDB cve, Directory directory) throws IndexException {
         try (Analyzer analyzer = createSearchingAnalyzer();
-                IndexWriter indexWriter = new IndexWriter(index, new IndexWriterConfig(analyzer))) {
+                IndexWriter indexWriter = new IndexWriter(directory,
+                        new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE))) {
             // Tip: reuse the Document and Fields for performance...
             // See "Re-use Document and Field instances" from
             // http://wiki.apache.org/lucene-java/ImproveIndexingSpeed
@@ -219,7 +411,7 @@ public final class CpeMemoryIndex implements AutoCloseable {
             LOGGER.debug("", ex);
             throw new IndexException("Error reading CPE data", ex);
         } catch (IOException ex) {
-            throw new IndexException("Unable to close an in-memory index", ex);
+            throw new IndexException("Unable to write the CPE index", ex);
         }
     }
 
@@ -233,15 +425,49 @@ public final class CpeMemoryIndex implements AutoCloseable {
      * @throws IOException is thrown if there is an issue with the underlying
      * Index
      */
-    public synchronized TopDocs search(String searchString, int maxQueryResults) throws ParseException, IOException {
+    public TopDocs search(String searchString, int maxQueryResults) throws ParseException, IOException {
         if (searchString == null || searchString.trim().isEmpty()) {
             throw new ParseException("Query is null or empty");
         }
         LOGGER.debug(searchString);
-        final Query query = queryParser.parse(searchString);
+        final Query query = getQueryParser().parse(searchString);
         return search(query, maxQueryResults);
     }
 
+    /**
+     * Returns the QueryParser for the calling thread; a new parser is created
+     * if the thread does not have one or if the index has been re-opened.
+     *
+     * @return the QueryParser
+     * @throws IOException thrown if the index is not open
+     */
+    private QueryParser getQueryParser() throws IOException {
+        final Analyzer analyzer = searchingAnalyzer;
+        if (analyzer == null) {
+            throw new IOException("The CPE index is not open");
+        }
+        QueryParser parser = queryParsers.get();
+        if (parser == null || parser.getAnalyzer() != analyzer) {
+            parser = new QueryParser(Fields.DOCUMENT_KEY, analyzer);
+            queryParsers.set(parser);
+        }
+        return parser;
+    }
+
+    /**
+     * Returns the IndexSearcher.
+     *
+     * @return the IndexSearcher
+     * @throws IOException thrown if the index is not open
+     */
+    private IndexSearcher getIndexSearcher() throws IOException {
+        final IndexSearcher searcher = indexSearcher;
+        if (searcher == null) {
+            throw new IOException("The CPE index is not open");
+        }
+        return searcher;
+    }
+
     /**
      * Searches the index using the given query.
      *
@@ -251,8 +477,8 @@ public final class CpeMemoryIndex implements AutoCloseable {
      * @throws CorruptIndexException thrown if the Index is corrupt
      * @throws IOException thrown if there is an IOException
      */
-    public synchronized TopDocs search(Query query, int maxQueryResults) throws CorruptIndexException, IOException {
-        return indexSearcher.search(query, maxQueryResults);
+    public TopDocs search(Query query, int maxQueryResults) throws CorruptIndexException, IOException {
+        return getIndexSearcher().search(query, maxQueryResults);
     }
 
     /**
@@ -262,8 +488,8 @@ public final class CpeMemoryIndex implements AutoCloseable {
      * @return the Document
      * @throws IOException thrown if there is an IOException
      */
-    public synchronized Document getDocument(int documentId) throws IOException {
-        return indexSearcher.doc(documentId);
+    public Document getDocument(int documentId) throws IOException {
+        return getIndexSearcher().doc(documentId);
     }
 
     /**
@@ -271,10 +497,11 @@ public final class CpeMemoryIndex implements AutoCloseable {
      *
      * @return the number of CPE entries stored in the index
      */
-    public synchronized int numDocs() {
-        if (indexReader == null) {
+    public int numDocs() {
+        final IndexReader reader = indexReader;
+        if (reader == null) {
             return -1;
         }
-        return indexReader.numDocs();
+        return reader.numDocs();
     }
 }
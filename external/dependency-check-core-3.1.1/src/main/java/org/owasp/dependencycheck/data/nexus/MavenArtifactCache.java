@@ -0,0 +1,323 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.nexus;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.ThreadSafe;
+import org.owasp.dependencycheck.utils.Checksum;
+import org.owasp.dependencycheck.utils.InvalidSettingException;
+import org.owasp.dependencycheck.utils.Settings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A persistent cache of the Maven artifacts found for a SHA1 by a repository
+ * search (e.g. Maven Central or Nexus). The coordinates of a published
+ * artifact never change, so found artifacts are cached indefinitely; the fact
+ * that a SHA1 was not found is cached for a limited time as the artifact may
+ * be published later. The POM files downloaded for the found artifacts are
+ * cached indefinitely as well. Each entry is stored in its own file so that
+ * the cache can be shared by concurrent scans.
+ */
+@ThreadSafe
+public class MavenArtifactCache {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(MavenArtifactCache.class);
+    /**
+     * The settings key to enable the Maven artifact cache.
+     */
+    public static final String ENABLED = "analyzer.artifact.cache.enabled";
+    /**
+     * The settings key for the number of hours that a SHA1 which was not found
+     * is cached; a value of zero or less disables caching of such results.
+     */
+    public static final String NEGATIVE_TTL = "analyzer.artifact.cache.negative.ttl";
+    /**
+     * The settings key for the directory the Maven artifact cache is stored in;
+     * when not configured the cache is stored within the data directory.
+     */
+    public static final String DIRECTORY = "analyzer.artifact.cache.directory";
+    /**
+     * The default number of hours that a SHA1 which was not found is cached.
+     */
+    private static final int DEFAULT_NEGATIVE_TTL = 24;
+    /**
+     * The name of the cache directory.
+     */
+    private static final String CACHE_NAME = "artifact.cache";
+    /**
+     * The name of the directory containing the cached POM files.
+     */
+    private static final String POM_DIRECTORY = "pom";
+    /**
+     * The property holding the time the entry was written.
+     */
+    private static final String TIMESTAMP = "timestamp";
+    /**
+     * The property holding the number of artifacts in the entry.
+     */
+    private static final String COUNT = "count";
+    /**
+     * The directory containing the cache entries.
+     */
+    private final File directory;
+    /**
+     * The number of milliseconds that a SHA1 which was not found is cached.
+     */
+    private final long negativeTtl;
+
+    /**
+     * Constructs a new Maven artifact cache.
+     *
+     * @param directory the directory containing the cache entries
+     * @param negativeTtl the number of milliseconds that a SHA1 which was not
+     * found is cached
+     */
+    MavenArtifactCache(File directory, long negativeTtl) {
+        this.directory = directory;
+        this.negativeTtl = negativeTtl;
+    }
+
+    /**
+     * Opens the Maven artifact cache for the given repository if the cache is
+     * enabled. The entries of each repository are kept separately as
+     * repositories may not contain the same artifacts.
+     *
+     * @param settings the configured settings
+     * @param repository the URL of the repository being searched
+     * @return the Maven artifact cache; or <code>null</code> if the cache is
+     * not enabled or could not be opened
+     */
+    public static MavenArtifactCache open(Settings settings, String repository) {
+        try {
+            if (!settings.getBoolean(ENABLED, true)) {
+                return null;
+            }
+            final String path = settings.getString(DIRECTORY);
+            final File parent = path == null || path.isEmpty() ? settings.getDataDirectory() : new File(path);
+            final File directory = new File(new File(parent, CACHE_NAME), sha1(String.valueOf(repository)).substring(0, 16));
+            Files.createDirectories(directory.toPath());
+            final int hours = settings.getInt(NEGATIVE_TTL, DEFAULT_NEGATIVE_TTL);
+            return new MavenArtifactCache(directory, TimeUnit.HOURS.toMillis(hours));
+        } catch (InvalidSettingException ex) {
+            LOGGER.warn("Invalid setting for {}; the Maven artifact cache is disabled", ENABLED);
+            LOGGER.debug("", ex);
+        } catch (IOException ex) {
+            LOGGER.warn("Unable to open the Maven artifact cache; the Maven artifact cache is disabled");
+            LOGGER.debug("", ex);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the cached artifacts for the given SHA1.
+     *
+     * @param sha1 the SHA1 of the artifact
+     * @return the cached artifacts; an empty list if the SHA1 is cached as not
+     * found; or <code>null</code> if the SHA1 is not cached
+     */
+    public List<MavenArtifact> get(String sha1) {
+        final File file = getFile(sha1);
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        final Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+            final int count = Integer.parseInt(properties.getProperty(COUNT));
+            if (count == 0) {
+                final long timestamp = Long.parseLong(properties.getProperty(TIMESTAMP));
+                if (System.currentTimeMillis() - timestamp >= negativeTtl) {
+                    return null;
+                }
+                return Collections.emptyList();
+            }
+            final List<MavenArtifact> artifacts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final MavenArtifact ma = new MavenArtifact();
+                ma.setGroupId(properties.getProperty(i + ".groupId"));
+                ma.setArtifactId(properties.getProperty(i + ".artifactId"));
+                ma.setVersion(properties.getProperty(i + ".version"));
+                ma.setArtifactUrl(properties.getProperty(i + ".artifactUrl"));
+                ma.setPomUrl(properties.getProperty(i + ".pomUrl"));
+                artifacts.add(ma);
+            }
+            LOGGER.debug("Using the cached Maven artifacts for {}", sha1);
+            return artifacts;
+        } catch (IOException | IllegalArgumentException ex) {
+            LOGGER.debug("Unable to read the Maven artifact cache entry {}", file, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the artifacts found for the given SHA1; an empty list records
+     * that the SHA1 was not found.
+     *
+     * @param sha1 the SHA1 of the artifact
+     * @param artifacts the artifacts found
+     */
+    public void put(String sha1, List<MavenArtifact> artifacts) {
+        final File file = getFile(sha1);
+        if (file == null || (artifacts.isEmpty() && negativeTtl <= 0)) {
+            return;
+        }
+        final Properties properties = new Properties();
+        properties.setProperty(TIMESTAMP, Long.toString(System.currentTimeMillis()));
+        properties.setProperty(COUNT, Integer.toString(artifacts.size()));
+        for (int i = 0; i < artifacts.size(); i++) {
+            final MavenArtifact ma = artifacts.get(i);
+            setProperty(properties, i + ".groupId", ma.getGroupId());
+            setProperty(properties, i + ".artifactId", ma.getArtifactId());
+            setProperty(properties, i + ".version", ma.getVersion());
+            setProperty(properties, i + ".artifactUrl", ma.getArtifactUrl());
+            setProperty(properties, i + ".pomUrl", ma.getPomUrl());
+        }
+        File tmp = null;
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            tmp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+            try (OutputStream out = new FileOutputStream(tmp)) {
+                properties.store(out, null);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            LOGGER.debug("Unable to write the Maven artifact cache entry {}", file, ex);
+            if (tmp != null && tmp.exists() && !tmp.delete()) {
+                tmp.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Returns the cached POM file downloaded from the given URL.
+     *
+     * @param pomUrl the URL of the POM file
+     * @return the cached POM file; or <code>null</code> if the POM file is not
+     * cached
+     */
+    public File getPom(String pomUrl) {
+        final File file = getPomFile(pomUrl);
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        LOGGER.debug("Using the cached POM file for {}", pomUrl);
+        return file;
+    }
+
+    /**
+     * Stores a copy of the POM file downloaded from the given URL.
+     *
+     * @param pomUrl the URL of the POM file
+     * @param pom the downloaded POM file
+     */
+    public void putPom(String pomUrl, File pom) {
+        final File file = getPomFile(pomUrl);
+        if (file == null || pom == null || !pom.isFile()) {
+            return;
+        }
+        File tmp = null;
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            tmp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+            Files.copy(pom.toPath(), tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            LOGGER.debug("Unable to write the cached POM file {}", file, ex);
+            if (tmp != null && tmp.exists() && !tmp.delete()) {
+                tmp.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Sets the property if the value is not <code>null</code>.
+     *
+     * @param properties the properties
+     * @param key the key
+     * @param value the value
+     */
+    private static void setProperty(Properties properties, String key, String value) {
+        if (value != null) {
+            properties.setProperty(key, value);
+        }
+    }
+
+    /**
+     * Returns the file containing the cache entry for the given SHA1.
+     *
+     * @param sha1 the SHA1 of the artifact
+     * @return the cache entry file; or <code>null</code> if the SHA1 is not
+     * valid
+     */
+    private File getFile(String sha1) {
+        if (sha1 == null || !sha1.matches("^[0-9A-Fa-f]{40}$")) {
+            return null;
+        }
+        final String name = sha1.toLowerCase(Locale.ENGLISH);
+        return new File(new File(directory, name.substring(0, 2)), name + ".properties");
+    }
+
+    /**
+     * Returns the file containing the cached POM file for the given URL.
+     *
+     * @param pomUrl the URL of the POM file
+     * @return the cached POM file; or <code>null</code> if the URL is not set
+     */
+    private File getPomFile(String pomUrl) {
+        if (pomUrl == null || pomUrl.isEmpty()) {
+            return null;
+        }
+        final String name = sha1(pomUrl);
+        return new File(new File(new File(directory, POM_DIRECTORY), name.substring(0, 2)), name + ".xml");
+    }
+
+    /**
+     * Computes the hex encoded SHA1 of the given text.
+     *
+     * @param text the text
+     * @return the hex encoded SHA1
+     */
+    private static String sha1(String text) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return Checksum.getHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Unable to compute the SHA-1 hash", ex);
+        }
+    }
+}
@@ -29,6 +29,9 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -44,8 +47,10 @@ import static org.owasp.dependencycheck.data.nvdcve.CveDB.PreparedStatementCveDb
 //CSON: AvoidStarImport
 /**
  * The database holding information about the NVD CVE data. This class is safe
- * to be accessed from multiple threads in parallel, however internally only one
- * connection will be used.
+ * to be accessed from multiple threads in parallel. Internally only one
+ * connection will be used unless the database has been opened read-only, in
+ * which case lookups are executed against a small pool of connections so that
+ * parallel analyzers do not serialize on the database.
  *
  * @author Jeremy Long
  */
@@ -56,6 +61,33 @@ public final class CveDB implements AutoCloseable {
      * The logger.
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(CveDB.class);
+    /**
+     * The settings key for the maximum number of connections used to service
+     * lookups when the database is opened read-only. When not configured the
+     * number of available processors is used.
+     */
+    public static final String READ_POOL_SIZE = "database.readonly.poolsize";
+    /**
+     * The number of parameters bound to each of the set based statements used
+     * to load vulnerabilities, references, and vulnerable software in bulk.
+     */
+    static final int BULK_QUERY_SIZE = 100;
+    /**
+     * The settings key for the maximum weight of the cache of vulnerabilities
+     * keyed by CVE entry; the weight of a vulnerability is one plus its number
+     * of references and vulnerable software entries. A value of zero disables
+     * the cache.
+     */
+    public static final String VULNERABILITY_CACHE_MAX_WEIGHT = "database.vulnerabilitycache.maxweight";
+    /**
+     * The default maximum weight of the vulnerability cache.
+     */
+    private static final int DEFAULT_VULNERABILITY_CACHE_MAX_WEIGHT = 250000;
+    /**
+     * The settings key for whether or not vulnerabilities whose content hash
+     * matches the stored content hash are skipped during an update.
+     */
+    public static final String DELTA_UPDATE = "database.deltaupdate.enabled";
 
     /**
      * The database connection factory.
@@ -84,10 +116,32 @@ public final class CveDB implements AutoCloseable {
      */
     @SuppressWarnings("unchecked")
     private final Map<String, List<Vulnerability>> vulnerabilitiesForCpeCache = Collections.synchronizedMap(new ReferenceMap(HARD, SOFT));
+    /**
+     * Cache of the precompiled version range indexes keyed by vendor and
+     * product; used so that the vulnerable software of a product is only
+     * loaded and parsed once regardless of how many versions are analyzed.
+     */
+    @SuppressWarnings("unchecked")
+    private final Map<String, VersionRangeIndex> versionRangeIndexCache = Collections.synchronizedMap(new ReferenceMap(HARD, SOFT));
+    /**
+     * Cache of hydrated vulnerabilities keyed by CVE entry; shared across all
+     * of the CPE lookups so that a vulnerability matched by many CPE strings is
+     * only loaded from the database once.
+     */
+    private final VulnerabilityCache vulnerabilityCache;
     /**
      * The configured settings
      */
     private final Settings settings;
+    /**
+     * Whether or not the database was opened read-only.
+     */
+    private final boolean readOnly;
+    /**
+     * The pool of connections used to service lookups when the database is
+     * read-only; <code>null</code> otherwise.
+     */
+    private ReadConnectionPool readPool;
 
     /**
      * The enum value names must match the keys of the statements in the
@@ -158,14 +212,26 @@ public final class CveDB implements AutoCloseable {
          * Key for SQL Statement.
          */
         SELECT_REFERENCES,
+        /**
+         * Key for set based SQL Statement.
+         */
+        SELECT_REFERENCES_FOR_VULNERABILITIES,
         /**
          * Key for SQL Statement.
          */
         SELECT_SOFTWARE,
+        /**
+         * Key for set based SQL Statement.
+         */
+        SELECT_SOFTWARE_FOR_VULNERABILITIES,
         /**
          * Key for SQL Statement.
          */
         SELECT_VENDOR_PRODUCT_LIST,
+        /**
+         * Key for set based SQL Statement.
+         */
+        SELECT_VULNERABILITIES,
         /**
          * Key for SQL Statement.
          */
@@ -184,6 +250,13 @@ public final class CveDB implements AutoCloseable {
         UPDATE_VULNERABILITY
     }
 
+    /**
+     * The set based statements; these contain a single <code>%s</code> that is
+     * replaced with {@link #BULK_QUERY_SIZE} parameter markers.
+     */
+    private static final EnumSet<PreparedStatementCveDb> BULK_STATEMENTS = EnumSet.of(SELECT_VULNERABILITIES,
+            SELECT_REFERENCES_FOR_VULNERABILITIES, SELECT_SOFTWARE_FOR_VULNERABILITIES);
+
     /**
      * Creates a new CveDB object and opens the database connection. Note, the
      * connection must be closed by the caller by calling the close method.
@@ -193,7 +266,26 @@ public final class CveDB implements AutoCloseable {
      * database.
      */
     public CveDB(Settings settings) throws DatabaseException {
+        this(settings, false);
+    }
+
+    /**
+     * Creates a new CveDB object and opens the database connection. Note, the
+     * connection must be closed by the caller by calling the close method.
+     * When <code>readOnly</code> is true the caller promises that no updates
+     * will be made through this object; this allows vulnerability and CPE
+     * lookups to be executed concurrently on pooled connections.
+     *
+     * @param settings the configured settings
+     * @param readOnly whether or not the database will only be read from
+     * @throws DatabaseException thrown if there is an exception opening the
+     * database.
+     */
+    public CveDB(Settings settings, boolean readOnly) throws DatabaseException {
         this.settings = settings;
+        this.readOnly = readOnly;
+        this.vulnerabilityCache = new VulnerabilityCache(settings.getInt(VULNERABILITY_CACHE_MAX_WEIGHT,
+                DEFAULT_VULNERABILITY_CACHE_MAX_WEIGHT));
         connectionFactory = new ConnectionFactory(settings);
         open();
     }
@@ -232,6 +324,11 @@ public final class CveDB implements AutoCloseable {
                         : ResourceBundle.getBundle("data/dbStatements");
                 prepareStatements();
                 databaseProperties = new DatabaseProperties(this);
+                if (readOnly) {
+                    final int poolSize = settings.getInt(READ_POOL_SIZE, Runtime.getRuntime().availableProcessors());
+                    readPool = new ReadConnectionPool(connectionFactory, statementBundle, poolSize);
+                    LOGGER.debug("Database opened read-only with up to {} pooled connections", readPool.getMaxSize());
+                }
             }
         } catch (DatabaseException e) {
             releaseResources();
@@ -246,7 +343,12 @@ public final class CveDB implements AutoCloseable {
     @Override
     public synchronized void close() {
         if (isOpen()) {
+            LOGGER.debug("{}", vulnerabilityCache);
             clearCache();
+            vulnerabilityCache.invalidateAll();
+            if (readPool != null) {
+                readPool.close();
+            }
             closeStatements();
             try {
                 connection.close();
@@ -266,6 +368,7 @@ public final class CveDB implements AutoCloseable {
      * Releases the resources used by CveDB.
      */
     private synchronized void releaseResources() {
+        readPool = null;
         statementBundle = null;
         preparedStatements.clear();
         databaseProperties = null;
@@ -291,7 +394,7 @@ public final class CveDB implements AutoCloseable {
         for (PreparedStatementCveDb key : values()) {
             PreparedStatement preparedStatement = null;
             try {
-                final String statementString = statementBundle.getString(key.name());
+                final String statementString = getStatementString(statementBundle, key);
                 if (key == INSERT_VULNERABILITY || key == INSERT_CPE) {
                     preparedStatement = connection.prepareStatement(statementString, new String[]{"id"});
                 } else {
@@ -310,6 +413,29 @@ public final class CveDB implements AutoCloseable {
         }
     }
 
+    /**
+     * Returns the SQL for the given statement key. The parameter list of the
+     * set based statements is expanded to {@link #BULK_QUERY_SIZE} markers.
+     *
+     * @param bundle the bundle of statements
+     * @param key the statement key
+     * @return the SQL statement
+     */
+    static String getStatementString(ResourceBundle bundle, PreparedStatementCveDb key) {
+        final String statement = bundle.getString(key.name());
+        if (!BULK_STATEMENTS.contains(key)) {
+            return statement;
+        }
+        final StringBuilder markers = new StringBuilder(BULK_QUERY_SIZE * 2);
+        for (int i = 0; i < BULK_QUERY_SIZE; i++) {
+            if (i > 0) {
+                markers.append(',');
+            }
+            markers.append('?');
+        }
+        return String.format(statement, markers);
+    }
+
     /**
      * Closes all prepared statements.
      */
@@ -336,6 +462,62 @@ public final class CveDB implements AutoCloseable {
         return preparedStatement;
     }
 
+    /**
+     * Borrows a session from the read connection pool. If the database was not
+     * opened read-only <code>null</code> is returned and the caller must
+     * execute the lookup on the primary connection while holding the monitor.
+     *
+     * @return a pooled session or <code>null</code>
+     * @throws DatabaseException thrown if a pooled connection could not be
+     * obtained
+     */
+    private ReadConnectionPool.Session borrowReadSession() throws DatabaseException {
+        final ReadConnectionPool pool;
+        synchronized (this) {
+            pool = readPool;
+        }
+        if (pool == null) {
+            return null;
+        }
+        return pool.borrow();
+    }
+
+    /**
+     * Returns a session to the read connection pool.
+     *
+     * @param session the session to return, may be <code>null</code>
+     */
+    private void releaseReadSession(ReadConnectionPool.Session session) {
+        if (session != null) {
+            final ReadConnectionPool pool;
+            synchronized (this) {
+                pool = readPool;
+            }
+            if (pool != null) {
+                pool.release(session);
+            } else {
+                session.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the specified prepared statement from the given pooled session
+     * or, when the session is <code>null</code>, from the primary connection.
+     *
+     * @param session the pooled session, may be <code>null</code>
+     * @param key the prepared statement from {@link PreparedStatementCveDb} to
+     * return
+     * @return the prepared statement
+     * @throws SQLException thrown if a SQL Exception occurs
+     */
+    private PreparedStatement getPreparedStatement(ReadConnectionPool.Session session, PreparedStatementCveDb key) throws SQLException {
+        if (session == null) {
+            return getPreparedStatement(key);
+        }
+        return session.getPreparedStatement(key);
+    }
+
     /**
      * Commits all completed transactions.
      *
@@ -371,6 +553,16 @@ public final class CveDB implements AutoCloseable {
         return databaseProperties;
     }
 
+    /**
+     * Returns the cache of vulnerabilities keyed by CVE entry; primarily used
+     * to report the cache statistics.
+     *
+     * @return the vulnerability cache
+     */
+    public VulnerabilityCache getVulnerabilityCache() {
+        return vulnerabilityCache;
+    }
+
     /**
      * Used within the unit tests to reload the database properties.
      *
@@ -391,11 +583,43 @@ public final class CveDB implements AutoCloseable {
      * analyzed
      * @return a set of vulnerable software
      */
-    public synchronized Set<VulnerableSoftware> getCPEs(String vendor, String product) {
+    public Set<VulnerableSoftware> getCPEs(String vendor, String product) {
+        final ReadConnectionPool.Session session;
+        try {
+            session = borrowReadSession();
+        } catch (DatabaseException ex) {
+            LOGGER.error("Unable to obtain a database connection; please see the verbose log for more details.");
+            LOGGER.debug("", ex);
+            return new HashSet<>();
+        }
+        if (session == null) {
+            synchronized (this) {
+                return getCPEs(null, vendor, product);
+            }
+        }
+        try {
+            return getCPEs(session, vendor, product);
+        } finally {
+            releaseReadSession(session);
+        }
+    }
+
+    /**
+     * Searches the CPE entries in the database and retrieves all entries for a
+     * given vendor and product combination.
+     *
+     * @param session the pooled session to use; if <code>null</code> the
+     * primary connection is used and the caller must hold the monitor
+     * @param vendor the identified vendor name of the dependency being analyzed
+     * @param product the identified name of the product of the dependency being
+     * analyzed
+     * @return a set of vulnerable software
+     */
+    private Set<VulnerableSoftware> getCPEs(ReadConnectionPool.Session session, String vendor, String product) {
         final Set<VulnerableSoftware> cpe = new HashSet<>();
         ResultSet rs = null;
         try {
-            final PreparedStatement ps = getPreparedStatement(SELECT_CPE_ENTRIES);
+            final PreparedStatement ps = getPreparedStatement(session, SELECT_CPE_ENTRIES);
             ps.setString(1, vendor);
             ps.setString(2, product);
             rs = ps.executeQuery();
@@ -495,16 +719,19 @@ public final class CveDB implements AutoCloseable {
     }
 
     /**
-     * Clears cache. Should be called whenever something is modified. While this
-     * is not the optimal cache eviction strategy, this is good enough for
-     * typical usage (update DB and then only read) and it is easier to maintain
-     * the code.
+     * Clears the CPE lookup cache. Should be called whenever something is
+     * modified. While this is not the optimal cache eviction strategy, this is
+     * good enough for typical usage (update DB and then only read) and it is
+     * easier to maintain the code. The version range indexes are cleared as
+     * well. The vulnerability cache keyed by CVE entry is not affected; it is
+     * invalidated per entry when a vulnerability is updated.
      * <p>
      * It should be also called when DB is closed.
      * </p>
      */
     private synchronized void clearCache() {
         vulnerabilitiesForCpeCache.clear();
+        versionRangeIndexCache.clear();
     }
 
     /**
@@ -514,7 +741,7 @@ public final class CveDB implements AutoCloseable {
      * @return a list of Vulnerabilities
      * @throws DatabaseException thrown if there is an exception retrieving data
      */
-    public synchronized List<Vulnerability> getVulnerabilities(String cpeStr) throws DatabaseException {
+    public List<Vulnerability> getVulnerabilities(String cpeStr) throws DatabaseException {
         final List<Vulnerability> cachedVulnerabilities = vulnerabilitiesForCpeCache.get(cpeStr);
         if (cachedVulnerabilities != null) {
             LOGGER.debug("Cache hit for {}", cpeStr);
@@ -522,6 +749,30 @@ public final class CveDB implements AutoCloseable {
         } else {
             LOGGER.debug("Cache miss for {}", cpeStr);
         }
+        final ReadConnectionPool.Session session = borrowReadSession();
+        if (session == null) {
+            synchronized (this) {
+                return getVulnerabilities(null, cpeStr);
+            }
+        }
+        try {
+            return getVulnerabilities(session, cpeStr);
+        } finally {
+            releaseReadSession(session);
+        }
+    }
+
+    /**
+     * Retrieves the vulnerabilities associated with the specified CPE and adds
+     * them to the cache.
+     *
+     * @param session the pooled session to use; if <code>null</code> the
+     * primary connection is used and the caller must hold the monitor
+     * @param cpeStr the CPE name
+     * @return a list of Vulnerabilities
+     * @throws DatabaseException thrown if there is an exception retrieving data
+     */
+    private List<Vulnerability> getVulnerabilities(ReadConnectionPool.Session session, String cpeStr) throws DatabaseException {
         final VulnerableSoftware cpe = new VulnerableSoftware();
         try {
             cpe.parseName(cpeStr);
@@ -531,99 +782,123 @@ public final class CveDB implements AutoCloseable {
         final DependencyVersion detectedVersion = parseDependencyVersion(cpe);
         final List<Vulnerability> vulnerabilities = new ArrayList<>();
 
+        final VersionRangeIndex index = getVersionRangeIndex(session, cpe.getVendor(), cpe.getProduct());
+        final Map<String, Entry<String, Boolean>> matched = index.getMatchingSoftware(detectedVersion);
+        final Map<String, Vulnerability> loaded = getVulnerabilities(session, matched.keySet());
+        for (Entry<String, Entry<String, Boolean>> entry : matched.entrySet()) {
+            final Vulnerability v = loaded.get(entry.getKey());
+            if (v != null) {
+                v.setMatchedCPE(entry.getValue().getKey(), entry.getValue().getValue() ? "Y" : null);
+                vulnerabilities.add(v);
+            }
+        }
+        vulnerabilitiesForCpeCache.put(cpeStr, vulnerabilities);
+        return vulnerabilities;
+    }
+
+    /**
+     * Returns the precompiled version range index for the given vendor and
+     * product; the index is built from the database on first use.
+     *
+     * @param session the pooled session to use; if <code>null</code> the
+     * primary connection is used and the caller must hold the monitor
+     * @param vendor the vendor
+     * @param product the product
+     * @return the version range index
+     * @throws DatabaseException thrown if there is an exception retrieving data
+     */
+    private VersionRangeIndex getVersionRangeIndex(ReadConnectionPool.Session session, String vendor, String product)
+            throws DatabaseException {
+        final String key = vendor + ':' + product;
+        VersionRangeIndex index = versionRangeIndexCache.get(key);
+        if (index != null) {
+            return index;
+        }
         ResultSet rs = null;
         try {
-            final PreparedStatement ps = getPreparedStatement(SELECT_CVE_FROM_SOFTWARE);
-            ps.setString(1, cpe.getVendor());
-            ps.setString(2, cpe.getProduct());
+            final PreparedStatement ps = getPreparedStatement(session, SELECT_CVE_FROM_SOFTWARE);
+            ps.setString(1, vendor);
+            ps.setString(2, product);
             rs = ps.executeQuery();
-            String currentCVE = "";
-
-            final Map<String, Boolean> vulnSoftware = new HashMap<>();
+            final Map<String, Map<String, Boolean>> softwareByCve = new LinkedHashMap<>();
+            String currentCVE = null;
+            Map<String, Boolean> vulnSoftware = null;
             while (rs.next()) {
                 final String cveId = rs.getString(1);
-                if (!currentCVE.equals(cveId)) { //check for match and add
-                    final Entry<String, Boolean> matchedCPE = getMatchingSoftware(vulnSoftware, cpe.getVendor(), cpe.getProduct(), detectedVersion);
-                    if (matchedCPE != null) {
-                        final Vulnerability v = getVulnerability(currentCVE);
-                        if (v != null) {
-                            v.setMatchedCPE(matchedCPE.getKey(), matchedCPE.getValue() ? "Y" : null);
-                            vulnerabilities.add(v);
-                        }
-                    }
-                    vulnSoftware.clear();
+                if (!cveId.equals(currentCVE)) {
+                    vulnSoftware = new HashMap<>();
+                    softwareByCve.put(cveId, vulnSoftware);
                     currentCVE = cveId;
                 }
-
-                final String cpeId = rs.getString(2);
                 final String previous = rs.getString(3);
-                final Boolean p = previous != null && !previous.isEmpty();
-                vulnSoftware.put(cpeId, p);
-            }
-            //remember to process the last set of CVE/CPE entries
-            final Entry<String, Boolean> matchedCPE = getMatchingSoftware(vulnSoftware, cpe.getVendor(), cpe.getProduct(), detectedVersion);
-            if (matchedCPE != null) {
-                final Vulnerability v = getVulnerability(currentCVE);
-                if (v != null) {
-                    v.setMatchedCPE(matchedCPE.getKey(), matchedCPE.getValue() ? "Y" : null);
-                    vulnerabilities.add(v);
-                }
+                vulnSoftware.put(rs.getString(2), previous != null && !previous.isEmpty());
             }
+            index = new VersionRangeIndex(vendor, product, softwareByCve);
         } catch (SQLException ex) {
-            throw new DatabaseException("Exception retrieving vulnerability for " + cpeStr, ex);
+            throw new DatabaseException("Exception retrieving vulnerable software for " + key, ex);
         } finally {
             DBUtils.closeResultSet(rs);
         }
-        vulnerabilitiesForCpeCache.put(cpeStr, vulnerabilities);
-        return vulnerabilities;
+        LOGGER.debug("Built version range index for {} with {} CVE entries", key, index.size());
+        versionRangeIndexCache.put(key, index);
+        return index;
+    }
+
+    /**
+     * Gets a vulnerability for the provided CVE.
+     *
+     * @param cve the CVE to lookup
+     * @return a vulnerability object
+     * @throws DatabaseException if an exception occurs
+     */
+    public Vulnerability getVulnerability(String cve) throws DatabaseException {
+        final ReadConnectionPool.Session session = borrowReadSession();
+        if (session == null) {
+            synchronized (this) {
+                return getVulnerability(null, cve);
+            }
+        }
+        try {
+            return getVulnerability(session, cve);
+        } finally {
+            releaseReadSession(session);
+        }
     }
 
     /**
      * Gets a vulnerability for the provided CVE.
      *
+     * @param session the pooled session to use; if <code>null</code> the
+     * primary connection is used and the caller must hold the monitor
      * @param cve the CVE to lookup
      * @return a vulnerability object
      * @throws DatabaseException if an exception occurs
      */
-    public synchronized Vulnerability getVulnerability(String cve) throws DatabaseException {
+    private Vulnerability getVulnerability(ReadConnectionPool.Session session, String cve) throws DatabaseException {
+        Vulnerability vuln = vulnerabilityCache.get(cve);
+        if (vuln != null) {
+            return vuln;
+        }
         ResultSet rsV = null;
         ResultSet rsR = null;
         ResultSet rsS = null;
-        Vulnerability vuln = null;
 
         try {
-            final PreparedStatement psV = getPreparedStatement(SELECT_VULNERABILITY);
+            final PreparedStatement psV = getPreparedStatement(session, SELECT_VULNERABILITY);
             psV.setString(1, cve);
             rsV = psV.executeQuery();
             if (rsV.next()) {
-                vuln = new Vulnerability();
-                vuln.setName(cve);
-                vuln.setDescription(rsV.getString(2));
-                String cwe = rsV.getString(3);
-                if (cwe != null) {
-                    final String name = CweDB.getCweName(cwe);
-                    if (name != null) {
-                        cwe += ' ' + name;
-                    }
-                }
+                vuln = createVulnerability(cve, rsV);
                 final int cveId = rsV.getInt(1);
-                vuln.setCwe(cwe);
-                vuln.setCvssScore(rsV.getFloat(4));
-                vuln.setCvssAccessVector(rsV.getString(5));
-                vuln.setCvssAccessComplexity(rsV.getString(6));
-                vuln.setCvssAuthentication(rsV.getString(7));
-                vuln.setCvssConfidentialityImpact(rsV.getString(8));
-                vuln.setCvssIntegrityImpact(rsV.getString(9));
-                vuln.setCvssAvailabilityImpact(rsV.getString(10));
-
-                final PreparedStatement psR = getPreparedStatement(SELECT_REFERENCES);
+
+                final PreparedStatement psR = getPreparedStatement(session, SELECT_REFERENCES);
                 psR.setInt(1, cveId);
                 rsR = psR.executeQuery();
                 while (rsR.next()) {
                     vuln.addReference(rsR.getString(1), rsR.getString(2), rsR.getString(3));
                 }
 
-                final PreparedStatement psS = getPreparedStatement(SELECT_SOFTWARE);
+                final PreparedStatement psS = getPreparedStatement(session, SELECT_SOFTWARE);
                 psS.setInt(1, cveId);
                 rsS = psS.executeQuery();
                 while (rsS.next()) {
@@ -643,6 +918,143 @@ public final class CveDB implements AutoCloseable {
             DBUtils.closeResultSet(rsR);
             DBUtils.closeResultSet(rsS);
         }
+        if (vuln != null) {
+            vulnerabilityCache.put(vuln);
+        }
+        return vuln;
+    }
+
+    /**
+     * Loads the vulnerabilities, including their references and vulnerable
+     * software, for the given set of CVE entries. Entries held in the
+     * vulnerability cache are reused; rather than issuing three queries per
+     * remaining CVE the data is retrieved using set based statements of
+     * {@link #BULK_QUERY_SIZE} parameters.
+     *
+     * @param session the pooled session to use; if <code>null</code> the
+     * primary connection is used and the caller must hold the monitor
+     * @param cves the CVE entries to load
+     * @return a map of the CVE entry to the vulnerability; entries that do not
+     * exist in the database are not included
+     * @throws DatabaseException thrown if there is an exception retrieving data
+     */
+    private Map<String, Vulnerability> getVulnerabilities(ReadConnectionPool.Session session, Collection<String> cves)
+            throws DatabaseException {
+        final Map<String, Vulnerability> byName = new HashMap<>();
+        if (cves.isEmpty()) {
+            return byName;
+        }
+        final List<String> names = new ArrayList<>();
+        for (String cve : cves) {
+            final Vulnerability cached = vulnerabilityCache.get(cve);
+            if (cached != null) {
+                byName.put(cve, cached);
+            } else {
+                names.add(cve);
+            }
+        }
+        final Map<Integer, Vulnerability> byId = new LinkedHashMap<>();
+        ResultSet rs = null;
+        try {
+            for (int start = 0; start < names.size(); start += BULK_QUERY_SIZE) {
+                final PreparedStatement psV = getPreparedStatement(session, SELECT_VULNERABILITIES);
+                bindBulkParameters(psV, names.subList(start, Math.min(start + BULK_QUERY_SIZE, names.size())));
+                rs = psV.executeQuery();
+                while (rs.next()) {
+                    final String cve = rs.getString(11);
+                    final Vulnerability vuln = createVulnerability(cve, rs);
+                    byName.put(cve, vuln);
+                    byId.put(rs.getInt(1), vuln);
+                }
+                DBUtils.closeResultSet(rs);
+            }
+            final List<Integer> ids = new ArrayList<>(byId.keySet());
+            for (int start = 0; start < ids.size(); start += BULK_QUERY_SIZE) {
+                final List<Integer> chunk = ids.subList(start, Math.min(start + BULK_QUERY_SIZE, ids.size()));
+                final PreparedStatement psR = getPreparedStatement(session, SELECT_REFERENCES_FOR_VULNERABILITIES);
+                bindBulkParameters(psR, chunk);
+                rs = psR.executeQuery();
+                while (rs.next()) {
+                    byId.get(rs.getInt(1)).addReference(rs.getString(2), rs.getString(3), rs.getString(4));
+                }
+                DBUtils.closeResultSet(rs);
+
+                final PreparedStatement psS = getPreparedStatement(session, SELECT_SOFTWARE_FOR_VULNERABILITIES);
+                bindBulkParameters(psS, chunk);
+                rs = psS.executeQuery();
+                while (rs.next()) {
+                    final Vulnerability vuln = byId.get(rs.getInt(1));
+                    final String cpe = rs.getString(2);
+                    final String prevVersion = rs.getString(3);
+                    if (prevVersion == null) {
+                        vuln.addVulnerableSoftware(cpe);
+                    } else {
+                        vuln.addVulnerableSoftware(cpe, prevVersion);
+                    }
+                }
+                DBUtils.closeResultSet(rs);
+            }
+        } catch (SQLException ex) {
+            throw new DatabaseException("Error retrieving vulnerabilities", ex);
+        } finally {
+            DBUtils.closeResultSet(rs);
+        }
+        for (Vulnerability vuln : byId.values()) {
+            vulnerabilityCache.put(vuln);
+        }
+        return byName;
+    }
+
+    /**
+     * Binds the values to a set based statement. If fewer than
+     * {@link #BULK_QUERY_SIZE} values are provided the last value is repeated;
+     * duplicates in an <code>IN</code> list do not alter the result.
+     *
+     * @param ps the set based prepared statement
+     * @param values the values to bind; must contain at least one entry
+     * @throws SQLException thrown if a parameter cannot be bound
+     */
+    private void bindBulkParameters(PreparedStatement ps, List<?> values) throws SQLException {
+        final Object last = values.get(values.size() - 1);
+        for (int i = 0; i < BULK_QUERY_SIZE; i++) {
+            final Object value = i < values.size() ? values.get(i) : last;
+            if (value instanceof Integer) {
+                ps.setInt(i + 1, (Integer) value);
+            } else {
+                ps.setString(i + 1, (String) value);
+            }
+        }
+    }
+
+    /**
+     * Creates a vulnerability from the current row of a result set produced by
+     * one of the vulnerability select statements; the columns are expected in
+     * the order id, description, cwe, followed by the CVSS fields.
+     *
+     * @param cve the CVE entry
+     * @param rs the result set positioned on the vulnerability row
+     * @return the vulnerability
+     * @throws SQLException thrown if the data cannot be read
+     */
+    private Vulnerability createVulnerability(String cve, ResultSet rs) throws SQLException {
+        final Vulnerability vuln = new Vulnerability();
+        vuln.setName(cve);
+        vuln.setDescription(rs.getString(2));
+        String cwe = rs.getString(3);
+        if (cwe != null) {
+            final String name = CweDB.getCweName(cwe);
+            if (name != null) {
+                cwe += ' ' + name;
+            }
+        }
+        vuln.setCwe(cwe);
+        vuln.setCvssScore(rs.getFloat(4));
+        vuln.setCvssAccessVector(rs.getString(5));
+        vuln.setCvssAccessComplexity(rs.getString(6));
+        vuln.setCvssAuthentication(rs.getString(7));
+        vuln.setCvssConfidentialityImpact(rs.getString(8));
+        vuln.setCvssIntegrityImpact(rs.getString(9));
+        vuln.setCvssAvailabilityImpact(rs.getString(10));
         return vuln;
     }
 
@@ -654,7 +1066,27 @@ public final class CveDB implements AutoCloseable {
      * @throws DatabaseException is thrown if the database
      */
     public synchronized void updateVulnerability(Vulnerability vuln) throws DatabaseException {
-        clearCache();
+        if (saveVulnerability(vuln, isDeltaUpdateEnabled())) {
+            clearCache();
+            vulnerabilityCache.invalidate(vuln.getName());
+        }
+    }
+
+    /**
+     * Writes the vulnerability to the database. If the vulnerability does not
+     * exist it will be added; when <code>skipUnchanged</code> is set and the
+     * stored content hash matches the vulnerability nothing is written. The
+     * caller is responsible for invalidating the caches.
+     *
+     * @param vuln the vulnerability to add to the database
+     * @param skipUnchanged whether or not an unchanged vulnerability is
+     * skipped
+     * @return <code>true</code> if the database was changed; otherwise
+     * <code>false</code>
+     * @throws DatabaseException is thrown if the database
+     */
+    private boolean saveVulnerability(Vulnerability vuln, boolean skipUnchanged) throws DatabaseException {
+        final String contentHash = getContentHash(vuln);
         ResultSet rs = null;
         try {
             int vulnerabilityId = 0;
@@ -663,6 +1095,9 @@ public final class CveDB implements AutoCloseable {
             rs = selectVulnerabilityId.executeQuery();
             if (rs.next()) {
                 vulnerabilityId = rs.getInt(1);
+                if (skipUnchanged && contentHash.equals(rs.getString(2))) {
+                    return false;
+                }
                 // first delete any existing vulnerability info. We don't know what was updated. yes, slower but atm easier.
                 final PreparedStatement deleteReference = getPreparedStatement(DELETE_REFERENCE);
                 deleteReference.setInt(1, vulnerabilityId);
@@ -691,7 +1126,8 @@ public final class CveDB implements AutoCloseable {
                     updateVulnerability.setString(7, vuln.getCvssConfidentialityImpact());
                     updateVulnerability.setString(8, vuln.getCvssIntegrityImpact());
                     updateVulnerability.setString(9, vuln.getCvssAvailabilityImpact());
-                    updateVulnerability.setInt(10, vulnerabilityId);
+                    updateVulnerability.setString(10, contentHash);
+                    updateVulnerability.setInt(11, vulnerabilityId);
                     updateVulnerability.executeUpdate();
                 }
             } else {
@@ -706,6 +1142,7 @@ public final class CveDB implements AutoCloseable {
                 insertVulnerability.setString(8, vuln.getCvssConfidentialityImpact());
                 insertVulnerability.setString(9, vuln.getCvssIntegrityImpact());
                 insertVulnerability.setString(10, vuln.getCvssAvailabilityImpact());
+                insertVulnerability.setString(11, contentHash);
                 insertVulnerability.execute();
                 try {
                     rs = insertVulnerability.getGeneratedKeys();
@@ -748,6 +1185,10 @@ public final class CveDB implements AutoCloseable {
 
             PreparedStatement insertSoftware = getPreparedStatement(INSERT_SOFTWARE);
             int countSoftware = 0;
+            //the software rows are checked before they are inserted; within a transaction a failed insert
+            //cannot be ignored on all databases (e.g. PostgreSQL aborts the transaction)
+            final Set<Integer> insertedCpeIds = new HashSet<>();
+            VulnerableSoftware lastSoftware = null;
             for (VulnerableSoftware vulnerableSoftware : vuln.getVulnerableSoftware()) {
                 int cpeProductId = 0;
                 final PreparedStatement selectCpeId = getPreparedStatement(SELECT_CPE_ID);
@@ -774,6 +1215,10 @@ public final class CveDB implements AutoCloseable {
                 if (cpeProductId == 0) {
                     throw new DatabaseException("Unable to retrieve cpeProductId - no data returned");
                 }
+                if (!insertedCpeIds.add(cpeProductId)) {
+                    LOGGER.info("Duplicate software key identified in '{}:{}'", vuln.getName(), vulnerableSoftware.getName());
+                    continue;
+                }
 
                 insertSoftware.setInt(1, vulnerabilityId);
                 insertSoftware.setInt(2, cpeProductId);
@@ -786,17 +1231,12 @@ public final class CveDB implements AutoCloseable {
                 if (isBatchInsertEnabled()) {
                     insertSoftware.addBatch();
                     countSoftware++;
+                    lastSoftware = vulnerableSoftware;
                     if (countSoftware % getBatchSize() == 0) {
                         executeBatch(vuln, vulnerableSoftware, insertSoftware);
                         insertSoftware = getPreparedStatement(INSERT_SOFTWARE);
                         LOGGER.trace(getLogForBatchInserts(countSoftware, "Completed %s batch inserts software table: %s"));
                         countSoftware = 0;
-                    } else if (countSoftware == vuln.getVulnerableSoftware().size()) {
-                        if (LOGGER.isTraceEnabled()) {
-                            LOGGER.trace(getLogForBatchInserts(countSoftware, "Completed %s batch inserts software table: %s"));
-                            countReferences = 0;
-                        }
-                        executeBatch(vuln, vulnerableSoftware, insertSoftware);
                     }
                 } else {
                     try {
@@ -811,6 +1251,10 @@ public final class CveDB implements AutoCloseable {
                     }
                 }
             }
+            if (countSoftware > 0) {
+                LOGGER.trace(getLogForBatchInserts(countSoftware, "Completed %s batch inserts software table: %s"));
+                executeBatch(vuln, lastSoftware, insertSoftware);
+            }
         } catch (SQLException ex) {
             final String msg = String.format("Error updating '%s'", vuln.getName());
             LOGGER.debug(msg, ex);
@@ -818,6 +1262,123 @@ public final class CveDB implements AutoCloseable {
         } finally {
             DBUtils.closeResultSet(rs);
         }
+        return true;
+    }
+
+    /**
+     * Computes a hash of the content of the vulnerability that is stored in
+     * the database; used to determine if a vulnerability has changed. The
+     * references and vulnerable software are sorted so that the hash does not
+     * depend on the order in which they were parsed.
+     *
+     * @param vuln the vulnerability
+     * @return the hex encoded SHA-1 hash of the vulnerability's content
+     */
+    static String getContentHash(Vulnerability vuln) {
+        final List<String> references = new ArrayList<>(vuln.getReferences().size());
+        for (Reference r : vuln.getReferences()) {
+            references.add(r.getSource() + '\t' + r.getName() + '\t' + r.getUrl());
+        }
+        Collections.sort(references);
+        final List<String> software = new ArrayList<>(vuln.getVulnerableSoftware().size());
+        for (VulnerableSoftware vs : vuln.getVulnerableSoftware()) {
+            software.add(vs.getName() + '\t' + vs.getPreviousVersion());
+        }
+        Collections.sort(software);
+
+        final StringBuilder sb = new StringBuilder(512);
+        sb.append(vuln.getDescription()).append('\n')
+                .append(vuln.getCwe()).append('\n')
+                .append(vuln.getCvssScore()).append('\n')
+                .append(vuln.getCvssAccessVector()).append('\n')
+                .append(vuln.getCvssAccessComplexity()).append('\n')
+                .append(vuln.getCvssAuthentication()).append('\n')
+                .append(vuln.getCvssConfidentialityImpact()).append('\n')
+                .append(vuln.getCvssIntegrityImpact()).append('\n')
+                .append(vuln.getCvssAvailabilityImpact()).append('\n');
+        for (String reference : references) {
+            sb.append(reference).append('\n');
+        }
+        sb.append('\n');
+        for (String s : software) {
+            sb.append(s).append('\n');
+        }
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return Checksum.getHex(digest.digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Unable to compute the SHA-1 hash", ex);
+        }
+    }
+
+    /**
+     * Determines whether or not unchanged vulnerabilities are skipped during
+     * an update.
+     *
+     * @return <code>true</code> if delta updates are enabled; otherwise
+     * <code>false</code>
+     */
+    private boolean isDeltaUpdateEnabled() {
+        try {
+            return settings.getBoolean(DELTA_UPDATE, true);
+        } catch (InvalidSettingException ex) {
+            LOGGER.trace("Invalid setting for {}", DELTA_UPDATE, ex);
+            return true;
+        }
+    }
+
+    /**
+     * Updates the given vulnerabilities within the database using a single
+     * transaction. If any of the vulnerabilities cannot be updated the entire
+     * transaction is rolled back.
+     *
+     * Vulnerabilities whose content has not changed are skipped and the caches
+     * are invalidated once for the entire batch.
+     *
+     * @param vulnerabilities the vulnerabilities to add to the database
+     * @return the number of vulnerabilities that were changed
+     * @throws DatabaseException is thrown if the vulnerabilities could not be
+     * updated
+     */
+    public synchronized int updateVulnerabilities(Collection<Vulnerability> vulnerabilities) throws DatabaseException {
+        if (vulnerabilities.isEmpty()) {
+            return 0;
+        }
+        try {
+            connection.setAutoCommit(false);
+        } catch (SQLException ex) {
+            throw new DatabaseException("Unable to start the transaction", ex);
+        }
+        final boolean skipUnchanged = isDeltaUpdateEnabled();
+        final List<String> changed = new ArrayList<>();
+        boolean committed = false;
+        try {
+            for (Vulnerability vuln : vulnerabilities) {
+                if (saveVulnerability(vuln, skipUnchanged)) {
+                    changed.add(vuln.getName());
+                }
+            }
+            connection.commit();
+            committed = true;
+        } catch (SQLException ex) {
+            throw new DatabaseException("Unable to commit the updated vulnerabilities", ex);
+        } finally {
+            if (!changed.isEmpty()) {
+                clearCache();
+                for (String cve : changed) {
+                    vulnerabilityCache.invalidate(cve);
+                }
+            }
+            try {
+                if (!committed) {
+                    connection.rollback();
+                }
+                connection.setAutoCommit(true);
+            } catch (SQLException ex) {
+                LOGGER.debug("Unable to complete the transaction", ex);
+            }
+        }
+        return changed.size();
     }
 
     /**
@@ -941,7 +1502,9 @@ public final class CveDB implements AutoCloseable {
      * Determines if the given identifiedVersion is affected by the given cpeId
      * and previous version flag. A non-null, non-empty string passed to the
      * previous version argument indicates that all previous versions are
-     * affected.
+     * affected. Lookups performed by {@link #getVulnerabilities(String)} use a
+     * {@link VersionRangeIndex} covering every CVE of the vendor/product; this
+     * method evaluates a single CVE using the same rules.
      *
      * @param vendor the vendor of the dependency being analyzed
      * @param product the product name of the dependency being analyzed
@@ -954,63 +1517,10 @@ public final class CveDB implements AutoCloseable {
     protected Entry<String, Boolean> getMatchingSoftware(Map<String, Boolean> vulnerableSoftware, String vendor, String product,
             DependencyVersion identifiedVersion) {
 
-        final boolean isVersionTwoADifferentProduct = "apache".equals(vendor) && "struts".equals(product);
-
-        final Set<String> majorVersionsAffectingAllPrevious = new HashSet<>();
-        final boolean matchesAnyPrevious = identifiedVersion == null || "-".equals(identifiedVersion.toString());
-        String majorVersionMatch = null;
-        for (Entry<String, Boolean> entry : vulnerableSoftware.entrySet()) {
-            final DependencyVersion v = parseDependencyVersion(entry.getKey());
-            if (v == null || "-".equals(v.toString())) { //all versions
-                return entry;
-            }
-            if (entry.getValue()) {
-                if (matchesAnyPrevious) {
-                    return entry;
-                }
-                if (identifiedVersion != null && identifiedVersion.getVersionParts().get(0).equals(v.getVersionParts().get(0))) {
-                    majorVersionMatch = v.getVersionParts().get(0);
-                }
-                majorVersionsAffectingAllPrevious.add(v.getVersionParts().get(0));
-            }
-        }
-        if (matchesAnyPrevious) {
-            return null;
-        }
-
-        final boolean canSkipVersions = majorVersionMatch != null && majorVersionsAffectingAllPrevious.size() > 1;
-        //yes, we are iterating over this twice. The first time we are skipping versions those that affect all versions
-        //then later we process those that affect all versions. This could be done with sorting...
-        for (Entry<String, Boolean> entry : vulnerableSoftware.entrySet()) {
-            if (!entry.getValue()) {
-                final DependencyVersion v = parseDependencyVersion(entry.getKey());
-                //this can't dereference a null 'majorVersionMatch' as canSkipVersions accounts for this.
-                if (canSkipVersions && majorVersionMatch != null && !majorVersionMatch.equals(v.getVersionParts().get(0))) {
-                    continue;
-                }
-                //this can't dereference a null 'identifiedVersion' because if it was null we would have exited
-                //in the above loop or just after loop (if matchesAnyPrevious return null).
-                if (identifiedVersion != null && identifiedVersion.equals(v)) {
-                    return entry;
-                }
-            }
-        }
-        for (Entry<String, Boolean> entry : vulnerableSoftware.entrySet()) {
-            if (entry.getValue()) {
-                final DependencyVersion v = parseDependencyVersion(entry.getKey());
-                //this can't dereference a null 'majorVersionMatch' as canSkipVersions accounts for this.
-                if (canSkipVersions && majorVersionMatch != null && !majorVersionMatch.equals(v.getVersionParts().get(0))) {
-                    continue;
-                }
-                //this can't dereference a null 'identifiedVersion' because if it was null we would have exited
-                //in the above loop or just after loop (if matchesAnyPrevious return null).
-                if (entry.getValue() && identifiedVersion != null && identifiedVersion.compareTo(v) <= 0
-                        && !(isVersionTwoADifferentProduct && !identifiedVersion.getVersionParts().get(0).equals(v.getVersionParts().get(0)))) {
-                    return entry;
-                }
-            }
-        }
-        return null;
+        final Map<String, Map<String, Boolean>> softwareByCve = new HashMap<>();
+        softwareByCve.put("", vulnerableSoftware);
+        final VersionRangeIndex index = new VersionRangeIndex(vendor, product, softwareByCve);
+        return index.getMatchingSoftware(identifiedVersion).get("");
     }
 
     /**
@@ -1020,7 +1530,7 @@ public final class CveDB implements AutoCloseable {
      * @param cpeStr a cpe identifier
      * @return a dependency version
      */
-    private DependencyVersion parseDependencyVersion(String cpeStr) {
+    static DependencyVersion parseDependencyVersion(String cpeStr) {
         final VulnerableSoftware cpe = new VulnerableSoftware();
         try {
             cpe.parseName(cpeStr);
@@ -1038,7 +1548,7 @@ public final class CveDB implements AutoCloseable {
      * @param cpe a cpe object
      * @return a dependency version
      */
-    private DependencyVersion parseDependencyVersion(VulnerableSoftware cpe) {
+    static DependencyVersion parseDependencyVersion(VulnerableSoftware cpe) {
         final DependencyVersion cpeVersion;
         if (cpe.getVersion() != null && !cpe.getVersion().isEmpty()) {
             String versionText;
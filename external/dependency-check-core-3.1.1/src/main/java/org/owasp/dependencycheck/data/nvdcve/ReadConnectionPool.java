@@ -0,0 +1,275 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.nvdcve;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.ThreadSafe;
+import org.owasp.dependencycheck.utils.DBUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A small, bounded pool of database connections used by {@link CveDB} when the
+ * database has been opened in read-only mode. Each pooled connection carries
+ * its own set of prepared statements so that lookups executed from parallel
+ * analysis threads do not contend on a single connection.
+ */
+@ThreadSafe
+final class ReadConnectionPool {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReadConnectionPool.class);
+    /**
+     * Placed on the idle queue when the pool is closed to wake the threads
+     * waiting for a session.
+     */
+    private static final Session CLOSED = new Session(null, null);
+    /**
+     * The number of seconds a thread waits for an idle session before checking
+     * whether the pool was closed.
+     */
+    private static final long WAIT_SECONDS = 1;
+    /**
+     * The factory used to open new connections.
+     */
+    private final ConnectionFactory connectionFactory;
+    /**
+     * The bundle of statements used when accessing the database.
+     */
+    private final ResourceBundle statementBundle;
+    /**
+     * The maximum number of connections that will be opened.
+     */
+    private final int maxSize;
+    /**
+     * The idle sessions available to be borrowed.
+     */
+    private final BlockingQueue<Session> idle = new LinkedBlockingQueue<>();
+    /**
+     * The number of sessions created by the pool.
+     */
+    private int created = 0;
+    /**
+     * Whether or not the pool has been closed.
+     */
+    private boolean closed = false;
+
+    /**
+     * Constructs a new read connection pool. Connections are opened lazily as
+     * they are needed.
+     *
+     * @param connectionFactory the factory used to open connections
+     * @param statementBundle the bundle of statements for the database
+     * @param maxSize the maximum number of connections to open
+     */
+    ReadConnectionPool(ConnectionFactory connectionFactory, ResourceBundle statementBundle, int maxSize) {
+        this.connectionFactory = connectionFactory;
+        this.statementBundle = statementBundle;
+        this.maxSize = maxSize < 1 ? 1 : maxSize;
+    }
+
+    /**
+     * Returns the maximum number of connections the pool will open.
+     *
+     * @return the maximum pool size
+     */
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Borrows a session from the pool. If no session is idle and the pool has
+     * not reached its maximum size a new connection is opened; otherwise the
+     * calling thread waits for another thread to release a session.
+     *
+     * @return a session that must be returned using {@link #release(Session)}
+     * @throws DatabaseException thrown if a connection could not be opened or
+     * the pool has been closed
+     */
+    Session borrow() throws DatabaseException {
+        Session session = checkClosed(idle.poll());
+        if (session != null) {
+            return session;
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new DatabaseException("The read connection pool has been closed");
+            }
+            if (created < maxSize) {
+                session = new Session(connectionFactory.getConnection(), statementBundle);
+                created += 1;
+                LOGGER.debug("Opened read connection {} of {}", created, maxSize);
+                return session;
+            }
+        }
+        try {
+            while (session == null) {
+                session = checkClosed(idle.poll(WAIT_SECONDS, TimeUnit.SECONDS));
+                if (session == null && isClosed()) {
+                    throw new DatabaseException("The read connection pool has been closed");
+                }
+            }
+            return session;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException("Interrupted waiting for a database connection", ex);
+        }
+    }
+
+    /**
+     * Checks if the session taken from the idle queue is the marker placed
+     * there when the pool was closed; if so the marker is put back for the
+     * other waiting threads.
+     *
+     * @param session the session taken from the idle queue; may be
+     * <code>null</code>
+     * @return the session
+     * @throws DatabaseException thrown if the pool has been closed
+     */
+    private Session checkClosed(Session session) throws DatabaseException {
+        if (session == CLOSED) {
+            idle.offer(CLOSED);
+            throw new DatabaseException("The read connection pool has been closed");
+        }
+        return session;
+    }
+
+    /**
+     * Returns whether the pool has been closed.
+     *
+     * @return whether the pool has been closed
+     */
+    private synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Returns a previously borrowed session to the pool.
+     *
+     * @param session the session to return
+     */
+    void release(Session session) {
+        if (session == null) {
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                //borrowed sessions are closed as they are returned after the pool was closed
+                session.close();
+            } else {
+                idle.offer(session);
+            }
+        }
+    }
+
+    /**
+     * Closes the idle connections opened by the pool and wakes any thread
+     * waiting for a session. Sessions that are still borrowed are closed when
+     * they are returned.
+     */
+    synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        final List<Session> sessions = new ArrayList<>();
+        idle.drainTo(sessions);
+        for (Session session : sessions) {
+            if (session != CLOSED) {
+                session.close();
+            }
+        }
+        idle.offer(CLOSED);
+    }
+
+    /**
+     * A single pooled connection along with the prepared statements that have
+     * been created for it. A session is only ever used by one thread at a time.
+     */
+    static final class Session {
+
+        /**
+         * The database connection.
+         */
+        private final Connection connection;
+        /**
+         * The bundle of statements used when accessing the database.
+         */
+        private final ResourceBundle statementBundle;
+        /**
+         * The prepared statements created for this connection.
+         */
+        private final EnumMap<CveDB.PreparedStatementCveDb, PreparedStatement> statements
+                = new EnumMap<>(CveDB.PreparedStatementCveDb.class);
+
+        /**
+         * Constructs a new session.
+         *
+         * @param connection the database connection
+         * @param statementBundle the bundle of statements for the database
+         */
+        Session(Connection connection, ResourceBundle statementBundle) {
+            this.connection = connection;
+            this.statementBundle = statementBundle;
+        }
+
+        /**
+         * Returns the specified prepared statement, preparing it on first use.
+         *
+         * @param key the prepared statement to return
+         * @return the prepared statement
+         * @throws SQLException thrown if a SQL Exception occurs
+         */
+        PreparedStatement getPreparedStatement(CveDB.PreparedStatementCveDb key) throws SQLException {
+            PreparedStatement preparedStatement = statements.get(key);
+            if (preparedStatement == null) {
+                preparedStatement = connection.prepareStatement(CveDB.getStatementString(statementBundle, key));
+                statements.put(key, preparedStatement);
+            } else {
+                preparedStatement.clearParameters();
+            }
+            return preparedStatement;
+        }
+
+        /**
+         * Closes the prepared statements and the connection.
+         */
+        void close() {
+            for (PreparedStatement preparedStatement : statements.values()) {
+                DBUtils.closeStatement(preparedStatement);
+            }
+            statements.clear();
+            try {
+                connection.close();
+            } catch (SQLException ex) {
+                LOGGER.debug("An error occurred closing a pooled connection", ex);
+            }
+        }
+    }
+}
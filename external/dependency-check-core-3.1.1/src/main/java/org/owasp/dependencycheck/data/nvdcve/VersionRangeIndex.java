@@ -0,0 +1,547 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.nvdcve;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import javax.annotation.concurrent.ThreadSafe;
+import org.owasp.dependencycheck.utils.DependencyVersion;
+
+/**
+ * A precompiled index of the vulnerable software entries for a single
+ * vendor/product pair. The CPE entries of every CVE are parsed once when the
+ * index is built; determining which CVE entries affect a given version is then
+ * a hash lookup for exact matches and a binary search over the sorted "all
+ * previous versions" boundaries.
+ * <p>
+ * The results are identical to evaluating each CVE individually (see
+ * {@link CveDB#getMatchingSoftware(Map, String, String, DependencyVersion)}).
+ * Because {@link DependencyVersion#compareTo(DependencyVersion)} is only a
+ * total order for purely numeric versions, CVE entries with non-numeric
+ * boundaries, and identified versions that are not purely numeric, are
+ * evaluated individually.</p>
+ */
+@ThreadSafe
+final class VersionRangeIndex {
+
+    /**
+     * Orders numeric version boundaries the same way
+     * {@link DependencyVersion#compareTo(DependencyVersion)} orders numeric
+     * versions.
+     */
+    private static final Comparator<Boundary> BOUNDARY_ORDER = new Comparator<Boundary>() {
+        @Override
+        public int compare(Boundary o1, Boundary o2) {
+            return compareParts(o1.parts, o2.parts);
+        }
+    };
+
+    /**
+     * Whether or not version two of the product is a different product; only
+     * "all previous versions" boundaries of the same major version are
+     * considered (i.e. apache struts).
+     */
+    private final boolean isVersionTwoADifferentProduct;
+    /**
+     * The vulnerable software of each CVE, in the order they were added.
+     */
+    private final List<CveSoftware> entries = new ArrayList<>();
+    /**
+     * The CVE entries that are evaluated individually because they contain
+     * non-numeric "all previous versions" boundaries.
+     */
+    private final List<CveSoftware> irregular = new ArrayList<>();
+    /**
+     * The CVE entries that affect all versions.
+     */
+    private final List<CveSoftware> allVersions = new ArrayList<>();
+    /**
+     * The explicitly listed versions keyed by the version parts with trailing
+     * zeros removed.
+     */
+    private final Map<List<String>, List<VersionEntry>> exactVersions = new HashMap<>();
+    /**
+     * The highest numeric "all previous versions" boundary of each CVE entry,
+     * sorted.
+     */
+    private final Boundary[] highestBoundaries;
+    /**
+     * The highest numeric "all previous versions" boundary of each CVE entry
+     * for a given major version, sorted and keyed by major version.
+     */
+    private final Map<String, Boundary[]> highestBoundariesByMajorVersion = new HashMap<>();
+
+    /**
+     * Constructs the index for the given vendor/product.
+     *
+     * @param vendor the vendor
+     * @param product the product
+     * @param softwareByCve the vulnerable software of each CVE entry; each CPE
+     * is mapped to a flag indicating if all previous versions are affected
+     */
+    VersionRangeIndex(String vendor, String product, Map<String, Map<String, Boolean>> softwareByCve) {
+        this.isVersionTwoADifferentProduct = "apache".equals(vendor) && "struts".equals(product);
+        final List<Boundary> highest = new ArrayList<>();
+        final Map<String, List<Boundary>> highestByMajor = new HashMap<>();
+        for (Entry<String, Map<String, Boolean>> cve : softwareByCve.entrySet()) {
+            final CveSoftware software = new CveSoftware(entries.size(), cve.getKey(), cve.getValue());
+            entries.add(software);
+            if (software.allVersions != null) {
+                allVersions.add(software);
+            } else if (software.isIrregular) {
+                irregular.add(software);
+            } else {
+                for (VersionEntry exact : software.versions) {
+                    final List<String> key = normalize(exact.version);
+                    List<VersionEntry> list = exactVersions.get(key);
+                    if (list == null) {
+                        list = new ArrayList<>(1);
+                        exactVersions.put(key, list);
+                    }
+                    list.add(exact);
+                }
+                if (software.highest != null) {
+                    highest.add(software.highest);
+                }
+                for (Entry<String, Boundary> major : software.highestByMajorVersion.entrySet()) {
+                    List<Boundary> list = highestByMajor.get(major.getKey());
+                    if (list == null) {
+                        list = new ArrayList<>();
+                        highestByMajor.put(major.getKey(), list);
+                    }
+                    list.add(major.getValue());
+                }
+            }
+        }
+        highestBoundaries = sort(highest);
+        for (Entry<String, List<Boundary>> major : highestByMajor.entrySet()) {
+            highestBoundariesByMajorVersion.put(major.getKey(), sort(major.getValue()));
+        }
+    }
+
+    /**
+     * Returns the number of CVE entries in the index.
+     *
+     * @return the number of CVE entries
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Determines which CVE entries affect the identified version.
+     *
+     * @param identifiedVersion the identified version of the dependency being
+     * analyzed
+     * @return a map of the affected CVE entries, in the order they were added
+     * to the index, to the matching CPE and a flag indicating if all previous
+     * versions are affected
+     */
+    Map<String, Entry<String, Boolean>> getMatchingSoftware(DependencyVersion identifiedVersion) {
+        final List<Entry<String, Boolean>> matches = new ArrayList<>(Collections.<Entry<String, Boolean>>nCopies(entries.size(), null));
+        final int[] identifiedParts = identifiedVersion == null || "-".equals(identifiedVersion.toString())
+                ? null : toNumericParts(identifiedVersion);
+        if (identifiedParts == null) {
+            for (CveSoftware software : entries) {
+                matches.set(software.ordinal, software.getMatchingSoftware(identifiedVersion, isVersionTwoADifferentProduct));
+            }
+            return toMap(matches);
+        }
+
+        for (CveSoftware software : allVersions) {
+            matches.set(software.ordinal, software.allVersions);
+        }
+        for (CveSoftware software : irregular) {
+            matches.set(software.ordinal, software.getMatchingSoftware(identifiedVersion, isVersionTwoADifferentProduct));
+        }
+        final List<VersionEntry> candidates = exactVersions.get(normalize(identifiedVersion));
+        if (candidates != null) {
+            for (VersionEntry candidate : candidates) {
+                if (matches.get(candidate.owner.ordinal) == null && identifiedVersion.equals(candidate.version)) {
+                    matches.set(candidate.owner.ordinal, candidate.entry);
+                }
+            }
+        }
+        final String major = identifiedVersion.getVersionParts().get(0);
+        final Boundary[] sameMajor = highestBoundariesByMajorVersion.get(major);
+        if (sameMajor != null) {
+            for (int i = lowerBound(sameMajor, identifiedParts); i < sameMajor.length; i++) {
+                final Boundary boundary = sameMajor[i];
+                if (matches.get(boundary.owner.ordinal) == null) {
+                    matches.set(boundary.owner.ordinal, getReportedSoftware(boundary, identifiedVersion));
+                }
+            }
+        }
+        if (!isVersionTwoADifferentProduct) {
+            //CVE entries with a boundary in the identified major version were evaluated above
+            for (int i = lowerBound(highestBoundaries, identifiedParts); i < highestBoundaries.length; i++) {
+                final Boundary boundary = highestBoundaries[i];
+                if (matches.get(boundary.owner.ordinal) == null
+                        && !boundary.owner.highestByMajorVersion.containsKey(major)) {
+                    matches.set(boundary.owner.ordinal, getReportedSoftware(boundary, identifiedVersion));
+                }
+            }
+        }
+        return toMap(matches);
+    }
+
+    /**
+     * Returns the software entry reported as the match for a CVE entry found
+     * through one of its "all previous versions" boundaries. The boundaries
+     * only determine whether the CVE entry affects the version; the reported
+     * entry is the first matching entry in the order of the CVE's vulnerable
+     * software, as when each CVE entry is evaluated individually.
+     *
+     * @param boundary the boundary the CVE entry was found by
+     * @param identifiedVersion the identified version
+     * @return the matching software entry
+     */
+    private Entry<String, Boolean> getReportedSoftware(Boundary boundary, DependencyVersion identifiedVersion) {
+        final Entry<String, Boolean> entry = boundary.owner.getMatchingSoftware(identifiedVersion, isVersionTwoADifferentProduct);
+        return entry != null ? entry : boundary.entry;
+    }
+
+    /**
+     * Converts the list of matches, indexed by the ordinal of the CVE entry,
+     * into a map of CVE entries to the matching software.
+     *
+     * @param matches the list of matches
+     * @return the map of CVE entries to the matching software
+     */
+    private Map<String, Entry<String, Boolean>> toMap(List<Entry<String, Boolean>> matches) {
+        final Map<String, Entry<String, Boolean>> result = new LinkedHashMap<>();
+        for (int i = 0; i < matches.size(); i++) {
+            if (matches.get(i) != null) {
+                result.put(entries.get(i).cve, matches.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sorts the list of boundaries.
+     *
+     * @param boundaries the boundaries to sort
+     * @return the sorted array of boundaries
+     */
+    private static Boundary[] sort(List<Boundary> boundaries) {
+        final Boundary[] sorted = boundaries.toArray(new Boundary[boundaries.size()]);
+        Arrays.sort(sorted, BOUNDARY_ORDER);
+        return sorted;
+    }
+
+    /**
+     * Returns the index of the first boundary that is greater than or equal to
+     * the given version.
+     *
+     * @param sorted the sorted boundaries
+     * @param parts the numeric version parts
+     * @return the index of the first boundary that is greater than or equal to
+     * the version; the length of the array if there is none
+     */
+    private static int lowerBound(Boundary[] sorted, int[] parts) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (compareParts(sorted[mid].parts, parts) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares two numeric versions in the same manner as
+     * {@link DependencyVersion#compareTo(DependencyVersion)}.
+     *
+     * @param left the left version parts
+     * @param right the right version parts
+     * @return a negative integer, zero, or a positive integer as the left
+     * version is less than, equal to, or greater than the right version
+     */
+    private static int compareParts(int[] left, int[] right) {
+        final int max = Math.min(left.length, right.length);
+        for (int i = 0; i < max; i++) {
+            if (left[i] != right[i]) {
+                return left[i] < right[i] ? -1 : 1;
+            }
+        }
+        return left.length - right.length;
+    }
+
+    /**
+     * Converts the version into numeric parts.
+     *
+     * @param version the version
+     * @return the numeric version parts; or <code>null</code> if the version
+     * contains parts that are not integers
+     */
+    private static int[] toNumericParts(DependencyVersion version) {
+        final List<String> versionParts = version.getVersionParts();
+        final int[] parts = new int[versionParts.size()];
+        for (int i = 0; i < parts.length; i++) {
+            final String part = versionParts.get(i);
+            if (part.isEmpty()) {
+                return null;
+            }
+            for (int c = 0; c < part.length(); c++) {
+                if (!Character.isDigit(part.charAt(c))) {
+                    return null;
+                }
+            }
+            try {
+                parts[i] = Integer.parseInt(part);
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * Removes the trailing zero parts of the version; versions that are equal
+     * per {@link DependencyVersion#equals(Object)} have the same normalized
+     * form.
+     *
+     * @param version the version
+     * @return the normalized version parts
+     */
+    private static List<String> normalize(DependencyVersion version) {
+        final List<String> parts = version.getVersionParts();
+        int length = parts.size();
+        while (length > 1 && "0".equals(parts.get(length - 1))) {
+            length--;
+        }
+        return parts.subList(0, length);
+    }
+
+    /**
+     * The precompiled vulnerable software of a single CVE entry.
+     */
+    private static final class CveSoftware {
+
+        /**
+         * The position of the CVE entry within the index.
+         */
+        private final int ordinal;
+        /**
+         * The CVE entry.
+         */
+        private final String cve;
+        /**
+         * The software entry affecting all versions; <code>null</code> if
+         * there is none.
+         */
+        private Entry<String, Boolean> allVersions;
+        /**
+         * The first software entry affecting all previous versions;
+         * <code>null</code> if there is none.
+         */
+        private Entry<String, Boolean> anyPrevious;
+        /**
+         * The explicitly listed versions.
+         */
+        private final List<VersionEntry> versions = new ArrayList<>();
+        /**
+         * The "all previous versions" boundaries.
+         */
+        private final List<VersionEntry> previousVersions = new ArrayList<>();
+        /**
+         * The major versions of the "all previous versions" boundaries.
+         */
+        private final Set<String> majorVersionsAffectingAllPrevious = new HashSet<>();
+        /**
+         * Whether or not any of the "all previous versions" boundaries are not
+         * numeric.
+         */
+        private boolean isIrregular;
+        /**
+         * The highest numeric "all previous versions" boundary.
+         */
+        private Boundary highest;
+        /**
+         * The highest numeric "all previous versions" boundary keyed by major
+         * version.
+         */
+        private final Map<String, Boundary> highestByMajorVersion = new HashMap<>();
+
+        /**
+         * Parses the vulnerable software of a CVE entry.
+         *
+         * @param ordinal the position of the CVE entry within the index
+         * @param cve the CVE entry
+         * @param software the vulnerable software mapped to a flag indicating
+         * if all previous versions are affected
+         */
+        CveSoftware(int ordinal, String cve, Map<String, Boolean> software) {
+            this.ordinal = ordinal;
+            this.cve = cve;
+            for (Entry<String, Boolean> cpe : software.entrySet()) {
+                final Entry<String, Boolean> entry = new SimpleImmutableEntry<>(cpe.getKey(), cpe.getValue());
+                final DependencyVersion v = CveDB.parseDependencyVersion(cpe.getKey());
+                if (v == null || "-".equals(v.toString())) {
+                    if (allVersions == null) {
+                        allVersions = entry;
+                    }
+                    continue;
+                }
+                final VersionEntry versionEntry = new VersionEntry(this, entry, v);
+                if (!cpe.getValue()) {
+                    versions.add(versionEntry);
+                    continue;
+                }
+                if (anyPrevious == null) {
+                    anyPrevious = entry;
+                }
+                previousVersions.add(versionEntry);
+                final String major = v.getVersionParts().get(0);
+                majorVersionsAffectingAllPrevious.add(major);
+                final int[] parts = toNumericParts(v);
+                if (parts == null) {
+                    isIrregular = true;
+                    continue;
+                }
+                final Boundary boundary = new Boundary(this, entry, parts);
+                if (highest == null || compareParts(highest.parts, parts) < 0) {
+                    highest = boundary;
+                }
+                final Boundary highestForMajor = highestByMajorVersion.get(major);
+                if (highestForMajor == null || compareParts(highestForMajor.parts, parts) < 0) {
+                    highestByMajorVersion.put(major, boundary);
+                }
+            }
+        }
+
+        /**
+         * Determines if the identified version is affected by this CVE entry
+         * by evaluating each of the vulnerable software entries.
+         *
+         * @param identifiedVersion the identified version
+         * @param isVersionTwoADifferentProduct whether or not only boundaries
+         * of the same major version are considered
+         * @return the matching software entry; or <code>null</code> if the
+         * version is not affected
+         */
+        Entry<String, Boolean> getMatchingSoftware(DependencyVersion identifiedVersion, boolean isVersionTwoADifferentProduct) {
+            if (allVersions != null) {
+                return allVersions;
+            }
+            if (identifiedVersion == null || "-".equals(identifiedVersion.toString())) {
+                return anyPrevious;
+            }
+            final String major = identifiedVersion.getVersionParts().get(0);
+            final boolean canSkipVersions = majorVersionsAffectingAllPrevious.contains(major)
+                    && majorVersionsAffectingAllPrevious.size() > 1;
+            for (VersionEntry v : versions) {
+                if (canSkipVersions && !major.equals(v.version.getVersionParts().get(0))) {
+                    continue;
+                }
+                if (identifiedVersion.equals(v.version)) {
+                    return v.entry;
+                }
+            }
+            for (VersionEntry v : previousVersions) {
+                final boolean sameMajor = major.equals(v.version.getVersionParts().get(0));
+                if (canSkipVersions && !sameMajor) {
+                    continue;
+                }
+                if (identifiedVersion.compareTo(v.version) <= 0 && !(isVersionTwoADifferentProduct && !sameMajor)) {
+                    return v.entry;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A vulnerable software entry along with its parsed version.
+     */
+    private static final class VersionEntry {
+
+        /**
+         * The CVE entry the software belongs to.
+         */
+        private final CveSoftware owner;
+        /**
+         * The software entry; the CPE and the "all previous versions" flag.
+         */
+        private final Entry<String, Boolean> entry;
+        /**
+         * The parsed version.
+         */
+        private final DependencyVersion version;
+
+        /**
+         * Constructs a new version entry.
+         *
+         * @param owner the CVE entry the software belongs to
+         * @param entry the software entry
+         * @param version the parsed version
+         */
+        VersionEntry(CveSoftware owner, Entry<String, Boolean> entry, DependencyVersion version) {
+            this.owner = owner;
+            this.entry = entry;
+            this.version = version;
+        }
+    }
+
+    /**
+     * A numeric "all previous versions" boundary.
+     */
+    private static final class Boundary {
+
+        /**
+         * The CVE entry the boundary belongs to.
+         */
+        private final CveSoftware owner;
+        /**
+         * The software entry; the CPE and the "all previous versions" flag.
+         */
+        private final Entry<String, Boolean> entry;
+        /**
+         * The numeric version parts.
+         */
+        private final int[] parts;
+
+        /**
+         * Constructs a new boundary.
+         *
+         * @param owner the CVE entry the boundary belongs to
+         * @param entry the software entry
+         * @param parts the numeric version parts
+         */
+        Boundary(CveSoftware owner, Entry<String, Boolean> entry, int[] parts) {
+            this.owner = owner;
+            this.entry = entry;
+            this.parts = parts;
+        }
+    }
+}
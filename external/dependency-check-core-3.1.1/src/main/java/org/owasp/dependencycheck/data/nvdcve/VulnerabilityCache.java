@@ -0,0 +1,288 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.nvdcve;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.ThreadSafe;
+import org.owasp.dependencycheck.dependency.Vulnerability;
+
+/**
+ * A bounded cache of hydrated vulnerabilities keyed by CVE entry. The same
+ * vulnerability is frequently matched by many different CPE strings (e.g. every
+ * version of a library); this cache allows the vulnerability to be loaded from
+ * the database once and reused.
+ * <p>
+ * The cache is bounded by weight, where the weight of an entry is one plus the
+ * number of references and vulnerable software entries it holds; the least
+ * recently used entries are evicted first. Invalidation of the entire cache is
+ * performed by advancing a generation counter so that stale entries are simply
+ * ignored and evicted lazily.</p>
+ * <p>
+ * Because callers modify the returned vulnerabilities (e.g. by setting the
+ * matched CPE) the cache only ever hands out copies.</p>
+ */
+@ThreadSafe
+public final class VulnerabilityCache {
+
+    /**
+     * The maximum weight of the cache.
+     */
+    private final long maxWeight;
+    /**
+     * The cached entries in access order.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    /**
+     * The current weight of the cache.
+     */
+    private long weight = 0;
+    /**
+     * The current generation; entries from older generations are stale.
+     */
+    private long generation = 0;
+    /**
+     * The number of cache hits.
+     */
+    private final AtomicLong hits = new AtomicLong();
+    /**
+     * The number of cache misses.
+     */
+    private final AtomicLong misses = new AtomicLong();
+    /**
+     * The number of entries evicted to stay within the weight bound.
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructs a new vulnerability cache.
+     *
+     * @param maxWeight the maximum weight of the cache; a value less than one
+     * disables caching
+     */
+    public VulnerabilityCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Returns a copy of the cached vulnerability for the given CVE.
+     *
+     * @param cve the CVE entry
+     * @return a copy of the cached vulnerability or <code>null</code> if the
+     * CVE is not cached
+     */
+    public Vulnerability get(String cve) {
+        final Vulnerability cached;
+        synchronized (this) {
+            final Entry entry = entries.get(cve);
+            if (entry == null) {
+                cached = null;
+            } else if (entry.generation != generation) {
+                remove(cve);
+                cached = null;
+            } else {
+                cached = entry.vulnerability;
+            }
+        }
+        if (cached == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return copy(cached);
+    }
+
+    /**
+     * Adds a vulnerability to the cache. The cache retains its own copy so that
+     * later changes to the given object are not reflected in the cache.
+     *
+     * @param vulnerability the vulnerability to cache
+     */
+    public void put(Vulnerability vulnerability) {
+        if (maxWeight < 1) {
+            return;
+        }
+        final Entry entry = new Entry(copy(vulnerability));
+        if (entry.weight > maxWeight) {
+            return;
+        }
+        synchronized (this) {
+            entry.generation = generation;
+            final Entry previous = entries.put(vulnerability.getName(), entry);
+            if (previous != null) {
+                weight -= previous.weight;
+            }
+            weight += entry.weight;
+            final Iterator<Map.Entry<String, Entry>> itr = entries.entrySet().iterator();
+            while (weight > maxWeight && itr.hasNext()) {
+                final Entry eldest = itr.next().getValue();
+                itr.remove();
+                weight -= eldest.weight;
+                if (eldest.generation == generation) {
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a single CVE entry from the cache.
+     *
+     * @param cve the CVE entry to remove
+     */
+    public synchronized void invalidate(String cve) {
+        remove(cve);
+    }
+
+    /**
+     * Invalidates every entry in the cache by advancing the generation.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+    }
+
+    /**
+     * Removes the given entry and adjusts the cache weight; the caller must
+     * hold the monitor.
+     *
+     * @param cve the CVE entry to remove
+     */
+    private void remove(String cve) {
+        final Entry removed = entries.remove(cve);
+        if (removed != null) {
+            weight -= removed.weight;
+        }
+    }
+
+    /**
+     * Returns the number of entries currently held by the cache, including
+     * stale entries that have not yet been evicted.
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the current weight of the cache.
+     *
+     * @return the current weight
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Returns the number of cache hits.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of cache misses.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of entries evicted to keep the cache within its
+     * weight bound.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns a summary of the cache statistics.
+     *
+     * @return a summary of the cache statistics
+     */
+    @Override
+    public String toString() {
+        return String.format("VulnerabilityCache{size=%d, weight=%d/%d, hits=%d, misses=%d, evictions=%d}",
+                size(), getWeight(), maxWeight, getHitCount(), getMissCount(), getEvictionCount());
+    }
+
+    /**
+     * Creates a copy of the vulnerability; the references and vulnerable
+     * software collections are copied while their elements are shared.
+     *
+     * @param v the vulnerability to copy
+     * @return the copy
+     */
+    private static Vulnerability copy(Vulnerability v) {
+        final Vulnerability copy = new Vulnerability();
+        copy.setName(v.getName());
+        copy.setDescription(v.getDescription());
+        copy.setCwe(v.getCwe());
+        copy.setCvssScore(v.getCvssScore());
+        copy.setCvssAccessVector(v.getCvssAccessVector());
+        copy.setCvssAccessComplexity(v.getCvssAccessComplexity());
+        copy.setCvssAuthentication(v.getCvssAuthentication());
+        copy.setCvssConfidentialityImpact(v.getCvssConfidentialityImpact());
+        copy.setCvssIntegrityImpact(v.getCvssIntegrityImpact());
+        copy.setCvssAvailabilityImpact(v.getCvssAvailabilityImpact());
+        copy.setReferences(new HashSet<>(v.getReferences()));
+        copy.setVulnerableSoftware(new HashSet<>(v.getVulnerableSoftware()));
+        copy.setMatchedCPE(v.getMatchedCPE(), v.getMatchedAllPreviousCPE());
+        copy.setNotes(v.getNotes());
+        copy.setSource(v.getSource());
+        return copy;
+    }
+
+    /**
+     * A cached vulnerability along with its weight and generation.
+     */
+    private static final class Entry {
+
+        /**
+         * The cached vulnerability.
+         */
+        private final Vulnerability vulnerability;
+        /**
+         * The weight of the entry.
+         */
+        private final long weight;
+        /**
+         * The generation in which the entry was cached.
+         */
+        private long generation;
+
+        /**
+         * Constructs a new cache entry.
+         *
+         * @param vulnerability the cached vulnerability
+         */
+        Entry(Vulnerability vulnerability) {
+            this.vulnerability = vulnerability;
+            this.weight = 1L + vulnerability.getReferences().size() + vulnerability.getVulnerableSoftware().size();
+        }
+    }
+}
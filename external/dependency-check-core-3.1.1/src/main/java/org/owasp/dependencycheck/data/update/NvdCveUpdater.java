@@ -39,9 +39,8 @@ import org.owasp.dependencycheck.data.nvdcve.DatabaseProperties;
 import static org.owasp.dependencycheck.data.nvdcve.DatabaseProperties.MODIFIED;
 import org.owasp.dependencycheck.data.update.exception.InvalidDataException;
 import org.owasp.dependencycheck.data.update.exception.UpdateException;
-import org.owasp.dependencycheck.data.update.nvd.DownloadTask;
+import org.owasp.dependencycheck.data.update.nvd.ImportPipeline;
 import org.owasp.dependencycheck.data.update.nvd.NvdCveInfo;
-import org.owasp.dependencycheck.data.update.nvd.ProcessTask;
 import org.owasp.dependencycheck.data.update.nvd.UpdateableNvdCve;
 import org.owasp.dependencycheck.utils.DateUtil;
 import org.owasp.dependencycheck.utils.Downloader;
@@ -242,51 +241,8 @@ public class NvdCveUpdater implements CachedWebDataSource {
             LOGGER.info("NVD CVE requires several updates; this could take a couple of minutes.");
         }
 
-        final Set<Future<Future<ProcessTask>>> downloadFutures = new HashSet<>(maxUpdates);
-        for (NvdCveInfo cve : updateable) {
-            if (cve.getNeedsUpdate()) {
-                final DownloadTask call = new DownloadTask(cve, processingExecutorService, cveDb, settings);
-                downloadFutures.add(downloadExecutorService.submit(call));
-            }
-        }
-
-        //next, move the future future processTasks to just future processTasks
-        final Set<Future<ProcessTask>> processFutures = new HashSet<>(maxUpdates);
-        for (Future<Future<ProcessTask>> future : downloadFutures) {
-            Future<ProcessTask> task;
-            try {
-                task = future.get();
-            } catch (InterruptedException ex) {
-                LOGGER.debug("Thread was interrupted during download", ex);
-                Thread.currentThread().interrupt();
-                throw new UpdateException("The download was interrupted", ex);
-            } catch (ExecutionException ex) {
-                LOGGER.debug("Thread was interrupted during download execution", ex);
-                throw new UpdateException("The execution of the download was interrupted", ex);
-            }
-            if (task == null) {
-                LOGGER.debug("Thread was interrupted during download");
-                throw new UpdateException("The download was interrupted; unable to complete the update");
-            } else {
-                processFutures.add(task);
-            }
-        }
-
-        for (Future<ProcessTask> future : processFutures) {
-            try {
-                final ProcessTask task = future.get();
-                if (task.getException() != null) {
-                    throw task.getException();
-                }
-            } catch (InterruptedException ex) {
-                LOGGER.debug("Thread was interrupted during processing", ex);
-                Thread.currentThread().interrupt();
-                throw new UpdateException(ex);
-            } catch (ExecutionException ex) {
-                LOGGER.debug("Execution Exception during process", ex);
-                throw new UpdateException(ex);
-            }
-        }
+        final ImportPipeline pipeline = new ImportPipeline(cveDb, settings, downloadExecutorService, processingExecutorService);
+        pipeline.execute(updateable);
 
         //always true because <=0 exits early above
         //if (maxUpdates >= 1) {
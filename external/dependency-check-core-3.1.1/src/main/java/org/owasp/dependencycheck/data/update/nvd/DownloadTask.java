@@ -141,6 +141,24 @@ public class DownloadTask implements Callable<Future<ProcessTask>> {
 
     @Override
     public Future<ProcessTask> call() throws Exception {
+        try {
+            if (!download() || this.processorService == null) {
+                return null;
+            }
+            final ProcessTask task = new ProcessTask(cveDB, this, settings);
+            return this.processorService.submit(task);
+        } finally {
+            settings.cleanup(false);
+        }
+    }
+
+    /**
+     * Downloads, and if necessary extracts, the NVD CVE files.
+     *
+     * @return <code>true</code> if the files were downloaded; otherwise
+     * <code>false</code>
+     */
+    public boolean download() {
         try {
             final URL url1 = new URL(nvdCveInfo.getUrl());
             final URL url2 = new URL(nvdCveInfo.getOldSchemaVersionUrl());
@@ -156,7 +174,7 @@ public class DownloadTask implements Callable<Future<ProcessTask>> {
                     LOGGER.info("If you are behind a proxy you may need to configure dependency-check to use the proxy.");
                 }
                 LOGGER.debug("", ex);
-                return null;
+                return false;
             }
             if (url1.toExternalForm().endsWith(".xml.gz") && !isXml(first)) {
                 ExtractionUtil.extractGzip(first);
@@ -167,19 +185,12 @@ public class DownloadTask implements Callable<Future<ProcessTask>> {
 
             LOGGER.info("Download Complete for NVD CVE - {}  ({} ms)", nvdCveInfo.getId(),
                     System.currentTimeMillis() - startDownload);
-            if (this.processorService == null) {
-                return null;
-            }
-            final ProcessTask task = new ProcessTask(cveDB, this, settings);
-            return this.processorService.submit(task);
-
+            return true;
         } catch (Throwable ex) {
             LOGGER.warn("An exception occurred downloading NVD CVE - {}\nSome CVEs may not be reported.", nvdCveInfo.getId());
             LOGGER.debug("Download Task Failed", ex);
-        } finally {
-            settings.cleanup(false);
         }
-        return null;
+        return false;
     }
 
     /**
@@ -0,0 +1,632 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.update.nvd;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import org.owasp.dependencycheck.data.nvdcve.CveDB;
+import org.owasp.dependencycheck.data.nvdcve.DatabaseException;
+import org.owasp.dependencycheck.data.nvdcve.DatabaseProperties;
+import org.owasp.dependencycheck.data.update.exception.UpdateException;
+import org.owasp.dependencycheck.dependency.Vulnerability;
+import org.owasp.dependencycheck.dependency.VulnerableSoftware;
+import org.owasp.dependencycheck.utils.Settings;
+import org.owasp.dependencycheck.utils.XmlUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+
+/**
+ * Imports the NVD CVE data files using a staged pipeline. The files are
+ * downloaded on the download executor; as each download completes the files
+ * are parsed on the processing executor and the parsed vulnerabilities are
+ * placed on a bounded queue. A single writer drains the queue and writes the
+ * vulnerabilities to the database in batches, each batch within a single
+ * transaction.
+ * <p>
+ * The bounded queue applies back pressure to the parsers so that the memory
+ * used by an import does not depend on the size of the data files; the single
+ * writer avoids contention on the database connection.</p>
+ */
+@ThreadSafe
+public class ImportPipeline {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImportPipeline.class);
+    /**
+     * The settings key for the maximum number of parsed vulnerabilities
+     * waiting to be written to the database.
+     */
+    public static final String QUEUE_SIZE = "cve.import.queuesize";
+    /**
+     * The settings key for the number of vulnerabilities written to the
+     * database within a single transaction.
+     */
+    public static final String BATCH_SIZE = "cve.import.batchsize";
+    /**
+     * The default queue size.
+     */
+    private static final int DEFAULT_QUEUE_SIZE = 1000;
+    /**
+     * The default batch size.
+     */
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    /**
+     * The number of milliseconds a parser waits on a full queue before
+     * checking if the import has been aborted.
+     */
+    private static final long OFFER_TIMEOUT = 100;
+    /**
+     * The item used to signal the writer that no more items will be queued.
+     */
+    private static final Item POISON = new Item(null, null, null);
+    /**
+     * A reference to the CveDB.
+     */
+    private final CveDB cveDB;
+    /**
+     * A reference to the database properties.
+     */
+    private final DatabaseProperties properties;
+    /**
+     * A reference to the global settings object.
+     */
+    private final Settings settings;
+    /**
+     * The executor used to download the data files.
+     */
+    private final ExecutorService downloadExecutorService;
+    /**
+     * The executor used to parse the data files.
+     */
+    private final ExecutorService processingExecutorService;
+    /**
+     * The queue of parsed vulnerabilities waiting to be written.
+     */
+    private final BlockingQueue<Item> queue;
+    /**
+     * The number of vulnerabilities written within a single transaction.
+     */
+    private final int batchSize;
+    /**
+     * Set when the import has failed so that the parsers stop producing.
+     */
+    private volatile boolean aborted = false;
+    /**
+     * Set once the writer has stopped draining the queue; producers must no
+     * longer block on the queue.
+     */
+    private volatile boolean writerDone = false;
+    /**
+     * The first failure seen by the writer.
+     */
+    private volatile UpdateException failure;
+    /**
+     * The number of data files downloaded.
+     */
+    private final AtomicLong filesDownloaded = new AtomicLong();
+    /**
+     * The number of vulnerabilities parsed.
+     */
+    private final AtomicLong entriesParsed = new AtomicLong();
+    /**
+     * The number of vulnerabilities written.
+     */
+    private final AtomicLong entriesWritten = new AtomicLong();
+    /**
+     * The number of vulnerabilities skipped because they had not changed.
+     */
+    private final AtomicLong entriesUnchanged = new AtomicLong();
+    /**
+     * The number of batches written.
+     */
+    private final AtomicLong batchesWritten = new AtomicLong();
+    /**
+     * The total time spent downloading in milliseconds.
+     */
+    private final AtomicLong downloadTime = new AtomicLong();
+    /**
+     * The total time spent parsing in milliseconds.
+     */
+    private final AtomicLong parseTime = new AtomicLong();
+    /**
+     * The total time spent writing in milliseconds.
+     */
+    private final AtomicLong writeTime = new AtomicLong();
+    /**
+     * The total time the parsers spent waiting on a full queue in
+     * milliseconds.
+     */
+    private final AtomicLong producerWaitTime = new AtomicLong();
+
+    /**
+     * Constructs a new import pipeline.
+     *
+     * @param cveDB the data store object
+     * @param settings a reference to the global settings object
+     * @param downloadExecutorService the executor used to download the data
+     * files
+     * @param processingExecutorService the executor used to parse the data
+     * files
+     */
+    public ImportPipeline(CveDB cveDB, Settings settings, ExecutorService downloadExecutorService,
+            ExecutorService processingExecutorService) {
+        this.cveDB = cveDB;
+        this.properties = cveDB.getDatabaseProperties();
+        this.settings = settings;
+        this.downloadExecutorService = downloadExecutorService;
+        this.processingExecutorService = processingExecutorService;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, settings.getInt(QUEUE_SIZE, DEFAULT_QUEUE_SIZE)));
+        this.batchSize = Math.max(1, settings.getInt(BATCH_SIZE, DEFAULT_BATCH_SIZE));
+    }
+
+    /**
+     * Downloads, parses, and imports the NVD CVE data files that need to be
+     * updated.
+     *
+     * @param updateable the NVD CVE data files
+     * @throws UpdateException thrown if any of the data files could not be
+     * downloaded or imported
+     */
+    public void execute(Iterable<NvdCveInfo> updateable) throws UpdateException {
+        final long start = System.currentTimeMillis();
+        final CompletionService<DownloadTask> downloads = new ExecutorCompletionService<>(downloadExecutorService);
+        int count = 0;
+        for (NvdCveInfo cve : updateable) {
+            if (cve.getNeedsUpdate()) {
+                downloads.submit(new Download(new DownloadTask(cve, null, cveDB, settings)));
+                count += 1;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        final ExecutorService writerExecutorService = Executors.newSingleThreadExecutor();
+        final Future<Void> writer = writerExecutorService.submit(new Writer());
+        try {
+            final List<Future<Void>> parsers = new ArrayList<>(count);
+            try {
+                int taken = 0;
+                try {
+                    while (taken < count) {
+                        final Future<DownloadTask> download = downloads.take();
+                        taken += 1;
+                        final DownloadTask task = download.get();
+                        if (task == null) {
+                            throw new UpdateException("The download was interrupted; unable to complete the update");
+                        }
+                        parsers.add(processingExecutorService.submit(new Parser(task)));
+                    }
+                } finally {
+                    if (parsers.size() < count) {
+                        aborted = true;
+                        discardDownloads(downloads, count - taken);
+                    }
+                }
+            } finally {
+                awaitParsers(parsers);
+                enqueue(POISON);
+            }
+            writer.get();
+        } catch (InterruptedException ex) {
+            aborted = true;
+            LOGGER.debug("Thread was interrupted during the import", ex);
+            Thread.currentThread().interrupt();
+            throw new UpdateException("The import was interrupted", ex);
+        } catch (ExecutionException ex) {
+            aborted = true;
+            LOGGER.debug("Execution Exception during the import", ex);
+            throw new UpdateException(ex);
+        } finally {
+            writerExecutorService.shutdown();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        LOGGER.info("NVD CVE import complete ({} ms): {} files downloaded ({} ms), {} entries parsed ({} ms), "
+                + "{} entries written and {} unchanged in {} batches ({} ms); parsers waited {} ms on the write queue",
+                System.currentTimeMillis() - start, filesDownloaded.get(), downloadTime.get(),
+                entriesParsed.get(), parseTime.get(), entriesWritten.get(), entriesUnchanged.get(),
+                batchesWritten.get(), writeTime.get(), producerWaitTime.get());
+    }
+
+    /**
+     * Waits for the downloads that will not be parsed and deletes their
+     * files.
+     *
+     * @param downloads the downloads
+     * @param remaining the number of downloads that have not been taken
+     */
+    private void discardDownloads(CompletionService<DownloadTask> downloads, int remaining) {
+        for (int i = 0; i < remaining; i++) {
+            try {
+                final DownloadTask task = downloads.take().get();
+                if (task != null) {
+                    task.cleanup();
+                }
+            } catch (ExecutionException ex) {
+                LOGGER.debug("Execution Exception during download", ex);
+            } catch (InterruptedException ex) {
+                LOGGER.debug("Thread was interrupted while discarding the downloads", ex);
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Waits for the submitted parsers to queue their end of file markers.
+     *
+     * @param parsers the submitted parsers
+     * @throws InterruptedException thrown if the thread is interrupted
+     */
+    private void awaitParsers(List<Future<Void>> parsers) throws InterruptedException {
+        for (Future<Void> parser : parsers) {
+            try {
+                parser.get();
+            } catch (ExecutionException ex) {
+                LOGGER.debug("Execution Exception during processing", ex);
+                aborted = true;
+            }
+        }
+    }
+
+    /**
+     * Queues a parsed vulnerability to be written to the database; blocks
+     * while the queue is full.
+     *
+     * @param vulnerability the vulnerability to write
+     * @throws DatabaseException thrown if the import was aborted or
+     * interrupted
+     */
+    public void add(Vulnerability vulnerability) throws DatabaseException {
+        entriesParsed.incrementAndGet();
+        final Item item = new Item(vulnerability, null, null);
+        final long start = System.currentTimeMillis();
+        try {
+            if (aborted || !enqueue(item)) {
+                throw new DatabaseException("The NVD CVE import was aborted");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException("The NVD CVE import was interrupted", ex);
+        } finally {
+            producerWaitTime.addAndGet(System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Places an item on the queue; blocks while the queue is full and the
+     * writer is still draining the queue.
+     *
+     * @param item the item to queue
+     * @return <code>true</code> if the item was queued; <code>false</code> if
+     * the writer has stopped
+     * @throws InterruptedException thrown if the thread is interrupted
+     */
+    private boolean enqueue(Item item) throws InterruptedException {
+        while (!queue.offer(item, OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+            if (writerDone) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of data files downloaded.
+     *
+     * @return the number of data files downloaded
+     */
+    public long getFilesDownloaded() {
+        return filesDownloaded.get();
+    }
+
+    /**
+     * Returns the number of vulnerabilities parsed.
+     *
+     * @return the number of vulnerabilities parsed
+     */
+    public long getEntriesParsed() {
+        return entriesParsed.get();
+    }
+
+    /**
+     * Returns the number of vulnerabilities written to the database.
+     *
+     * @return the number of vulnerabilities written
+     */
+    public long getEntriesWritten() {
+        return entriesWritten.get();
+    }
+
+    /**
+     * Returns the number of vulnerabilities skipped because they had not
+     * changed.
+     *
+     * @return the number of unchanged vulnerabilities
+     */
+    public long getEntriesUnchanged() {
+        return entriesUnchanged.get();
+    }
+
+    /**
+     * Returns the number of batches written to the database.
+     *
+     * @return the number of batches written
+     */
+    public long getBatchesWritten() {
+        return batchesWritten.get();
+    }
+
+    /**
+     * Downloads the data files of a single download task.
+     */
+    private final class Download implements Callable<DownloadTask> {
+
+        /**
+         * The download task.
+         */
+        private final DownloadTask task;
+
+        /**
+         * Constructs a new download.
+         *
+         * @param task the download task
+         */
+        Download(DownloadTask task) {
+            this.task = task;
+        }
+
+        /**
+         * Downloads the data files.
+         *
+         * @return the download task or <code>null</code> if the download
+         * failed
+         */
+        @Override
+        public DownloadTask call() {
+            final long start = System.currentTimeMillis();
+            try {
+                if (aborted || !task.download()) {
+                    task.cleanup();
+                    return null;
+                }
+                filesDownloaded.incrementAndGet();
+                return task;
+            } finally {
+                downloadTime.addAndGet(System.currentTimeMillis() - start);
+                settings.cleanup(false);
+            }
+        }
+    }
+
+    /**
+     * Parses the data files of a single download task and queues the parsed
+     * vulnerabilities, followed by an end of file marker.
+     */
+    private final class Parser implements Callable<Void> {
+
+        /**
+         * The completed download task.
+         */
+        private final DownloadTask task;
+
+        /**
+         * Constructs a new parser.
+         *
+         * @param task the completed download task
+         */
+        Parser(DownloadTask task) {
+            this.task = task;
+        }
+
+        /**
+         * Parses the data files.
+         *
+         * @return <code>null</code>
+         * @throws InterruptedException thrown if the thread is interrupted
+         * while queuing the end of file marker
+         */
+        @Override
+        public Void call() throws InterruptedException {
+            LOGGER.info("Processing Started for NVD CVE - {}", task.getNvdCveInfo().getId());
+            final long start = System.currentTimeMillis();
+            UpdateException exception = null;
+            try {
+                final SAXParser saxParser = XmlUtils.buildSecureSaxParser();
+                final NvdCve12Handler cve12Handler = new NvdCve12Handler();
+                saxParser.parse(task.getSecond(), cve12Handler);
+                final Map<String, List<VulnerableSoftware>> prevVersionVulnMap = cve12Handler.getVulnerabilities();
+
+                final NvdCve20Handler cve20Handler = new NvdCve20Handler();
+                cve20Handler.setImportPipeline(ImportPipeline.this);
+                cve20Handler.setPrevVersionVulnMap(prevVersionVulnMap);
+                saxParser.parse(task.getFirst(), cve20Handler);
+            } catch (ParserConfigurationException | SAXException | IOException | DatabaseException ex) {
+                exception = new UpdateException(ex);
+            } finally {
+                parseTime.addAndGet(System.currentTimeMillis() - start);
+                settings.cleanup(false);
+            }
+            if (!enqueue(new Item(null, task, exception))) {
+                task.cleanup();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Drains the queue and writes the vulnerabilities to the database.
+     */
+    private final class Writer implements Callable<Void> {
+
+        /**
+         * The vulnerabilities waiting to be written.
+         */
+        private final List<Vulnerability> batch = new ArrayList<>(batchSize);
+
+        /**
+         * Drains the queue until the poison item is seen. After a failure the
+         * writer keeps draining the queue, discarding the vulnerabilities, so
+         * that the parsers are not blocked and the files of the parsed
+         * downloads are still deleted.
+         *
+         * @return <code>null</code>
+         * @throws InterruptedException thrown if the writer is interrupted
+         */
+        @Override
+        public Void call() throws InterruptedException {
+            try {
+                Item item = queue.take();
+                while (item != POISON) {
+                    if (item.vulnerability != null) {
+                        if (failure == null) {
+                            batch.add(item.vulnerability);
+                            if (batch.size() >= batchSize) {
+                                flush();
+                            }
+                        }
+                    } else {
+                        completeFile(item);
+                    }
+                    item = queue.take();
+                }
+                flush();
+            } catch (InterruptedException ex) {
+                aborted = true;
+                throw ex;
+            } finally {
+                writerDone = true;
+                settings.cleanup(false);
+            }
+            return null;
+        }
+
+        /**
+         * Handles the end of file marker; once all of the vulnerabilities from
+         * the file have been written the database properties are updated.
+         *
+         * @param item the end of file marker
+         */
+        private void completeFile(Item item) {
+            try {
+                if (item.exception != null) {
+                    fail(item.exception);
+                }
+                flush();
+                if (failure == null) {
+                    properties.save(item.task.getNvdCveInfo());
+                    LOGGER.info("Processing Complete for NVD CVE - {}", item.task.getNvdCveInfo().getId());
+                }
+            } catch (UpdateException ex) {
+                fail(ex);
+            } catch (Throwable ex) {
+                fail(new UpdateException("Unable to complete the import of NVD CVE - "
+                        + item.task.getNvdCveInfo().getId(), ex));
+            } finally {
+                item.task.cleanup();
+            }
+        }
+
+        /**
+         * Writes the pending vulnerabilities to the database.
+         */
+        private void flush() {
+            if (batch.isEmpty() || failure != null) {
+                batch.clear();
+                return;
+            }
+            final long start = System.currentTimeMillis();
+            try {
+                final int changed = cveDB.updateVulnerabilities(batch);
+                entriesWritten.addAndGet(changed);
+                entriesUnchanged.addAndGet(batch.size() - changed);
+                batchesWritten.incrementAndGet();
+            } catch (Throwable ex) {
+                fail(new UpdateException("Unable to write the NVD CVE data to the database", ex));
+            } finally {
+                batch.clear();
+                writeTime.addAndGet(System.currentTimeMillis() - start);
+            }
+        }
+
+        /**
+         * Records the first failure and aborts the import.
+         *
+         * @param ex the failure
+         */
+        private void fail(UpdateException ex) {
+            if (failure == null) {
+                failure = ex;
+            }
+            aborted = true;
+        }
+    }
+
+    /**
+     * An item on the queue; either a parsed vulnerability or the end of file
+     * marker for a download task.
+     */
+    private static final class Item {
+
+        /**
+         * The parsed vulnerability.
+         */
+        private final Vulnerability vulnerability;
+        /**
+         * The download task whose files have been parsed.
+         */
+        private final DownloadTask task;
+        /**
+         * The exception that occurred while parsing the files, if any.
+         */
+        private final UpdateException exception;
+
+        /**
+         * Constructs a new queue item.
+         *
+         * @param vulnerability the parsed vulnerability
+         * @param task the download task whose files have been parsed
+         * @param exception the exception that occurred while parsing, if any
+         */
+        Item(Vulnerability vulnerability, DownloadTask task, UpdateException exception) {
+            this.vulnerability = vulnerability;
+            this.task = task;
+            this.exception = exception;
+        }
+    }
+}
@@ -99,6 +99,11 @@ public class NvdCve20Handler extends DefaultHandler {
      * the cve database.
      */
     private CveDB cveDB;
+    /**
+     * The import pipeline that parsed vulnerabilities are queued to; when set
+     * the vulnerabilities are not written directly to the cveDB.
+     */
+    private ImportPipeline importPipeline;
 
     /**
      * A list of CVE entries and associated VulnerableSoftware entries that
@@ -253,6 +258,15 @@ public class NvdCve20Handler extends DefaultHandler {
         cveDB = db;
     }
 
+    /**
+     * Sets the import pipeline that parsed vulnerabilities are queued to.
+     *
+     * @param pipeline a reference to the import pipeline
+     */
+    public void setImportPipeline(ImportPipeline pipeline) {
+        importPipeline = pipeline;
+    }
+
     /**
      * Sets the prevVersionVulnMap.
      *
@@ -280,7 +294,9 @@ public class NvdCve20Handler extends DefaultHandler {
                 vuln.updateVulnerableSoftware(vs);
             }
         }
-        if (cveDB != null) {
+        if (importPipeline != null) {
+            importPipeline.add(vuln);
+        } else if (cveDB != null) {
             cveDB.updateVulnerability(vuln);
         }
     }
@@ -18,8 +18,12 @@
 package org.owasp.dependencycheck.dependency;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -55,6 +59,10 @@ public class Dependency extends EvidenceCollection implements Serializable {
      * The logger.
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(Dependency.class);
+    /**
+     * The size of the buffer used when reading a file to determine its hashes.
+     */
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
     /**
      * The actual file path of the dependency on disk.
      */
@@ -565,7 +573,8 @@ public class Dependency extends EvidenceCollection implements Serializable {
     }
 
     /**
-     * Determines the SHA1 and MD5 sum for the given file.
+     * Determines the SHA1 and MD5 sum for the given file. The file is read
+     * once and each buffer is fed to both digests.
      *
      * @param file the file to create checksums for
      */
@@ -576,8 +585,20 @@ public class Dependency extends EvidenceCollection implements Serializable {
             return;
         }
         try {
-            md5 = Checksum.getMD5Checksum(file);
-            sha1 = Checksum.getSHA1Checksum(file);
+            final MessageDigest md5Digest = MessageDigest.getInstance("MD5");
+            final MessageDigest sha1Digest = MessageDigest.getInstance("SHA1");
+            try (FileInputStream fis = new FileInputStream(file);
+                    FileChannel ch = fis.getChannel()) {
+                final ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+                while (ch.read(buffer) != -1) {
+                    buffer.flip();
+                    md5Digest.update(buffer.array(), 0, buffer.limit());
+                    sha1Digest.update(buffer.array(), 0, buffer.limit());
+                    buffer.clear();
+                }
+            }
+            md5 = Checksum.getHex(md5Digest.digest());
+            sha1 = Checksum.getHex(sha1Digest.digest());
         } catch (IOException ex) {
             LOGGER.warn("Unable to read '{}' to determine hashes.", file.getName());
             LOGGER.debug("", ex);
@@ -18,13 +18,16 @@
 package org.owasp.dependencycheck.dependency;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.annotation.concurrent.ThreadSafe;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
-import org.owasp.dependencycheck.utils.Filter;
 
 /**
  * Used to maintain a collection of Evidence.
@@ -60,44 +63,13 @@ class EvidenceCollection implements Serializable {
     private final Set<Evidence> versions = new HashSet<>();
 
     /**
-     * Used to iterate over highest confidence evidence contained in the
-     * collection.
+     * An immutable snapshot of the evidence, partitioned by type and
+     * confidence, used so that the evidence can be read without holding the
+     * lock or copying the collections on every call. The snapshot is created
+     * when the evidence is first read and discarded whenever evidence is added
+     * or removed.
      */
-    private static final Filter<Evidence> HIGHEST_CONFIDENCE = new Filter<Evidence>() {
-        @Override
-        public boolean passes(Evidence evidence) {
-            return evidence.getConfidence() == Confidence.HIGHEST;
-        }
-    };
-    /**
-     * Used to iterate over high confidence evidence contained in the
-     * collection.
-     */
-    private static final Filter<Evidence> HIGH_CONFIDENCE = new Filter<Evidence>() {
-        @Override
-        public boolean passes(Evidence evidence) {
-            return evidence.getConfidence() == Confidence.HIGH;
-        }
-    };
-    /**
-     * Used to iterate over medium confidence evidence contained in the
-     * collection.
-     */
-    private static final Filter<Evidence> MEDIUM_CONFIDENCE = new Filter<Evidence>() {
-        @Override
-        public boolean passes(Evidence evidence) {
-            return evidence.getConfidence() == Confidence.MEDIUM;
-        }
-    };
-    /**
-     * Used to iterate over low confidence evidence contained in the collection.
-     */
-    private static final Filter<Evidence> LOW_CONFIDENCE = new Filter<Evidence>() {
-        @Override
-        public boolean passes(Evidence evidence) {
-            return evidence.getConfidence() == Confidence.LOW;
-        }
-    };
+    private transient volatile Snapshot snapshot = null;
 
     /**
      * Used to iterate over evidence of the specified type and confidence.
@@ -107,36 +79,39 @@ class EvidenceCollection implements Serializable {
      * over.
      * @return Iterable&lt;Evidence&gt; an iterable collection of evidence
      */
-    public synchronized Iterable<Evidence> getIterator(EvidenceType type, Confidence confidence) {
+    public Iterable<Evidence> getIterator(EvidenceType type, Confidence confidence) {
         if (null != confidence && null != type) {
-            Set<Evidence> list;
-
-            switch (type) {
-                case VENDOR:
-                    list = Collections.unmodifiableSet(new HashSet<>(vendors));
-                    break;
-                case PRODUCT:
-                    list = Collections.unmodifiableSet(new HashSet<>(products));
-                    break;
-                case VERSION:
-                    list = Collections.unmodifiableSet(new HashSet<>(versions));
-                    break;
-                default:
-                    return null;
+            final Map<Confidence, List<Evidence>> byConfidence = getSnapshot().byConfidence.get(type);
+            if (byConfidence == null) {
+                return null;
             }
+            final List<Evidence> list = byConfidence.get(confidence);
+            return list == null ? Collections.<Evidence>emptyList() : list;
+        }
+        return null;
+    }
 
-            switch (confidence) {
-                case HIGHEST:
-                    return EvidenceCollection.HIGHEST_CONFIDENCE.filter(list);
-                case HIGH:
-                    return EvidenceCollection.HIGH_CONFIDENCE.filter(list);
-                case MEDIUM:
-                    return EvidenceCollection.MEDIUM_CONFIDENCE.filter(list);
-                default:
-                    return EvidenceCollection.LOW_CONFIDENCE.filter(list);
+    /**
+     * Returns the current snapshot of the evidence, creating it if the evidence
+     * has changed since the last snapshot was taken.
+     *
+     * @return the snapshot of the evidence
+     */
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = new Snapshot();
+                    current.add(EvidenceType.VENDOR, vendors);
+                    current.add(EvidenceType.PRODUCT, products);
+                    current.add(EvidenceType.VERSION, versions);
+                    snapshot = current;
+                }
             }
         }
-        return null;
+        return current;
     }
 
     /**
@@ -160,6 +135,7 @@ class EvidenceCollection implements Serializable {
                 default:
                     break;
             }
+            snapshot = null;
         }
     }
 
@@ -184,6 +160,7 @@ class EvidenceCollection implements Serializable {
                 default:
                     break;
             }
+            snapshot = null;
         }
     }
 
@@ -268,18 +245,9 @@ class EvidenceCollection implements Serializable {
      * @param type the type of evidence (vendor, product, version)
      * @return the unmodifiable set of evidence
      */
-    public synchronized Set<Evidence> getEvidence(EvidenceType type) {
+    public Set<Evidence> getEvidence(EvidenceType type) {
         if (null != type) {
-            switch (type) {
-                case VENDOR:
-                    return Collections.unmodifiableSet(new HashSet<>(vendors));
-                case PRODUCT:
-                    return Collections.unmodifiableSet(new HashSet<>(products));
-                case VERSION:
-                    return Collections.unmodifiableSet(new HashSet<>(versions));
-                default:
-                    break;
-            }
+            return getSnapshot().byType.get(type);
         }
         return null;
     }
@@ -314,30 +282,12 @@ class EvidenceCollection implements Serializable {
      * @param confidence A Confidence value.
      * @return boolean.
      */
-    public synchronized boolean contains(EvidenceType type, Confidence confidence) {
-        if (null == type) {
+    public boolean contains(EvidenceType type, Confidence confidence) {
+        if (null == type || null == confidence) {
             return false;
         }
-        Set<Evidence> col;
-        switch (type) {
-            case VENDOR:
-                col = vendors;
-                break;
-            case PRODUCT:
-                col = products;
-                break;
-            case VERSION:
-                col = versions;
-                break;
-            default:
-                return false;
-        }
-        for (Evidence e : col) {
-            if (e.getConfidence().equals(confidence)) {
-                return true;
-            }
-        }
-        return false;
+        final Map<Confidence, List<Evidence>> byConfidence = getSnapshot().byConfidence.get(type);
+        return byConfidence != null && byConfidence.containsKey(confidence);
     }
 
     /**
@@ -399,4 +349,45 @@ class EvidenceCollection implements Serializable {
                 .append(this.versions, other.versions)
                 .isEquals();
     }
+
+    /**
+     * An immutable view of the evidence at a point in time.
+     */
+    private static final class Snapshot {
+
+        /**
+         * The unmodifiable evidence by type.
+         */
+        private final Map<EvidenceType, Set<Evidence>> byType = new EnumMap<>(EvidenceType.class);
+        /**
+         * The unmodifiable evidence by type and confidence; confidence levels
+         * without evidence are not present.
+         */
+        private final Map<EvidenceType, Map<Confidence, List<Evidence>>> byConfidence = new EnumMap<>(EvidenceType.class);
+
+        /**
+         * Adds a copy of the evidence of the given type to the snapshot.
+         *
+         * @param type the type of evidence
+         * @param evidence the evidence of the given type
+         */
+        private void add(EvidenceType type, Set<Evidence> evidence) {
+            byType.put(type, Collections.unmodifiableSet(new HashSet<>(evidence)));
+            final Map<Confidence, List<Evidence>> partitions = new EnumMap<>(Confidence.class);
+            for (Evidence e : evidence) {
+                if (e.getConfidence() != null) {
+                    List<Evidence> list = partitions.get(e.getConfidence());
+                    if (list == null) {
+                        list = new ArrayList<>();
+                        partitions.put(e.getConfidence(), list);
+                    }
+                    list.add(e);
+                }
+            }
+            for (Map.Entry<Confidence, List<Evidence>> entry : partitions.entrySet()) {
+                entry.setValue(Collections.unmodifiableList(entry.getValue()));
+            }
+            byConfidence.put(type, partitions);
+        }
+    }
 }
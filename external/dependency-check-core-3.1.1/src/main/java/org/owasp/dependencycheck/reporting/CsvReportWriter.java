@@ -0,0 +1,109 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.reporting;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.velocity.context.Context;
+import org.owasp.dependencycheck.dependency.Dependency;
+import org.owasp.dependencycheck.dependency.Identifier;
+import org.owasp.dependencycheck.dependency.Vulnerability;
+
+/**
+ * Writes the CSV report, one row per vulnerability. The rows have the same
+ * columns as the ones produced by <code>csvReport.vsl</code>.
+ */
+@NotThreadSafe
+class CsvReportWriter extends StreamingReportWriter {
+
+    /**
+     * The header row of the report.
+     */
+    private static final String HEADER = "\"Project\",\"ScanDate\",\"DependencyName\",\"DependencyPath\",\"Description\","
+            + "\"License\",\"Md5\",\"Sha1\",\"Identifiers\",\"CPE\",\"CVE\",\"CWE\",\"Vulnerability\",\"Source\","
+            + "\"Severity\",\"CVSSv2\",\"Build Coordinates\",\"CPE Confidence\",\"Evidence Count\"";
+    /**
+     * The tool used to escape the values.
+     */
+    private final EscapeTool enc = new EscapeTool();
+
+    /**
+     * Constructs a new CSV report writer.
+     *
+     * @param context the context the report templates are rendered with
+     */
+    CsvReportWriter(Context context) {
+        super(context);
+    }
+
+    @Override
+    void write(Writer writer) throws IOException {
+        writer.write(HEADER);
+        writer.write('\n');
+        final String project = enc.csv(getApplicationName());
+        final String scanDate = enc.csv(getScanDate());
+        final StringBuilder row = new StringBuilder();
+        for (Dependency dependency : getDependencies()) {
+            final Set<Vulnerability> vulnerabilities = dependency.getVulnerabilities(true);
+            if (vulnerabilities.isEmpty()) {
+                continue;
+            }
+            //the dependency columns are the same for each of its vulnerabilities
+            final Set<Identifier> ids = dependency.getIdentifiers();
+            final StringBuilder prefix = new StringBuilder();
+            prefix.append(project).append(',')
+                    .append(scanDate).append(',')
+                    .append(enc.csv(dependency.getDisplayFileName())).append(',')
+                    .append(optional(dependency.getFilePath())).append(',')
+                    .append(optional(dependency.getDescription())).append(',')
+                    .append(optional(dependency.getLicense())).append(',')
+                    .append(optional(dependency.getMd5sum())).append(',')
+                    .append(optional(dependency.getSha1sum())).append(',')
+                    .append(enc.csvIdentifiers(ids)).append(',')
+                    .append(enc.csvCpe(ids)).append(',');
+            final String suffix = ',' + enc.csvGav(ids) + ',' + enc.csvCpeConfidence(ids) + ',' + dependency.size();
+            for (Vulnerability v : vulnerabilities) {
+                row.setLength(0);
+                row.append(prefix)
+                        .append(optional(v.getName())).append(',')
+                        .append(optional(v.getCwe())).append(',')
+                        .append(optional(v.getDescription())).append(',')
+                        .append(v.getSource() == null ? "" : enc.csv(v.getSource().name())).append(',')
+                        .append('"').append(getSeverity(v.getCvssScore())).append("\",")
+                        .append(v.getCvssScore())
+                        .append(suffix)
+                        .append('\n');
+                writer.append(row);
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Escapes an optional value; <code>null</code> is written as an empty
+     * column.
+     *
+     * @param text the value
+     * @return the escaped value
+     */
+    private String optional(String text) {
+        return text == null ? "" : enc.csv(text);
+    }
+}
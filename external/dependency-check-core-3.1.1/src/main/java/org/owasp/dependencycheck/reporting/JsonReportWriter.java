@@ -0,0 +1,272 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.reporting;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.velocity.context.Context;
+import org.owasp.dependencycheck.dependency.Dependency;
+import org.owasp.dependencycheck.dependency.Evidence;
+import org.owasp.dependencycheck.dependency.EvidenceType;
+import org.owasp.dependencycheck.dependency.Identifier;
+import org.owasp.dependencycheck.dependency.Reference;
+import org.owasp.dependencycheck.dependency.Vulnerability;
+import org.owasp.dependencycheck.dependency.VulnerableSoftware;
+
+/**
+ * Writes the JSON report; the report is pretty printed as it is written so
+ * that it does not need to be re-read and reformatted. The document has the
+ * same structure as the one produced by <code>jsonReport.vsl</code>.
+ */
+@NotThreadSafe
+class JsonReportWriter extends StreamingReportWriter {
+
+    /**
+     * Constructs a new JSON report writer.
+     *
+     * @param context the context the report templates are rendered with
+     */
+    JsonReportWriter(Context context) {
+        super(context);
+    }
+
+    @Override
+    void write(Writer writer) throws IOException {
+        final JsonWriter json = new JsonWriter(writer);
+        json.setIndent("  ");
+        json.beginObject();
+        json.name("reportSchema").value("1.1");
+
+        json.name("scanInfo").beginObject();
+        json.name("engineVersion").value(nullToEmpty(getEngineVersion()));
+        json.name("dataSource").beginArray();
+        for (Map.Entry<String, String> entry : getDataSources().entrySet()) {
+            json.beginObject();
+            json.name("name").value(nullToEmpty(entry.getKey()));
+            json.name("timestamp").value(nullToEmpty(entry.getValue()));
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+
+        json.name("projectInfo").beginObject();
+        json.name("name").value(nullToEmpty(getApplicationName()));
+        writeIfNotNull(json, "groupID", getGroupID());
+        writeIfNotNull(json, "artifactID", getArtifactID());
+        writeIfNotNull(json, "version", getApplicationVersion());
+        json.name("reportDate").value(nullToEmpty(getScanDateXML()));
+        json.name("credits").beginObject();
+        json.name("NVD").value("This report contains data retrieved from the National Vulnerability Database: http://nvd.nist.gov");
+        json.name("NSP").value("This report may contain data retrieved from the Node Security Platform: https://nodesecurity.io");
+        json.endObject();
+        json.endObject();
+
+        json.name("dependencies").beginArray();
+        for (Dependency dependency : getDependencies()) {
+            writeDependency(json, dependency);
+            //write each dependency through so that the buffered output stays small
+            json.flush();
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    /**
+     * Writes a dependency.
+     *
+     * @param json the JSON writer
+     * @param dependency the dependency
+     * @throws IOException thrown if the dependency cannot be written
+     */
+    private void writeDependency(JsonWriter json, Dependency dependency) throws IOException {
+        json.beginObject();
+        json.name("isVirtual").value(dependency.isVirtual());
+        json.name("fileName").value(nullToEmpty(dependency.getDisplayFileName()));
+        json.name("filePath").value(nullToEmpty(dependency.getFilePath()));
+        json.name("md5").value(nullToEmpty(dependency.getMd5sum()));
+        json.name("sha1").value(nullToEmpty(dependency.getSha1sum()));
+        writeIfNotNull(json, "description", dependency.getDescription());
+        writeIfNotNull(json, "license", dependency.getLicense());
+
+        final Set<Dependency> related = dependency.getRelatedDependencies();
+        if (!related.isEmpty()) {
+            json.name("relatedDependencies").beginArray();
+            for (Dependency r : related) {
+                json.beginObject();
+                json.name("isVirtual").value(r.isVirtual());
+                json.name("filePath").value(nullToEmpty(r.getFilePath()));
+                json.name("sha1").value(nullToEmpty(r.getSha1sum()));
+                json.name("md5").value(nullToEmpty(r.getMd5sum()));
+                json.name("identifiers").beginArray();
+                for (Identifier id : r.getIdentifiers()) {
+                    if ("maven".equals(id.getType()) || "npm".equals(id.getType())) {
+                        json.beginObject();
+                        json.name("type").value(nullToEmpty(id.getType()));
+                        json.name("id").value(nullToEmpty(id.getValue()));
+                        writeIfNotNull(json, "url", id.getUrl());
+                        writeIfNotNull(json, "notes", id.getNotes());
+                        writeIfNotNull(json, "description", id.getDescription());
+                        json.endObject();
+                    }
+                }
+                json.endArray();
+                json.endObject();
+            }
+            json.endArray();
+        }
+
+        json.name("evidenceCollected").beginObject();
+        writeEvidence(json, "vendorEvidence", "vendor", dependency.getEvidence(EvidenceType.VENDOR));
+        writeEvidence(json, "productEvidence", "product", dependency.getEvidence(EvidenceType.PRODUCT));
+        writeEvidence(json, "versionEvidence", "version", dependency.getEvidence(EvidenceType.VERSION));
+        json.endObject();
+
+        writeIdentifiers(json, "identifiers", dependency.getIdentifiers());
+        writeIdentifiers(json, "suppressedIdentifiers", dependency.getSuppressedIdentifiers());
+        writeVulnerabilities(json, "vulnerabilities", "software", dependency.getVulnerabilities(true));
+        writeVulnerabilities(json, "suppressedVulnerabilities", "name", dependency.getSuppressedVulnerabilities(true));
+        json.endObject();
+    }
+
+    /**
+     * Writes the evidence of a given type.
+     *
+     * @param json the JSON writer
+     * @param name the name of the evidence array
+     * @param type the type of the evidence
+     * @param evidence the evidence
+     * @throws IOException thrown if the evidence cannot be written
+     */
+    private void writeEvidence(JsonWriter json, String name, String type, Set<Evidence> evidence) throws IOException {
+        json.name(name).beginArray();
+        for (Evidence e : evidence) {
+            json.beginObject();
+            json.name("type").value(type);
+            json.name("confidence").value(String.valueOf(e.getConfidence()));
+            json.name("source").value(nullToEmpty(e.getSource()));
+            json.name("name").value(nullToEmpty(e.getName()));
+            json.name("value").value(e.getValue() == null ? "" : e.getValue().trim());
+            json.endObject();
+        }
+        json.endArray();
+    }
+
+    /**
+     * Writes the identifiers; nothing is written if there are no identifiers.
+     *
+     * @param json the JSON writer
+     * @param name the name of the identifier array
+     * @param identifiers the identifiers
+     * @throws IOException thrown if the identifiers cannot be written
+     */
+    private void writeIdentifiers(JsonWriter json, String name, Set<Identifier> identifiers) throws IOException {
+        if (identifiers.isEmpty()) {
+            return;
+        }
+        json.name(name).beginArray();
+        for (Identifier id : identifiers) {
+            json.beginObject();
+            json.name("name").value(nullToEmpty(id.getValue()));
+            json.name("type").value(nullToEmpty(id.getType()));
+            if (id.getConfidence() != null) {
+                json.name("confidence").value(id.getConfidence().toString());
+            }
+            writeIfNotNull(json, "url", id.getUrl());
+            writeIfNotNull(json, "description", id.getDescription());
+            writeIfNotNull(json, "notes", id.getNotes());
+            json.endObject();
+        }
+        json.endArray();
+    }
+
+    /**
+     * Writes the vulnerabilities; nothing is written if there are no
+     * vulnerabilities.
+     *
+     * @param json the JSON writer
+     * @param name the name of the vulnerability array
+     * @param softwareName the name used for the vulnerable software entries
+     * @param vulnerabilities the vulnerabilities
+     * @throws IOException thrown if the vulnerabilities cannot be written
+     */
+    private void writeVulnerabilities(JsonWriter json, String name, String softwareName,
+            Set<Vulnerability> vulnerabilities) throws IOException {
+        if (vulnerabilities.isEmpty()) {
+            return;
+        }
+        json.name(name).beginArray();
+        for (Vulnerability v : vulnerabilities) {
+            json.beginObject();
+            json.name("source").value(String.valueOf(v.getSource()));
+            json.name("name").value(nullToEmpty(v.getName()));
+            json.name("cvssScore").value(String.valueOf(v.getCvssScore()));
+            if (v.getSource() == Vulnerability.Source.NVD) {
+                json.name("cvssAccessVector").value(nullToEmpty(v.getCvssAccessVector()));
+                json.name("cvssAccessComplexity").value(nullToEmpty(v.getCvssAccessComplexity()));
+                json.name("cvssAuthenticationr").value(nullToEmpty(v.getCvssAuthentication()));
+                json.name("cvssConfidentialImpact").value(nullToEmpty(v.getCvssConfidentialityImpact()));
+                json.name("cvssIntegrityImpact").value(nullToEmpty(v.getCvssIntegrityImpact()));
+                json.name("cvssAvailabilityImpact").value(nullToEmpty(v.getCvssAvailabilityImpact()));
+            }
+            json.name("severity").value(getSeverity(v.getCvssScore()));
+            json.name("cwe").value(nullToEmpty(v.getCwe()));
+            json.name("description").value(nullToEmpty(v.getDescription()));
+            json.name("notes").value(nullToEmpty(v.getNotes()));
+            json.name("references").beginArray();
+            for (Reference ref : v.getReferences()) {
+                json.beginObject();
+                json.name("source").value(nullToEmpty(ref.getSource()));
+                json.name("url").value(nullToEmpty(ref.getUrl()));
+                json.name("name").value(nullToEmpty(ref.getName()));
+                json.endObject();
+            }
+            json.endArray();
+            json.name("vulnerableSoftware").beginArray();
+            for (VulnerableSoftware vs : v.getVulnerableSoftware()) {
+                json.beginObject();
+                json.name(softwareName).value(nullToEmpty(vs.getName()));
+                if (vs.hasPreviousVersion()) {
+                    json.name("allPreviousVersion").value("true");
+                }
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+        }
+        json.endArray();
+    }
+
+    /**
+     * Writes the named value if the value is not <code>null</code>.
+     *
+     * @param json the JSON writer
+     * @param name the name
+     * @param value the value
+     * @throws IOException thrown if the value cannot be written
+     */
+    private static void writeIfNotNull(JsonWriter json, String name, String value) throws IOException {
+        if (value != null) {
+            json.name(name).value(value);
+        }
+    }
+}
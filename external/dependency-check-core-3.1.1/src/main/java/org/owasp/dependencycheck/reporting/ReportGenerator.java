@@ -17,11 +17,24 @@
  */
 package org.owasp.dependencycheck.reporting;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -32,6 +45,7 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import javax.annotation.concurrent.NotThreadSafe;
@@ -99,6 +113,32 @@ public class ReportGenerator {
          */
         CSV
     }
+    /**
+     * The settings key for the report formats that are written by a streaming
+     * writer rather than a Velocity template; the JSON, XML and CSV reports
+     * are streamed unless configured otherwise.
+     */
+    public static final String STREAMING_FORMATS = "reporting.streaming.formats";
+    /**
+     * The settings key for the maximum number of reports generated
+     * concurrently when all formats are written; defaults to the number of
+     * available processors. A value of one writes the reports one after
+     * another.
+     */
+    public static final String REPORT_THREADS = "reporting.threads";
+    /**
+     * Orders the dependencies in the reports by their display name and path.
+     */
+    private static final Comparator<Dependency> DEPENDENCY_ORDER = new Comparator<Dependency>() {
+        @Override
+        public int compare(Dependency left, Dependency right) {
+            final int result = compareText(left.getDisplayFileName(), right.getDisplayFileName());
+            if (result != 0) {
+                return result;
+            }
+            return compareText(left.getFilePath(), right.getFilePath());
+        }
+    };
     /**
      * The Velocity Engine.
      */
@@ -189,9 +229,17 @@ public class ReportGenerator {
         final String scanDate = dateFormat.print(dt);
         final String scanDateXML = dateFormatXML.print(dt);
 
+        //all reports are generated from the same sorted snapshot, which may be
+        //read by several report writers concurrently
+        final List<Dependency> snapshot = new ArrayList<>();
+        if (dependencies != null) {
+            snapshot.addAll(dependencies);
+        }
+        Collections.sort(snapshot, DEPENDENCY_ORDER);
+
         final VelocityContext ctxt = new VelocityContext();
         ctxt.put("applicationName", applicationName);
-        ctxt.put("dependencies", dependencies);
+        ctxt.put("dependencies", Collections.unmodifiableList(snapshot));
         ctxt.put("analyzers", analyzers);
         ctxt.put("properties", properties);
         ctxt.put("scanDate", scanDate);
@@ -245,18 +293,157 @@ public class ReportGenerator {
      */
     public void write(String outputLocation, Format format) throws ReportException {
         if (format == Format.ALL) {
-            for (Format f : Format.values()) {
-                if (f != Format.ALL) {
-                    write(outputLocation, f);
-                }
-            }
+            writeAll(outputLocation);
         } else {
             final File out = getReportFile(outputLocation, format);
-            final String templateName = format.toString().toLowerCase() + "Report";
-            processTemplate(templateName, out);
-            if (format == Format.JSON) {
-                pretifyJson(out.getPath());
+            final StreamingReportWriter reportWriter = createStreamingWriter(format);
+            if (reportWriter != null) {
+                writeReport(reportWriter, out);
+            } else {
+                final String templateName = format.toString().toLowerCase() + "Report";
+                processTemplate(templateName, out);
+                if (format == Format.JSON) {
+                    pretifyJson(out.getPath());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the reports in all formats. The reports are generated
+     * concurrently unless they would be written to the same file or the
+     * number of report threads is limited to one.
+     *
+     * @param outputLocation the path where the reports should be written
+     * @throws ReportException is thrown if one or more of the reports cannot
+     * be written
+     */
+    private void writeAll(final String outputLocation) throws ReportException {
+        final List<Format> formats = new ArrayList<>();
+        final Set<File> files = new HashSet<>();
+        for (Format f : Format.values()) {
+            if (f != Format.ALL) {
+                formats.add(f);
+                files.add(getReportFile(outputLocation, f).getAbsoluteFile());
+            }
+        }
+        int threads = settings.getInt(REPORT_THREADS, Runtime.getRuntime().availableProcessors());
+        if (files.size() < formats.size()) {
+            LOGGER.debug("The reports are written to the same file; generating the reports sequentially");
+            threads = 1;
+        }
+        threads = Math.min(threads, formats.size());
+        if (threads <= 1) {
+            for (Format f : formats) {
+                writeTimed(outputLocation, f);
+            }
+            return;
+        }
+
+        LOGGER.debug("Generating {} reports with up to {} threads", formats.size(), threads);
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        final Map<Format, Future<Void>> results = new LinkedHashMap<>();
+        try {
+            for (final Format f : formats) {
+                results.put(f, executorService.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws ReportException {
+                        writeTimed(outputLocation, f);
+                        return null;
+                    }
+                }));
+            }
+            ReportException failure = null;
+            for (Map.Entry<Format, Future<Void>> result : results.entrySet()) {
+                try {
+                    result.getValue().get();
+                } catch (ExecutionException ex) {
+                    final ReportException cause;
+                    if (ex.getCause() instanceof ReportException) {
+                        cause = (ReportException) ex.getCause();
+                    } else {
+                        cause = new ReportException(String.format("Unable to generate the %s report", result.getKey()), ex.getCause());
+                    }
+                    if (failure == null) {
+                        failure = cause;
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
             }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ReportException("Report generation has been interrupted", ex);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes the report in the given format and logs the time taken.
+     *
+     * @param outputLocation the path where the report should be written
+     * @param format the format of the report
+     * @throws ReportException is thrown if the report cannot be written
+     */
+    private void writeTimed(String outputLocation, Format format) throws ReportException {
+        final long start = System.currentTimeMillis();
+        write(outputLocation, format);
+        LOGGER.info("Generated the {} report ({} ms)", format, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Creates the streaming writer for the given format if the format is
+     * configured to be streamed.
+     *
+     * @param format the report format
+     * @return the streaming writer; or <code>null</code> if the report must be
+     * generated from its template
+     */
+    private StreamingReportWriter createStreamingWriter(Format format) {
+        String[] formats = settings.getArray(STREAMING_FORMATS);
+        if (formats == null) {
+            formats = new String[]{Format.JSON.name(), Format.XML.name(), Format.CSV.name()};
+        }
+        boolean streamed = false;
+        for (String f : formats) {
+            if (format.name().equalsIgnoreCase(f.trim())) {
+                streamed = true;
+                break;
+            }
+        }
+        if (!streamed) {
+            return null;
+        }
+        switch (format) {
+            case JSON:
+                return new JsonReportWriter(context);
+            case XML:
+                return new XmlReportWriter(context);
+            case CSV:
+                return new CsvReportWriter(context);
+            default:
+                LOGGER.debug("A streaming writer is not available for the {} report", format);
+                return null;
+        }
+    }
+
+    /**
+     * Writes a report using a streaming writer.
+     *
+     * @param reportWriter the streaming report writer
+     * @param file the output file to write the report to
+     * @throws ReportException is thrown when the report cannot be written
+     */
+    private void writeReport(StreamingReportWriter reportWriter, File file) throws ReportException {
+        ensureParentDirectoryExists(file);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            reportWriter.write(writer);
+        } catch (IOException ex) {
+            throw new ReportException(String.format("Unable to write to file: %s", file), ex);
         }
     }
 
@@ -350,7 +537,9 @@ public class ReportGenerator {
 
             try (InputStreamReader reader = new InputStreamReader(input, "UTF-8");
                     OutputStreamWriter writer = new OutputStreamWriter(outputStream, "UTF-8")) {
-                if (!velocityEngine.evaluate(context, writer, logTag, reader)) {
+                //templates may #set values; each report gets its own local
+                //context so that reports can be rendered concurrently
+                if (!velocityEngine.evaluate(new VelocityContext(context), writer, logTag, reader)) {
                     throw new ReportException("Failed to convert the template into html.");
                 }
                 writer.flush();
@@ -389,6 +578,23 @@ public class ReportGenerator {
         }
     }
 
+    /**
+     * Compares two, possibly <code>null</code>, strings ignoring case.
+     *
+     * @param left the first string
+     * @param right the second string
+     * @return the result of the comparison; <code>null</code> sorts first
+     */
+    private static int compareText(String left, String right) {
+        if (left == null) {
+            return right == null ? 0 : -1;
+        } else if (right == null) {
+            return 1;
+        }
+        final int result = left.compareToIgnoreCase(right);
+        return result != 0 ? result : left.compareTo(right);
+    }
+
     /**
      * Reformats the given JSON file.
      *
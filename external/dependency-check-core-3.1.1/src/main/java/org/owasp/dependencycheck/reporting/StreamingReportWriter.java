@@ -0,0 +1,212 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.reporting;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.velocity.context.Context;
+import org.owasp.dependencycheck.data.nvdcve.DatabaseProperties;
+import org.owasp.dependencycheck.dependency.Dependency;
+
+/**
+ * Base class of the report writers that stream a report one dependency at a
+ * time instead of rendering a Velocity template. The writers produce the same
+ * documents as the corresponding templates and read the same values from the
+ * report's context.
+ */
+@NotThreadSafe
+abstract class StreamingReportWriter {
+
+    /**
+     * The name of the application.
+     */
+    private final String applicationName;
+    /**
+     * The group id of the application; may be <code>null</code>.
+     */
+    private final String groupID;
+    /**
+     * The artifact id of the application; may be <code>null</code>.
+     */
+    private final String artifactID;
+    /**
+     * The version of the application; may be <code>null</code>.
+     */
+    private final String applicationVersion;
+    /**
+     * The version of dependency-check.
+     */
+    private final String engineVersion;
+    /**
+     * The human readable date of the scan.
+     */
+    private final String scanDate;
+    /**
+     * The ISO 8601 date of the scan.
+     */
+    private final String scanDateXML;
+    /**
+     * The dependencies to report on.
+     */
+    private final List<Dependency> dependencies;
+    /**
+     * The database properties; may be <code>null</code>.
+     */
+    private final DatabaseProperties properties;
+
+    /**
+     * Constructs a new streaming report writer.
+     *
+     * @param context the context the report templates are rendered with
+     */
+    @SuppressWarnings("unchecked")
+    StreamingReportWriter(Context context) {
+        this.applicationName = (String) context.get("applicationName");
+        this.groupID = (String) context.get("groupID");
+        this.artifactID = (String) context.get("artifactID");
+        this.applicationVersion = (String) context.get("applicationVersion");
+        this.engineVersion = (String) context.get("version");
+        this.scanDate = (String) context.get("scanDate");
+        this.scanDateXML = (String) context.get("scanDateXML");
+        final List<Dependency> list = (List<Dependency>) context.get("dependencies");
+        this.dependencies = list == null ? Collections.<Dependency>emptyList() : list;
+        this.properties = (DatabaseProperties) context.get("properties");
+    }
+
+    /**
+     * Writes the report.
+     *
+     * @param writer the writer to write the report to
+     * @throws IOException thrown if the report cannot be written
+     */
+    abstract void write(Writer writer) throws IOException;
+
+    /**
+     * Returns the name of the application.
+     *
+     * @return the name of the application
+     */
+    protected String getApplicationName() {
+        return applicationName;
+    }
+
+    /**
+     * Returns the group id of the application.
+     *
+     * @return the group id; may be <code>null</code>
+     */
+    protected String getGroupID() {
+        return groupID;
+    }
+
+    /**
+     * Returns the artifact id of the application.
+     *
+     * @return the artifact id; may be <code>null</code>
+     */
+    protected String getArtifactID() {
+        return artifactID;
+    }
+
+    /**
+     * Returns the version of the application.
+     *
+     * @return the version of the application; may be <code>null</code>
+     */
+    protected String getApplicationVersion() {
+        return applicationVersion;
+    }
+
+    /**
+     * Returns the version of dependency-check.
+     *
+     * @return the version of dependency-check
+     */
+    protected String getEngineVersion() {
+        return engineVersion;
+    }
+
+    /**
+     * Returns the human readable date of the scan.
+     *
+     * @return the date of the scan
+     */
+    protected String getScanDate() {
+        return scanDate;
+    }
+
+    /**
+     * Returns the ISO 8601 date of the scan.
+     *
+     * @return the date of the scan
+     */
+    protected String getScanDateXML() {
+        return scanDateXML;
+    }
+
+    /**
+     * Returns the dependencies to report on.
+     *
+     * @return the dependencies
+     */
+    protected List<Dependency> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Returns the meta data of the data sources, i.e. the last updated
+     * timestamps of the NVD data feeds.
+     *
+     * @return the meta data of the data sources
+     */
+    protected Map<String, String> getDataSources() {
+        if (properties == null) {
+            return Collections.emptyMap();
+        }
+        return properties.getMetaData();
+    }
+
+    /**
+     * Returns the severity of a CVSS score.
+     *
+     * @param score the CVSS score
+     * @return the severity
+     */
+    protected static String getSeverity(float score) {
+        if (score < 4.0f) {
+            return "Low";
+        } else if (score >= 7.0f) {
+            return "High";
+        }
+        return "Medium";
+    }
+
+    /**
+     * Returns the text, or an empty string if the text is <code>null</code>.
+     *
+     * @param text the text
+     * @return the text or an empty string
+     */
+    protected static String nullToEmpty(String text) {
+        return text == null ? "" : text;
+    }
+}
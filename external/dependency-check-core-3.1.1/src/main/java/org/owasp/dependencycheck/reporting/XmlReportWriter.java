@@ -0,0 +1,394 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.reporting;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import org.apache.velocity.context.Context;
+import org.owasp.dependencycheck.dependency.Dependency;
+import org.owasp.dependencycheck.dependency.Evidence;
+import org.owasp.dependencycheck.dependency.EvidenceType;
+import org.owasp.dependencycheck.dependency.Identifier;
+import org.owasp.dependencycheck.dependency.Reference;
+import org.owasp.dependencycheck.dependency.Vulnerability;
+import org.owasp.dependencycheck.dependency.VulnerableSoftware;
+
+/**
+ * Writes the XML report using a StAX stream writer. The document has the same
+ * structure as the one produced by <code>xmlReport.vsl</code>.
+ */
+@NotThreadSafe
+class XmlReportWriter extends StreamingReportWriter {
+
+    /**
+     * The namespace of the report.
+     */
+    private static final String NAMESPACE = "https://jeremylong.github.io/DependencyCheck/dependency-check.1.6.xsd";
+    /**
+     * The credits written to the report.
+     */
+    private static final String CREDITS = "This report contains data retrieved from the National Vulnerability Database: "
+            + "https://nvd.nist.gov and from the Node Security Platform: https://nodesecurity.io";
+    /**
+     * The indentation of a single level.
+     */
+    private static final String INDENT = "    ";
+    /**
+     * The XML stream writer.
+     */
+    private XMLStreamWriter xml;
+    /**
+     * The current depth of the document, used for indentation.
+     */
+    private int depth;
+
+    /**
+     * Constructs a new XML report writer.
+     *
+     * @param context the context the report templates are rendered with
+     */
+    XmlReportWriter(Context context) {
+        super(context);
+    }
+
+    @Override
+    void write(Writer writer) throws IOException {
+        try {
+            xml = XMLOutputFactory.newInstance().createXMLStreamWriter(writer);
+            depth = 0;
+            xml.writeStartDocument("UTF-8", "1.0");
+            startElement("analysis");
+            xml.writeDefaultNamespace(NAMESPACE);
+
+            startElement("scanInfo");
+            element("engineVersion", getEngineVersion());
+            for (Map.Entry<String, String> entry : getDataSources().entrySet()) {
+                startElement("dataSource");
+                element("name", entry.getKey());
+                element("timestamp", entry.getValue());
+                endElement();
+            }
+            endElement();
+
+            startElement("projectInfo");
+            element("name", getApplicationName());
+            if (getGroupID() != null) {
+                element("groupID", getGroupID());
+            }
+            if (getArtifactID() != null) {
+                element("artifactID", getArtifactID());
+            }
+            if (getApplicationVersion() != null) {
+                element("version", getApplicationVersion());
+            }
+            element("reportDate", getScanDateXML());
+            element("credits", CREDITS);
+            endElement();
+
+            startElement("dependencies");
+            for (Dependency dependency : getDependencies()) {
+                writeDependency(dependency);
+                //write each dependency through so that the buffered output stays small
+                xml.flush();
+            }
+            endElement();
+            endElement();
+            xml.writeCharacters("\n");
+            xml.writeEndDocument();
+            xml.flush();
+        } catch (XMLStreamException ex) {
+            throw new IOException("Unable to write the XML report", ex);
+        } finally {
+            if (xml != null) {
+                try {
+                    xml.close();
+                } catch (XMLStreamException ex) {
+                    throw new IOException("Unable to write the XML report", ex);
+                }
+                xml = null;
+            }
+        }
+    }
+
+    /**
+     * Writes a dependency.
+     *
+     * @param dependency the dependency
+     * @throws XMLStreamException thrown if the dependency cannot be written
+     */
+    private void writeDependency(Dependency dependency) throws XMLStreamException {
+        startElement("dependency");
+        xml.writeAttribute("isVirtual", Boolean.toString(dependency.isVirtual()));
+        element("fileName", dependency.getDisplayFileName());
+        element("filePath", dependency.getFilePath());
+        element("md5", dependency.getMd5sum());
+        element("sha1", dependency.getSha1sum());
+        if (dependency.getDescription() != null) {
+            element("description", dependency.getDescription());
+        }
+        if (dependency.getLicense() != null) {
+            element("license", dependency.getLicense());
+        }
+
+        final Set<Dependency> related = dependency.getRelatedDependencies();
+        if (!related.isEmpty()) {
+            startElement("relatedDependencies");
+            for (Dependency r : related) {
+                startElement("relatedDependency");
+                xml.writeAttribute("isVirtual", Boolean.toString(r.isVirtual()));
+                element("filePath", r.getFilePath());
+                element("sha1", r.getSha1sum());
+                element("md5", r.getMd5sum());
+                for (Identifier id : r.getIdentifiers()) {
+                    if ("maven".equals(id.getType()) || "npm".equals(id.getType())) {
+                        startElement("identifier");
+                        xml.writeAttribute("type", clean(id.getType()));
+                        element("name", id.getValue());
+                        writeIdentifierDetails(id);
+                        endElement();
+                    }
+                }
+                endElement();
+            }
+            endElement();
+        }
+
+        startElement("evidenceCollected");
+        writeEvidence("vendor", dependency.getEvidence(EvidenceType.VENDOR));
+        writeEvidence("product", dependency.getEvidence(EvidenceType.PRODUCT));
+        writeEvidence("version", dependency.getEvidence(EvidenceType.VERSION));
+        endElement();
+
+        if (!dependency.getIdentifiers().isEmpty()) {
+            startElement("identifiers");
+            writeIdentifiers("identifier", dependency.getIdentifiers());
+            writeIdentifiers("suppressedIdentifier", dependency.getSuppressedIdentifiers());
+            endElement();
+        }
+
+        final Set<Vulnerability> vulnerabilities = dependency.getVulnerabilities(true);
+        final Set<Vulnerability> suppressed = dependency.getSuppressedVulnerabilities(true);
+        if (!vulnerabilities.isEmpty() || !suppressed.isEmpty()) {
+            startElement("vulnerabilities");
+            writeVulnerabilities("vulnerability", vulnerabilities);
+            writeVulnerabilities("suppressedVulnerability", suppressed);
+            endElement();
+        }
+        endElement();
+    }
+
+    /**
+     * Writes the evidence of a given type.
+     *
+     * @param type the type of the evidence
+     * @param evidence the evidence
+     * @throws XMLStreamException thrown if the evidence cannot be written
+     */
+    private void writeEvidence(String type, Set<Evidence> evidence) throws XMLStreamException {
+        for (Evidence e : evidence) {
+            startElement("evidence");
+            xml.writeAttribute("type", type);
+            xml.writeAttribute("confidence", String.valueOf(e.getConfidence()));
+            element("source", e.getSource());
+            element("name", e.getName());
+            element("value", e.getValue() == null ? null : e.getValue().trim());
+            endElement();
+        }
+    }
+
+    /**
+     * Writes the identifiers.
+     *
+     * @param name the element name of an identifier
+     * @param identifiers the identifiers
+     * @throws XMLStreamException thrown if the identifiers cannot be written
+     */
+    private void writeIdentifiers(String name, Set<Identifier> identifiers) throws XMLStreamException {
+        for (Identifier id : identifiers) {
+            startElement(name);
+            xml.writeAttribute("type", clean(id.getType()));
+            if (id.getConfidence() != null) {
+                xml.writeAttribute("confidence", id.getConfidence().toString());
+            }
+            element("name", "(" + nullToEmpty(id.getValue()) + ")");
+            writeIdentifierDetails(id);
+            endElement();
+        }
+    }
+
+    /**
+     * Writes the optional URL, description and notes of an identifier.
+     *
+     * @param id the identifier
+     * @throws XMLStreamException thrown if the identifier cannot be written
+     */
+    private void writeIdentifierDetails(Identifier id) throws XMLStreamException {
+        if (id.getUrl() != null) {
+            element("url", id.getUrl());
+        }
+        if (id.getDescription() != null) {
+            element("description", id.getDescription());
+        }
+        if (id.getNotes() != null) {
+            element("notes", id.getNotes());
+        }
+    }
+
+    /**
+     * Writes the vulnerabilities.
+     *
+     * @param name the element name of a vulnerability
+     * @param vulnerabilities the vulnerabilities
+     * @throws XMLStreamException thrown if the vulnerabilities cannot be
+     * written
+     */
+    private void writeVulnerabilities(String name, Set<Vulnerability> vulnerabilities) throws XMLStreamException {
+        for (Vulnerability v : vulnerabilities) {
+            startElement(name);
+            xml.writeAttribute("source", String.valueOf(v.getSource()));
+            element("name", v.getName());
+            element("cvssScore", String.valueOf(v.getCvssScore()));
+            element("cvssAccessVector", v.getCvssAccessVector());
+            element("cvssAccessComplexity", v.getCvssAccessComplexity());
+            element("cvssAuthenticationr", v.getCvssAuthentication());
+            element("cvssConfidentialImpact", v.getCvssConfidentialityImpact());
+            element("cvssIntegrityImpact", v.getCvssIntegrityImpact());
+            element("cvssAvailabilityImpact", v.getCvssAvailabilityImpact());
+            element("severity", getSeverity(v.getCvssScore()));
+            if (v.getCwe() != null) {
+                element("cwe", v.getCwe());
+            }
+            element("description", v.getDescription());
+            if (v.getNotes() != null) {
+                element("notes", v.getNotes());
+            }
+            startElement("references");
+            for (Reference ref : v.getReferences()) {
+                startElement("reference");
+                element("source", ref.getSource());
+                element("url", ref.getUrl());
+                element("name", ref.getName());
+                endElement();
+            }
+            endElement();
+            startElement("vulnerableSoftware");
+            for (VulnerableSoftware vs : v.getVulnerableSoftware()) {
+                indent();
+                xml.writeStartElement("software");
+                if (vs.hasPreviousVersion()) {
+                    xml.writeAttribute("allPreviousVersion", "true");
+                }
+                xml.writeCharacters(clean(vs.getName()));
+                xml.writeEndElement();
+            }
+            endElement();
+            endElement();
+        }
+    }
+
+    /**
+     * Writes an indented start element.
+     *
+     * @param name the name of the element
+     * @throws XMLStreamException thrown if the element cannot be written
+     */
+    private void startElement(String name) throws XMLStreamException {
+        indent();
+        xml.writeStartElement(name);
+        depth += 1;
+    }
+
+    /**
+     * Writes an indented end element.
+     *
+     * @throws XMLStreamException thrown if the element cannot be written
+     */
+    private void endElement() throws XMLStreamException {
+        depth -= 1;
+        indent();
+        xml.writeEndElement();
+    }
+
+    /**
+     * Writes an indented element containing only text.
+     *
+     * @param name the name of the element
+     * @param text the text; <code>null</code> is written as an empty element
+     * @throws XMLStreamException thrown if the element cannot be written
+     */
+    private void element(String name, String text) throws XMLStreamException {
+        indent();
+        xml.writeStartElement(name);
+        xml.writeCharacters(clean(text));
+        xml.writeEndElement();
+    }
+
+    /**
+     * Writes a line break and the indentation of the current depth.
+     *
+     * @throws XMLStreamException thrown if the indentation cannot be written
+     */
+    private void indent() throws XMLStreamException {
+        final StringBuilder sb = new StringBuilder(1 + depth * INDENT.length());
+        sb.append('\n');
+        for (int i = 0; i < depth; i++) {
+            sb.append(INDENT);
+        }
+        xml.writeCharacters(sb.toString());
+    }
+
+    /**
+     * Removes the characters that cannot be represented in an XML 1.0
+     * document; the stream writer escapes markup but does not check that
+     * characters are valid.
+     *
+     * @param text the text to clean
+     * @return the text without invalid characters; an empty string if the
+     * text is <code>null</code>
+     */
+    static String clean(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = null;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                if (sb != null) {
+                    sb.append(c).append(text.charAt(i + 1));
+                }
+                i += 1;
+                continue;
+            }
+            final boolean valid = c == 0x9 || c == 0xA || c == 0xD || (c >= 0x20 && c <= 0xD7FF) || (c >= 0xE000 && c <= 0xFFFD);
+            if (!valid && sb == null) {
+                sb = new StringBuilder(text.length());
+                sb.append(text, 0, i);
+            } else if (valid && sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb == null ? text : sb.toString();
+    }
+}
@@ -20,18 +20,31 @@ package org.owasp.dependencycheck.utils;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.security.SecureRandom;
 import java.sql.Timestamp;
-import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.concurrent.NotThreadSafe;
 import org.owasp.dependencycheck.exception.H2DBLockException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * The H2 DB lock file implementation; creates a custom lock file so that only a
- * single instance of dependency-check can update the embedded h2 database.
+ * The H2 DB lock file implementation; uses an operating system lock on a
+ * custom lock file so that only a single instance of dependency-check can
+ * update the embedded h2 database. Processes that only read the database can
+ * hold a shared lock at the same time; an update waits until all shared locks
+ * have been released.
+ * <p>
+ * As the operating system releases the lock when a process exits, a lock file
+ * left behind by a process that was killed does not block other processes. A
+ * waiting process retries with an increasing back off so that it obtains the
+ * lock shortly after it is released.</p>
  *
  * @author Jeremy Long
  */
@@ -44,12 +57,50 @@ public class H2DBLock {
     private static final Logger LOGGER = LoggerFactory.getLogger(H2DBLock.class);
     /**
      * How long to sleep waiting for the lock.
+     *
+     * @deprecated the lock is retried with an increasing back off; the time to
+     * wait for the lock is configured using {@link #LOCK_TIMEOUT}
      */
+    @Deprecated
     public static final int SLEEP_DURATION = 10000;
     /**
      * Max attempts to obtain a lock.
+     *
+     * @deprecated the lock is retried with an increasing back off; the time to
+     * wait for the lock is configured using {@link #LOCK_TIMEOUT}
      */
+    @Deprecated
     public static final int MAX_SLEEP_COUNT = 120;
+    /**
+     * The settings key for the number of seconds to wait for the lock.
+     */
+    public static final String LOCK_TIMEOUT = "data.lock.timeout";
+    /**
+     * The default number of seconds to wait for the lock.
+     */
+    private static final int DEFAULT_LOCK_TIMEOUT = SLEEP_DURATION / 1000 * MAX_SLEEP_COUNT;
+    /**
+     * The initial number of milliseconds to wait before retrying to obtain the
+     * lock.
+     */
+    private static final long INITIAL_BACKOFF = 50;
+    /**
+     * The maximum number of milliseconds to wait before retrying to obtain the
+     * lock.
+     */
+    private static final long MAX_BACKOFF = 2000;
+    /**
+     * The name of the lock file.
+     */
+    private static final String LOCK_FILE_NAME = "dc.update.lock";
+    /**
+     * The total number of milliseconds spent waiting for locks within the JVM.
+     */
+    private static final AtomicLong TOTAL_WAIT_TIME = new AtomicLong();
+    /**
+     * The number of locks obtained within the JVM.
+     */
+    private static final AtomicLong LOCK_COUNT = new AtomicLong();
     /**
      * The file lock.
      */
@@ -62,6 +113,14 @@ public class H2DBLock {
      * The lock file.
      */
     private File lockFile = null;
+    /**
+     * Whether the lock held is a shared lock.
+     */
+    private boolean shared = false;
+    /**
+     * The number of milliseconds spent waiting for the lock.
+     */
+    private long waitTime = 0;
     /**
      * The configured settings.
      */
@@ -100,91 +159,193 @@ public class H2DBLock {
     }
 
     /**
-     * Obtains a lock on the H2 database.
+     * Returns the number of milliseconds spent waiting for the lock when it
+     * was last obtained.
+     *
+     * @return the wait time in milliseconds
+     */
+    public long getWaitTime() {
+        return waitTime;
+    }
+
+    /**
+     * Returns the total number of milliseconds spent waiting for locks on the
+     * H2 database within this JVM.
+     *
+     * @return the total wait time in milliseconds
+     */
+    public static long getTotalWaitTime() {
+        return TOTAL_WAIT_TIME.get();
+    }
+
+    /**
+     * Returns the number of locks obtained on the H2 database within this
+     * JVM.
+     *
+     * @return the number of locks obtained
+     */
+    public static long getLockCount() {
+        return LOCK_COUNT.get();
+    }
+
+    /**
+     * Obtains an exclusive lock on the H2 database, used when updating the
+     * database.
      *
      * @throws H2DBLockException thrown if a lock could not be obtained
      */
     public void lock() throws H2DBLockException {
+        lock(false);
+    }
+
+    /**
+     * Obtains a shared lock on the H2 database, used when the database is only
+     * read. Any number of processes can hold a shared lock at the same time,
+     * but not while another process holds the exclusive lock.
+     *
+     * @throws H2DBLockException thrown if a lock could not be obtained
+     */
+    public void lockShared() throws H2DBLockException {
+        lock(true);
+    }
+
+    /**
+     * Obtains a lock on the H2 database.
+     *
+     * @param sharedLock whether a shared or an exclusive lock is obtained
+     * @throws H2DBLockException thrown if a lock could not be obtained
+     */
+    private void lock(boolean sharedLock) throws H2DBLockException {
+        final String type = sharedLock ? "shared" : "exclusive";
         try {
             final File dir = settings.getDataDirectory();
-            lockFile = new File(dir, "dc.update.lock");
+            lockFile = new File(dir, LOCK_FILE_NAME);
             checkState();
-            int ctr = 0;
-            do {
+        } catch (IOException ex) {
+            throw new H2DBLockException(ex.getMessage(), ex);
+        }
+        final long timeout = TimeUnit.SECONDS.toMillis(settings.getInt(LOCK_TIMEOUT, DEFAULT_LOCK_TIMEOUT));
+        final long start = System.currentTimeMillis();
+        long backoff = INITIAL_BACKOFF;
+        boolean waiting = false;
+        while (!tryLock(sharedLock)) {
+            final long elapsed = System.currentTimeMillis() - start;
+            if (elapsed >= timeout) {
+                throw new H2DBLockException(String.format("Unable to obtain the %s lock on the database within %d seconds",
+                        type, TimeUnit.MILLISECONDS.toSeconds(timeout)));
+            }
+            if (!waiting) {
+                LOGGER.info("Lock file `{}` is held by another process; waiting for it to be released", lockFile);
+                waiting = true;
+            }
+            try {
+                Thread.sleep(Math.min(backoff, timeout - elapsed));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new H2DBLockException("Interrupted while waiting for the lock on the database", ex);
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF);
+        }
+        waitTime = System.currentTimeMillis() - start;
+        TOTAL_WAIT_TIME.addAndGet(waitTime);
+        LOCK_COUNT.incrementAndGet();
+        if (waiting) {
+            LOGGER.info("Obtained the {} lock on the database after waiting {} ms", type, waitTime);
+        }
+        final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+        LOGGER.debug("Lock obtained ({}) {} {} @ {}", Thread.currentThread().getName(), type, magic, timestamp.toString());
+    }
+
+    /**
+     * Attempts to obtain the lock without waiting.
+     *
+     * @param sharedLock whether a shared or an exclusive lock is obtained
+     * @return whether the lock was obtained
+     */
+    private boolean tryLock(boolean sharedLock) {
+        RandomAccessFile raf = null;
+        FileLock fl = null;
+        try {
+            if (!lockFile.isFile() && !lockFile.createNewFile()) {
+                LOGGER.trace("Lock file was created by another process");
+            }
+            final Object key = getFileKey(lockFile);
+            raf = new RandomAccessFile(lockFile, "rw");
+            try {
+                fl = raf.getChannel().tryLock(0, Long.MAX_VALUE, sharedLock);
+            } catch (OverlappingFileLockException ex) {
+                LOGGER.trace("The lock is held by another thread", ex);
+            }
+            if (fl == null) {
+                return false;
+            }
+            //the previous holder deletes the lock file when it releases the lock; if the file was
+            //deleted (and possibly re-created) after it was opened, the lock obtained is meaningless
+            if (!lockFile.isFile() || (key != null && !key.equals(getFileKey(lockFile)))) {
+                LOGGER.trace("Lock file was replaced while obtaining the lock");
+                return false;
+            }
+            if (!sharedLock) {
+                raf.setLength(0);
+                raf.writeBytes(magic);
+                raf.getChannel().force(true);
+            }
+            file = raf;
+            lock = fl;
+            shared = sharedLock;
+            raf = null;
+            fl = null;
+            addShutdownHook();
+            return true;
+        } catch (IOException ex) {
+            LOGGER.trace("Unable to lock the file; another process has likely locked the file", ex);
+            return false;
+        } finally {
+            if (fl != null) {
                 try {
-                    if (!lockFile.exists() && lockFile.createNewFile()) {
-                        file = new RandomAccessFile(lockFile, "rw");
-                        lock = file.getChannel().lock();
-                        file.writeBytes(magic);
-                        file.getChannel().force(true);
-                        Thread.sleep(20);
-                        file.seek(0);
-                        final String current = file.readLine();
-                        if (current != null && !current.equals(magic)) {
-                            lock.close();
-                            lock = null;
-                            LOGGER.debug("Another process obtained a lock first ({})", Thread.currentThread().getName());
-                        } else {
-                            addShutdownHook();
-                            final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
-                            LOGGER.debug("Lock file created ({}) {} @ {}", Thread.currentThread().getName(), magic, timestamp.toString());
-                        }
-                    }
-                } catch (IOException | InterruptedException ex) {
-                    LOGGER.trace("Expected error as another thread has likely locked the file", ex);
-                } finally {
-                    if (lock == null && file != null) {
-                        try {
-                            file.close();
-                            file = null;
-                        } catch (IOException ex) {
-                            LOGGER.trace("Unable to close the lock file", ex);
-                        }
-                    }
+                    fl.release();
+                } catch (IOException ex) {
+                    LOGGER.trace("Unable to release the lock", ex);
                 }
-                if (lock == null || !lock.isValid()) {
-                    try {
-                        final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
-                        LOGGER.debug("Sleeping thread {} ({}) for {} seconds because an exclusive lock on the database could not be obtained ({})",
-                                Thread.currentThread().getName(), magic, SLEEP_DURATION / 1000, timestamp.toString());
-                        Thread.sleep(SLEEP_DURATION);
-                    } catch (InterruptedException ex) {
-                        LOGGER.debug("sleep was interrupted.", ex);
-                        Thread.currentThread().interrupt();
-                    }
+            }
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException ex) {
+                    LOGGER.trace("Unable to close the lock file", ex);
                 }
-            } while (++ctr < MAX_SLEEP_COUNT && (lock == null || !lock.isValid()));
-            if (lock == null || !lock.isValid()) {
-                throw new H2DBLockException("Unable to obtain the update lock, skipping the database update. Skippinig the database update.");
             }
+        }
+    }
+
+    /**
+     * Returns the key that uniquely identifies the file, if available on this
+     * platform.
+     *
+     * @param f the file
+     * @return the file key; or <code>null</code> if not available
+     */
+    private static Object getFileKey(File f) {
+        try {
+            return Files.readAttributes(f.toPath(), BasicFileAttributes.class).fileKey();
         } catch (IOException ex) {
-            throw new H2DBLockException(ex.getMessage(), ex);
+            LOGGER.trace("Unable to read the attributes of the lock file", ex);
+            return null;
         }
     }
 
     /**
-     * Checks the state of the custom h2 lock file and under some conditions
-     * will attempt to remove the lock file.
+     * Checks the state of the custom h2 lock file.
      *
      * @throws H2DBLockException thrown if the lock directory does not exist and
      * cannot be created
      */
     private void checkState() throws H2DBLockException {
-        if (!lockFile.getParentFile().isDirectory() && !lockFile.mkdir()) {
+        if (!lockFile.getParentFile().isDirectory() && !lockFile.getParentFile().mkdirs()) {
             throw new H2DBLockException("Unable to create path to data directory.");
         }
         if (lockFile.isFile()) {
-            //TODO - this 30 minute check needs to be configurable.
-            if (getFileAge(lockFile) > 30) {
-                LOGGER.debug("An old db update lock file was found: {}", lockFile.getAbsolutePath());
-                if (!lockFile.delete()) {
-                    LOGGER.warn("An old db update lock file was found but the system was unable to delete "
-                            + "the file. Consider manually deleting {}", lockFile.getAbsolutePath());
-                }
-            } else {
-                LOGGER.info("Lock file found `{}`", lockFile);
-                LOGGER.info("Existing update in progress; waiting for update to complete");
-            }
+            LOGGER.debug("Lock file found `{}`", lockFile);
         }
     }
 
@@ -192,9 +353,20 @@ public class H2DBLock {
      * Releases the lock on the H2 database.
      */
     public void release() {
+        boolean deleted = false;
         if (lock != null) {
             try {
-                lock.release();
+                if (shared) {
+                    //the lock file can only be removed if no other process holds a shared lock
+                    lock.release();
+                    lock = tryExclusive(file.getChannel());
+                }
+                if (lock != null) {
+                    //removing the file while it is locked ensures a waiting process cannot lock the
+                    //removed file; this fails on platforms that do not allow open files to be deleted
+                    deleted = lockFile.delete();
+                    lock.release();
+                }
                 lock = null;
             } catch (IOException ex) {
                 LOGGER.debug("Failed to release lock", ex);
@@ -208,7 +380,7 @@ public class H2DBLock {
                 LOGGER.debug("Unable to delete lock file", ex);
             }
         }
-        if (lockFile != null && lockFile.isFile()) {
+        if (!deleted && !shared && lockFile != null && lockFile.isFile()) {
             try (RandomAccessFile f = new RandomAccessFile(lockFile, "rw")) {
                 final String m = f.readLine();
                 //yes, we are explicitly calling close on an auto-closable object - this is so we can delete the file.
@@ -222,23 +394,26 @@ public class H2DBLock {
             }
         }
         lockFile = null;
+        shared = false;
         removeShutdownHook();
         final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
         LOGGER.debug("Lock released ({}) {} @ {}", Thread.currentThread().getName(), magic, timestamp.toString());
     }
 
     /**
-     * Returns the age of the file in minutes.
+     * Attempts to obtain an exclusive lock on the channel without waiting.
      *
-     * @param file the file to calculate the age
-     * @return the age of the file
-     */
-    private double getFileAge(File file) {
-        final Date d = new Date();
-        final long modified = file.lastModified();
-        final double time = (d.getTime() - modified) / 1000.0 / 60.0;
-        LOGGER.debug("Lock file age is {} minutes", time);
-        return time;
+     * @param channel the channel of the lock file
+     * @return the lock; or <code>null</code> if another process or thread
+     * holds a lock
+     */
+    private static FileLock tryExclusive(FileChannel channel) {
+        try {
+            return channel.tryLock();
+        } catch (IOException | OverlappingFileLockException ex) {
+            LOGGER.trace("Lock file is in use", ex);
+            return null;
+        }
     }
 
     /**
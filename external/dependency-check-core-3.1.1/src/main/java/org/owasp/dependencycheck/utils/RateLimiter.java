@@ -0,0 +1,80 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.utils;
+
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A simple rate limiter that spaces out operations evenly so that no more
+ * than the configured number of operations are started per second. Callers
+ * reserve the next free slot and then wait outside of the lock until it
+ * arrives, so waiting callers do not block each other's reservations.
+ */
+@ThreadSafe
+public class RateLimiter {
+
+    /**
+     * The number of nanoseconds between two operations.
+     */
+    private final long interval;
+    /**
+     * The time, as returned by <code>System.nanoTime()</code>, at which the
+     * next operation may start.
+     */
+    private long next;
+
+    /**
+     * Constructs a new rate limiter.
+     *
+     * @param permitsPerSecond the number of operations allowed per second;
+     * must be greater than zero
+     */
+    public RateLimiter(int permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be greater than zero");
+        }
+        this.interval = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.next = System.nanoTime();
+    }
+
+    /**
+     * Waits until the next operation is permitted to start.
+     *
+     * @throws InterruptedException thrown if the thread is interrupted while
+     * waiting
+     */
+    public void acquire() throws InterruptedException {
+        final long wait = reserve(System.nanoTime());
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Reserves the next free slot.
+     *
+     * @param now the current time in nanoseconds
+     * @return the number of nanoseconds to wait until the reserved slot
+     */
+    synchronized long reserve(long now) {
+        final long slot = Math.max(next, now);
+        next = slot + interval;
+        return slot - now;
+    }
+}
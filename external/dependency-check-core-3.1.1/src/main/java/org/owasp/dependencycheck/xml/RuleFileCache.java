@@ -0,0 +1,212 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.xml;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.concurrent.ThreadSafe;
+import org.owasp.dependencycheck.utils.Checksum;
+import org.owasp.dependencycheck.utils.Settings;
+import org.owasp.dependencycheck.utils.URLConnectionFactory;
+import org.owasp.dependencycheck.utils.URLConnectionFailureException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cache of the rules parsed from rule files (e.g. suppression or hint
+ * files) that is shared by all engines within the JVM. Each entry is keyed by
+ * the configured location of the file and records the SHA1 of the content it
+ * was parsed from, along with the ETag when the file was retrieved over HTTP.
+ * A file is only parsed again when its content (or ETag) changes, so long
+ * running processes that create many engines do not re-parse unchanged rule
+ * files for every scan.
+ * <p>
+ * The cached rules are shared; callers must not modify them.</p>
+ *
+ * @param <T> the type of the parsed rules
+ */
+@ThreadSafe
+public class RuleFileCache<T> {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(RuleFileCache.class);
+    /**
+     * The cache entries keyed by the location of the rule file.
+     */
+    private final Map<String, Entry<T>> entries = new HashMap<>();
+
+    /**
+     * Returns the rules parsed from the given location if they were parsed
+     * from content with the given checksum.
+     *
+     * @param location the location of the rule file
+     * @param checksum the SHA1 of the current content of the rule file; may
+     * be <code>null</code>
+     * @return the cached rules, or <code>null</code> if the rules must be
+     * parsed
+     */
+    public synchronized T get(String location, String checksum) {
+        final Entry<T> entry = entries.get(location);
+        if (checksum != null && entry != null && checksum.equals(entry.checksum)) {
+            LOGGER.debug("Using cached rules for '{}'", location);
+            return entry.rules;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the rules parsed from the given location if they were retrieved
+     * with the given ETag.
+     *
+     * @param location the location of the rule file
+     * @param etag the current ETag of the rule file; may be <code>null</code>
+     * @return the cached rules, or <code>null</code> if the rule file must be
+     * retrieved
+     */
+    public synchronized T getByETag(String location, String etag) {
+        final Entry<T> entry = entries.get(location);
+        if (etag != null && entry != null && etag.equals(entry.etag)) {
+            LOGGER.debug("Using cached rules for '{}' (ETag {})", location, etag);
+            return entry.rules;
+        }
+        return null;
+    }
+
+    /**
+     * Stores the rules parsed from the given location.
+     *
+     * @param location the location of the rule file
+     * @param checksum the SHA1 of the content the rules were parsed from
+     * @param etag the ETag of the rule file; may be <code>null</code>
+     * @param rules the parsed rules
+     */
+    public synchronized void put(String location, String checksum, String etag, T rules) {
+        entries.put(location, new Entry<>(checksum, etag, rules));
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Retrieves the ETag of a rule file served over HTTP using a
+     * <code>HEAD</code> request.
+     *
+     * @param url the URL of the rule file
+     * @param settings the configured settings
+     * @return the ETag, or <code>null</code> if the URL is not an HTTP URL or
+     * the ETag could not be retrieved
+     */
+    public static String getETag(URL url, Settings settings) {
+        final String protocol = url.getProtocol();
+        if (!"http".equalsIgnoreCase(protocol) && !"https".equalsIgnoreCase(protocol)) {
+            return null;
+        }
+        HttpURLConnection conn = null;
+        try {
+            final URLConnectionFactory factory = new URLConnectionFactory(settings);
+            conn = factory.createHttpURLConnection(url);
+            conn.setRequestMethod("HEAD");
+            conn.connect();
+            if (conn.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                return null;
+            }
+            return conn.getHeaderField("ETag");
+        } catch (URLConnectionFailureException ex) {
+            LOGGER.debug("Unable to retrieve the ETag of '{}' - connection failed", url);
+        } catch (IOException ex) {
+            LOGGER.debug("Unable to retrieve the ETag of '{}' - i/o exception", url);
+        } finally {
+            if (conn != null) {
+                conn.disconnect();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Computes the SHA1 of a rule file.
+     *
+     * @param file the rule file
+     * @return the hex encoded SHA1 of the file's content
+     * @throws IOException thrown if the file cannot be read
+     */
+    public static String getChecksum(File file) throws IOException {
+        return getChecksum(Files.readAllBytes(file.toPath()));
+    }
+
+    /**
+     * Computes the SHA1 of the content of a rule file.
+     *
+     * @param content the content of the rule file
+     * @return the hex encoded SHA1 of the content
+     */
+    public static String getChecksum(byte[] content) {
+        try {
+            return Checksum.getHex(MessageDigest.getInstance("SHA1").digest(content));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA1 is not available", ex);
+        }
+    }
+
+    /**
+     * A cache entry.
+     *
+     * @param <T> the type of the parsed rules
+     */
+    private static final class Entry<T> {
+
+        /**
+         * The SHA1 of the content the rules were parsed from.
+         */
+        private final String checksum;
+        /**
+         * The ETag of the rule file; may be <code>null</code>.
+         */
+        private final String etag;
+        /**
+         * The parsed rules.
+         */
+        private final T rules;
+
+        /**
+         * Constructs a new cache entry.
+         *
+         * @param checksum the SHA1 of the content the rules were parsed from
+         * @param etag the ETag of the rule file
+         * @param rules the parsed rules
+         */
+        private Entry(String checksum, String etag, T rules) {
+            this.checksum = checksum;
+            this.etag = etag;
+            this.rules = rules;
+        }
+    }
+}
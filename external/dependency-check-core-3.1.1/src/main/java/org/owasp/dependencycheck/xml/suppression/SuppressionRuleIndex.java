@@ -0,0 +1,302 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.xml.suppression;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.concurrent.ThreadSafe;
+import org.owasp.dependencycheck.dependency.Dependency;
+import org.owasp.dependencycheck.dependency.Identifier;
+import org.owasp.dependencycheck.dependency.Vulnerability;
+
+/**
+ * An index over a list of suppression rules used to find the rules that could
+ * apply to a dependency without evaluating every rule. The candidate rules are
+ * a superset of the rules that modify the dependency and are processed in the
+ * order of the original list, so the result is the same as processing every
+ * rule:
+ * <ul>
+ * <li>rules with a SHA1 are only candidates for dependencies with that
+ * SHA1;</li>
+ * <li>rules with a CPE are found by walking the dependency's CPE identifiers
+ * through a prefix trie of the rule's (non-regex) CPE values;</li>
+ * <li>rules with a CVE or CWE are found by the CVE names and CWE identifiers
+ * of the dependency's vulnerabilities;</li>
+ * <li>rules with a regex CPE, a CVSS threshold, or a CWE that cannot be
+ * indexed are candidates for any dependency with CPE identifiers or
+ * vulnerabilities respectively.</li>
+ * </ul>
+ * Rules that suppress nothing (no CPE, CVE, CWE or CVSS threshold) are never
+ * candidates.
+ */
+@ThreadSafe
+public class SuppressionRuleIndex {
+
+    /**
+     * The indexed rules, in the order they are processed.
+     */
+    private final List<SuppressionRule> rules;
+    /**
+     * The positions of the rules with a SHA1, keyed by the case folded SHA1.
+     */
+    private final Map<String, List<Integer>> bySha1 = new HashMap<>();
+    /**
+     * The positions of the rules by the case folded CVE they suppress.
+     */
+    private final Map<String, List<Integer>> byCve = new HashMap<>();
+    /**
+     * The positions of the rules by the CWE they suppress.
+     */
+    private final Map<String, List<Integer>> byCwe = new HashMap<>();
+    /**
+     * The root of the trie of case folded CPE values.
+     */
+    private final TrieNode cpeRoot = new TrieNode();
+    /**
+     * The positions of the rules that could apply to any dependency with a CPE
+     * identifier.
+     */
+    private final List<Integer> anyCpe = new ArrayList<>();
+    /**
+     * The positions of the rules that could apply to any dependency with a
+     * vulnerability.
+     */
+    private final List<Integer> anyVulnerability = new ArrayList<>();
+
+    /**
+     * Constructs a new index of the given rules.
+     *
+     * @param rules the suppression rules, in the order they are processed
+     */
+    public SuppressionRuleIndex(List<SuppressionRule> rules) {
+        this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+        for (int i = 0; i < this.rules.size(); i++) {
+            index(i, this.rules.get(i));
+        }
+    }
+
+    /**
+     * Returns the number of indexed rules.
+     *
+     * @return the number of rules
+     */
+    public int size() {
+        return rules.size();
+    }
+
+    /**
+     * Processes the rules that could apply to the given dependency.
+     *
+     * @param dependency the dependency to apply the suppression rules to
+     */
+    public void process(Dependency dependency) {
+        final BitSet candidates = getCandidates(dependency);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            rules.get(i).process(dependency);
+        }
+    }
+
+    /**
+     * Returns the positions of the rules that could apply to the dependency.
+     *
+     * @param dependency the dependency
+     * @return the positions of the candidate rules
+     */
+    BitSet getCandidates(Dependency dependency) {
+        final BitSet candidates = new BitSet(rules.size());
+        if (dependency.getSha1sum() != null) {
+            addAll(candidates, bySha1.get(fold(dependency.getSha1sum())));
+        }
+        boolean hasCpe = false;
+        for (Identifier i : dependency.getIdentifiers()) {
+            if ("cpe".equals(i.getType()) && i.getValue() != null) {
+                hasCpe = true;
+                TrieNode node = cpeRoot;
+                final String value = i.getValue();
+                for (int x = 0; x < value.length() && node != null; x++) {
+                    node = node.children.get(fold(value.charAt(x)));
+                    if (node != null) {
+                        addAll(candidates, node.rules);
+                    }
+                }
+            }
+        }
+        if (hasCpe) {
+            //an empty CPE value is a prefix of every CPE
+            addAll(candidates, cpeRoot.rules);
+            addAll(candidates, anyCpe);
+        }
+        final Set<Vulnerability> vulnerabilities = dependency.getVulnerabilities();
+        if (!vulnerabilities.isEmpty()) {
+            addAll(candidates, anyVulnerability);
+            for (Vulnerability v : vulnerabilities) {
+                if (v.getName() != null) {
+                    addAll(candidates, byCve.get(fold(v.getName())));
+                }
+                final String cwe = getCweKey(v.getCwe());
+                if (cwe != null) {
+                    addAll(candidates, byCwe.get(cwe));
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Adds the rule to the index.
+     *
+     * @param position the position of the rule
+     * @param rule the rule to index
+     */
+    private void index(int position, SuppressionRule rule) {
+        if (!rule.hasCpe() && !rule.hasCve() && !rule.hasCwe() && !rule.hasCvssBelow()) {
+            return;
+        }
+        if (rule.getSha1() != null) {
+            add(bySha1, fold(rule.getSha1()), position);
+            return;
+        }
+        for (PropertyType cpe : rule.getCpe()) {
+            if (cpe.isRegex()) {
+                anyCpe.add(position);
+            } else {
+                TrieNode node = cpeRoot;
+                final String value = cpe.getValue();
+                for (int x = 0; x < value.length(); x++) {
+                    final char c = fold(value.charAt(x));
+                    TrieNode child = node.children.get(c);
+                    if (child == null) {
+                        child = new TrieNode();
+                        node.children.put(c, child);
+                    }
+                    node = child;
+                }
+                node.rules.add(position);
+            }
+        }
+        for (String cve : rule.getCve()) {
+            add(byCve, fold(cve), position);
+        }
+        for (String cwe : rule.getCwe()) {
+            if (cwe.indexOf(' ') >= 0) {
+                anyVulnerability.add(position);
+            } else {
+                add(byCwe, cwe, position);
+            }
+        }
+        if (rule.hasCvssBelow()) {
+            anyVulnerability.add(position);
+        }
+    }
+
+    /**
+     * Returns the key used to find the rules suppressing the CWE, i.e. the
+     * upper case text between "CWE-" and the first space.
+     *
+     * @param cwe the CWE of a vulnerability
+     * @return the key, or <code>null</code> if the CWE cannot be suppressed
+     * by a CWE rule
+     */
+    static String getCweKey(String cwe) {
+        if (cwe == null) {
+            return null;
+        }
+        final String upper = cwe.toUpperCase();
+        final int end = upper.indexOf(' ', 4);
+        if (!upper.startsWith("CWE-") || end < 0) {
+            return null;
+        }
+        return upper.substring(4, end);
+    }
+
+    /**
+     * Adds the position to the list of positions stored under the key.
+     *
+     * @param map the map of positions
+     * @param key the key
+     * @param position the position of a rule
+     */
+    private static void add(Map<String, List<Integer>> map, String key, int position) {
+        List<Integer> positions = map.get(key);
+        if (positions == null) {
+            positions = new ArrayList<>();
+            map.put(key, positions);
+        }
+        positions.add(position);
+    }
+
+    /**
+     * Sets the positions in the bit set.
+     *
+     * @param candidates the bit set
+     * @param positions the positions to set; may be <code>null</code>
+     */
+    private static void addAll(BitSet candidates, List<Integer> positions) {
+        if (positions != null) {
+            for (Integer i : positions) {
+                candidates.set(i);
+            }
+        }
+    }
+
+    /**
+     * Folds the case of the text the same way
+     * <code>String.equalsIgnoreCase</code> compares characters.
+     *
+     * @param text the text to fold
+     * @return the case folded text
+     */
+    private static String fold(String text) {
+        final StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            sb.append(fold(text.charAt(i)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Folds the case of the character the same way
+     * <code>String.equalsIgnoreCase</code> compares characters.
+     *
+     * @param c the character to fold
+     * @return the case folded character
+     */
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * A node of the CPE trie.
+     */
+    private static final class TrieNode {
+
+        /**
+         * The child nodes by the next (case folded) character.
+         */
+        private final Map<Character, TrieNode> children = new HashMap<>();
+        /**
+         * The positions of the rules whose CPE value ends at this node.
+         */
+        private final List<Integer> rules = new ArrayList<>();
+    }
+}
@@ -7,7 +7,7 @@ DROP TABLE IF EXISTS properties;
 CREATE TABLE vulnerability (id int auto_increment PRIMARY KEY, cve VARCHAR(20) UNIQUE,
 	description VARCHAR(8000), cwe VARCHAR(10), cvssScore DECIMAL(3,1), cvssAccessVector VARCHAR(20),
 	cvssAccessComplexity VARCHAR(20), cvssAuthentication VARCHAR(20), cvssConfidentialityImpact VARCHAR(20),
-	cvssIntegrityImpact VARCHAR(20), cvssAvailabilityImpact VARCHAR(20));
+	cvssIntegrityImpact VARCHAR(20), cvssAvailabilityImpact VARCHAR(20), contentHash VARCHAR(40));
 
 CREATE TABLE reference (cveid INT, name VARCHAR(1000), url VARCHAR(1000), source VARCHAR(255),
 	CONSTRAINT fkReference FOREIGN KEY (cveid) REFERENCES vulnerability(id) ON DELETE CASCADE);
@@ -14,7 +14,7 @@ CREATE TABLE properties (id varchar(50) PRIMARY KEY, value varchar(500));
 CREATE TABLE vulnerability (id int identity(1,1) PRIMARY KEY, cve VARCHAR(20) UNIQUE,
 	description VARCHAR(8000), cwe VARCHAR(10), cvssScore DECIMAL(3,1), cvssAccessVector VARCHAR(20),
 	cvssAccessComplexity VARCHAR(20), cvssAuthentication VARCHAR(20), cvssConfidentialityImpact VARCHAR(20),
-	cvssIntegrityImpact VARCHAR(20), cvssAvailabilityImpact VARCHAR(20));
+	cvssIntegrityImpact VARCHAR(20), cvssAvailabilityImpact VARCHAR(20), contentHash VARCHAR(40));
 
 CREATE TABLE reference (cveid INT, name VARCHAR(1000), url VARCHAR(1000), source VARCHAR(255),
 	CONSTRAINT FK_Reference FOREIGN KEY (cveid) REFERENCES vulnerability(id) ON DELETE CASCADE);
@@ -33,4 +33,4 @@ CREATE INDEX idxCpeEntry ON cpeEntry(vendor, product);
 CREATE INDEX idxSoftwareCve ON software(cveid);
 CREATE INDEX idxSoftwareCpe ON software(cpeEntryId);
 
-INSERT INTO properties(id,value) VALUES ('version','3.0');
\ No newline at end of file
+INSERT INTO properties(id,value) VALUES ('version','3.1');
\ No newline at end of file
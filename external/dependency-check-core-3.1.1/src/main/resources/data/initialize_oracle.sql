@@ -66,7 +66,7 @@ END;
 CREATE TABLE vulnerability (id INT NOT NULL PRIMARY KEY, cve VARCHAR(20) UNIQUE,
     description CLOB, cwe VARCHAR(10), cvssScore DECIMAL(3,1), cvssAccessVector VARCHAR(20),
     cvssAccessComplexity VARCHAR(20), cvssAuthentication VARCHAR(20), cvssConfidentialityImpact VARCHAR(20),
-    cvssIntegrityImpact VARCHAR(20), cvssAvailabilityImpact VARCHAR(20));
+    cvssIntegrityImpact VARCHAR(20), cvssAvailabilityImpact VARCHAR(20), contentHash VARCHAR(40));
 
 CREATE TABLE reference (cveid INT, name VARCHAR(1000), url VARCHAR(1000), source VARCHAR(255),
     CONSTRAINT fkReference FOREIGN KEY (cveid) REFERENCES vulnerability(id) ON DELETE CASCADE);
@@ -109,4 +109,4 @@ BEGIN
 END CPEENTRY_TRG;
 /
 
-INSERT INTO properties(id,value) VALUES ('version','3.0');
+INSERT INTO properties(id,value) VALUES ('version','3.1');
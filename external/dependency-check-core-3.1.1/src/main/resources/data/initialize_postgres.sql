@@ -11,7 +11,7 @@ CREATE TABLE properties (id varchar(50) PRIMARY KEY, value varchar(500));
 CREATE TABLE vulnerability (id SERIAL PRIMARY KEY, cve VARCHAR(20) UNIQUE,
 	description VARCHAR(8000), cwe VARCHAR(10), cvssScore DECIMAL(3,1), cvssAccessVector VARCHAR(20),
 	cvssAccessComplexity VARCHAR(20), cvssAuthentication VARCHAR(20), cvssConfidentialityImpact VARCHAR(20),
-	cvssIntegrityImpact VARCHAR(20), cvssAvailabilityImpact VARCHAR(20));
+	cvssIntegrityImpact VARCHAR(20), cvssAvailabilityImpact VARCHAR(20), contentHash VARCHAR(40));
 
 CREATE TABLE reference (cveid INT, name VARCHAR(1000), url VARCHAR(1000), source VARCHAR(255),
 	CONSTRAINT fkReference FOREIGN KEY (cveid) REFERENCES vulnerability(id) ON DELETE CASCADE);
@@ -50,4 +50,4 @@ $$ LANGUAGE sql;
 
 GRANT EXECUTE ON FUNCTION public.save_property(varchar(50),varchar(500)) TO dcuser;
 
-UPDATE Properties SET value='3.0' WHERE ID='version';
+UPDATE Properties SET value='3.1' WHERE ID='version';
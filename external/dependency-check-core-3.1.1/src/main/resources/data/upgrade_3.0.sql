@@ -1,7 +1,3 @@
+ALTER TABLE vulnerability ADD COLUMN IF NOT EXISTS contentHash VARCHAR(40);
 
---the following is not currently used.
---ALTER TABLE cpeEntry ADD COLUMN IF NOT EXISTS dictionaryEntry BOOLEAN;
---ALTER TABLE cpeEntry ALTER COLUMN dictionaryEntry  SET DEFAULT FALSE;
---UPDATE cpeEntry SET dictionaryEntry=false;
-
---UPDATE Properties SET value='3.1' WHERE ID='version';
\ No newline at end of file
+UPDATE Properties SET value='3.1' WHERE ID='version';
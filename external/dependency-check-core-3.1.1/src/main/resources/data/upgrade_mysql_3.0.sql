@@ -0,0 +1,3 @@
+ALTER TABLE vulnerability ADD COLUMN contentHash VARCHAR(40);
+
+UPDATE properties SET value='3.1' WHERE ID='version';
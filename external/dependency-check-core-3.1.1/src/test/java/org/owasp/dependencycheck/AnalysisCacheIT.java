@@ -0,0 +1,79 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck;
+
+import java.io.File;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.owasp.dependencycheck.utils.Settings;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the AnalysisCache when used by the Engine.
+ */
+public class AnalysisCacheIT extends BaseDBTestCase {
+
+    /**
+     * Tests that, without an explicit cache directory, the results of one
+     * scan are kept in the data directory and restored by the next scan.
+     */
+    @Test
+    public void testCacheSurvivesBetweenScans() throws Exception {
+        final File spring = BaseTest.getResourceAsFile(this, "spring-core-3.0.0.RELEASE.jar");
+        FileUtils.deleteDirectory(new File(getSettings().getDataDirectory(), AnalysisCache.CACHE_NAME));
+
+        final AnalysisCache first = analyze(spring);
+        assertNotNull(first);
+        assertEquals(0, first.getHitCount());
+        assertTrue(first.getStoreCount() > 0);
+
+        final AnalysisCache second = analyze(spring);
+        assertNotNull(second);
+        assertTrue(second.getHitCount() > 0);
+        assertEquals(0, second.getStoreCount());
+    }
+
+    /**
+     * Runs a complete scan of the given file with its own settings, as a
+     * separate invocation of dependency-check would.
+     *
+     * @param file the file to scan
+     * @return the analysis cache used by the scan
+     */
+    private AnalysisCache analyze(File file) throws Exception {
+        final Settings settings = new Settings();
+        try {
+            settings.setBoolean(Settings.KEYS.AUTO_UPDATE, false);
+            settings.setBoolean(Settings.KEYS.ANALYZER_NEXUS_ENABLED, false);
+            settings.setBoolean(Settings.KEYS.ANALYZER_CENTRAL_ENABLED, false);
+            settings.setBoolean(Settings.KEYS.ANALYZER_BUNDLE_AUDIT_ENABLED, false);
+            settings.setBoolean(Settings.KEYS.ANALYZER_ASSEMBLY_ENABLED, false);
+            settings.setBoolean(AnalysisCache.ENABLED, true);
+            try (Engine engine = new Engine(settings)) {
+                engine.scan(file);
+                engine.analyzeDependencies();
+                return engine.getLastAnalysisCache();
+            }
+        } finally {
+            settings.cleanup(true);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Test;
+import org.owasp.dependencycheck.analyzer.JarAnalyzer;
+import org.owasp.dependencycheck.analyzer.NvdCveAnalyzer;
+import org.owasp.dependencycheck.dependency.Confidence;
+import org.owasp.dependencycheck.dependency.Dependency;
+import org.owasp.dependencycheck.dependency.Evidence;
+import org.owasp.dependencycheck.dependency.EvidenceType;
+import org.owasp.dependencycheck.utils.Settings;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the AnalysisCache.
+ */
+public class AnalysisCacheTest extends BaseTest {
+
+    private static final String SHA1 = "0123456789abcdef0123456789abcdef01234567";
+
+    private Dependency createDependency(String fileName, String sha1) {
+        Dependency d = new Dependency();
+        d.setFileName(fileName);
+        d.setFilePath(File.separator + "lib" + File.separator + fileName);
+        d.setActualFilePath(d.getFilePath());
+        d.setSha1sum(sha1);
+        return d;
+    }
+
+    private File getCacheDirectory(String name) throws Exception {
+        File dir = new File(getSettings().getTempDirectory(), name);
+        org.apache.commons.io.FileUtils.deleteQuietly(dir);
+        return dir;
+    }
+
+    /**
+     * Test of store and restore, of class AnalysisCache.
+     */
+    @Test
+    public void testStoreRestore() throws Exception {
+        File dir = getCacheDirectory("analysis-cache-store");
+        Dependency analyzed = createDependency("struts2-core-2.1.2.jar", SHA1);
+        analyzed.addEvidence(EvidenceType.VENDOR, "jar", "vendor", "apache", Confidence.HIGH);
+        analyzed.addEvidence(EvidenceType.PRODUCT, "jar", "product", "struts", Confidence.HIGH);
+        analyzed.addIdentifier("cpe", "cpe:/a:apache:struts:2.1.2", null, Confidence.HIGHEST);
+        analyzed.setName("struts2-core");
+        analyzed.setVersion("2.1.2");
+
+        AnalysisCache instance = new AnalysisCache(dir, "stamp");
+        instance.store(new Dependency[]{analyzed});
+        assertEquals(1, instance.getStoreCount());
+
+        Dependency scanned = createDependency("struts2-core-2.1.2.jar", SHA1);
+        instance = new AnalysisCache(dir, "stamp");
+        instance.restore(new Dependency[]{scanned});
+        assertEquals(1, instance.getHitCount());
+        assertTrue(scanned.contains(EvidenceType.VENDOR, new Evidence("jar", "vendor", "apache", Confidence.HIGH)));
+        assertEquals(analyzed.getIdentifiers(), scanned.getIdentifiers());
+        assertEquals("struts2-core", scanned.getName());
+        assertEquals("2.1.2", scanned.getVersion());
+
+        assertTrue(instance.isRestored(new JarAnalyzer(), scanned));
+        assertFalse(instance.isRestored(new NvdCveAnalyzer(), scanned));
+        assertFalse(instance.isRestored(new JarAnalyzer(), analyzed));
+
+        instance = new AnalysisCache(dir, "changed");
+        instance.restore(new Dependency[]{createDependency("struts2-core-2.1.2.jar", SHA1)});
+        assertEquals(0, instance.getHitCount());
+        assertEquals(1, instance.getMissCount());
+    }
+
+    /**
+     * Test that dependencies which produced child dependencies and files that
+     * are not JAR files are not stored, of class AnalysisCache.
+     */
+    @Test
+    public void testStoreSkipsUncacheable() throws Exception {
+        File dir = getCacheDirectory("analysis-cache-skip");
+        Dependency parent = createDependency("fat.jar", SHA1);
+        Dependency child = createDependency("fat.jar", SHA1.replace('0', 'f'));
+        child.setFilePath(parent.getFilePath() + File.separator + "lib" + File.separator + "child.jar");
+        Dependency zip = createDependency("struts.zip", SHA1.replace('1', 'e'));
+
+        AnalysisCache instance = new AnalysisCache(dir, "stamp");
+        instance.store(new Dependency[]{parent, child, zip});
+        assertEquals(1, instance.getStoreCount());
+        assertFalse(AnalysisCache.isCacheable(zip));
+    }
+
+    /**
+     * Test that the stamp changes with the content of the hints file and the
+     * analyzer settings, of class AnalysisCache.
+     */
+    @Test
+    public void testCreateStamp() throws Exception {
+        File hints = new File(getCacheDirectory("analysis-cache-stamp"), "hints.xml");
+        hints.getParentFile().mkdirs();
+        Files.write(hints.toPath(), "<hints/>".getBytes(StandardCharsets.UTF_8));
+        getSettings().setString(Settings.KEYS.HINTS_FILE, hints.getPath());
+        try (Engine engine = new Engine(getSettings())) {
+            String stamp = AnalysisCache.createStamp(engine);
+            assertEquals(stamp, AnalysisCache.createStamp(engine));
+
+            Files.write(hints.toPath(), "<hints></hints>".getBytes(StandardCharsets.UTF_8));
+            String changed = AnalysisCache.createStamp(engine);
+            assertFalse(stamp.equals(changed));
+
+            getSettings().setString(Settings.KEYS.ANALYZER_CENTRAL_URL, "http://localhost/central");
+            assertFalse(changed.equals(AnalysisCache.createStamp(engine)));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.owasp.dependencycheck.dependency.Dependency;
+import org.owasp.dependencycheck.utils.Checksum;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests for the DirectoryWalkTask.
+ */
+public class DirectoryWalkTaskTest extends BaseTest {
+
+    /**
+     * Test of compute method, of class DirectoryWalkTask; the accepted files
+     * of nested directories are hashed and a symbolic link to a parent
+     * directory does not cause a cycle.
+     */
+    @Test(timeout = 60000)
+    public void testCompute() throws Exception {
+        File root = new File(getSettings().getTempDirectory(), "directory-walk");
+        org.apache.commons.io.FileUtils.deleteQuietly(root);
+        File nested = new File(root, "a" + File.separator + "b" + File.separator + "c");
+        assertTrue(nested.mkdirs());
+        File top = write(new File(root, "top.jar"));
+        File middle = write(new File(root, "a" + File.separator + "b" + File.separator + "middle.jar"));
+        File bottom = write(new File(nested, "bottom.jar"));
+        write(new File(nested, "readme.txt"));
+        try {
+            Files.createSymbolicLink(new File(nested, "loop").toPath(), root.toPath());
+        } catch (IOException | UnsupportedOperationException ex) {
+            assumeTrue("Symbolic links are not supported", false);
+        }
+
+        FileFilter filter = new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.getName().endsWith(".jar");
+            }
+        };
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            Map<File, Future<Dependency>> result = pool.invoke(new DirectoryWalkTask(root, filter));
+            Set<File> expected = new HashSet<>();
+            expected.add(top);
+            expected.add(middle);
+            expected.add(bottom);
+            assertEquals(expected, result.keySet());
+            for (Map.Entry<File, Future<Dependency>> entry : result.entrySet()) {
+                assertEquals(Checksum.getSHA1Checksum(entry.getKey()), entry.getValue().get().getSha1sum());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Writes the name of the file as its content.
+     *
+     * @param file the file to write
+     * @return the file
+     */
+    private File write(File file) throws IOException {
+        Files.write(file.toPath(), file.getName().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
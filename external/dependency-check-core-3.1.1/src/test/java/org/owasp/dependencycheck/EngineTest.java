@@ -28,6 +28,7 @@ import org.owasp.dependencycheck.exception.ExceptionCollection;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -70,6 +71,24 @@ public class EngineTest extends BaseDBTestCase {
         }
     }
 
+    @Test
+    public void testScanCollectionDeduplicates() throws DatabaseException {
+        try (Engine instance = new Engine(getSettings())) {
+            instance.addFileTypeAnalyzer(new JarAnalyzer());
+            final File dwr = BaseTest.getResourceAsFile(this, "dwr.jar");
+            final File jmx = BaseTest.getResourceAsFile(this, "org.mortbay.jmx.jar");
+            final List<Dependency> scanned = instance.scan(Arrays.asList(dwr, jmx, dwr));
+            assertEquals(3, scanned.size());
+            assertEquals(2, instance.getDependencies().length);
+            assertTrue(scanned.get(0) == scanned.get(2));
+
+            instance.removeDependency(scanned.get(0));
+            assertEquals(1, instance.getDependencies().length);
+            instance.scanFile(dwr);
+            assertEquals(2, instance.getDependencies().length);
+        }
+    }
+
     @Test(expected = ExceptionCollection.class)
     public void exceptionDuringAnalysisTaskExecutionIsFatal() throws DatabaseException, ExceptionCollection {
 
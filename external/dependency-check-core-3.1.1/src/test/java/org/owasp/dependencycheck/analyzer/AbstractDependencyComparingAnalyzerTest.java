@@ -0,0 +1,159 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.analyzer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.junit.Test;
+import org.owasp.dependencycheck.BaseTest;
+import org.owasp.dependencycheck.Engine;
+import org.owasp.dependencycheck.dependency.Confidence;
+import org.owasp.dependencycheck.dependency.Dependency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the blocking keys used by the dependency comparing analyzers
+ * produce the same results as comparing every pair of dependencies.
+ */
+public class AbstractDependencyComparingAnalyzerTest extends BaseTest {
+
+    private static String path(String... parts) {
+        final StringBuilder sb = new StringBuilder();
+        for (String part : parts) {
+            sb.append(File.separator).append(part);
+        }
+        return sb.toString();
+    }
+
+    private static Dependency create(String filePath, String sha1) {
+        final Dependency d = new Dependency();
+        d.setFilePath(filePath);
+        d.setActualFilePath(filePath);
+        d.setFileName(new File(filePath).getName());
+        d.setPackagePath(filePath);
+        d.setSha1sum(sha1);
+        return d;
+    }
+
+    private static List<Dependency> createDependencies() {
+        final List<Dependency> list = new ArrayList<>();
+        Dependency d = create(path("app", "lib", "spring-beans-3.0.0.jar"), "b1");
+        d.addIdentifier("cpe", "cpe:/a:springsource:spring_framework:3.0.0", null, Confidence.HIGHEST);
+        list.add(d);
+        d = create(path("app", "lib", "spring-core-3.0.0.jar"), "a1");
+        d.addIdentifier("cpe", "cpe:/a:springsource:spring_framework:3.0.0", null, Confidence.HIGHEST);
+        list.add(d);
+        d = create(path("other", "spring-core-3.0.0.jar"), "a1");
+        d.addIdentifier("cpe", "cpe:/a:springsource:spring_framework:3.0.0", null, Confidence.HIGHEST);
+        list.add(d);
+
+        d = create(path("app", "lib", "shaded-pom.xml"), "c2");
+        d.addIdentifier("maven", "org.example:shaded:1.0", null, Confidence.HIGHEST);
+        list.add(d);
+        d = create(path("app", "lib", "shaded-1.0.jar"), "c1");
+        d.addIdentifier("maven", "org.example:shaded:1.0", null, Confidence.HIGHEST);
+        d.addIdentifier("cpe", "cpe:/a:example:shaded:1.0", null, Confidence.HIGH);
+        list.add(d);
+
+        list.add(create(path("app", "META-INF", "maven", "pom.xml"), "d1"));
+        list.add(create(path("app", "lib", "unidentified-2.0.jar"), "d2"));
+
+        d = create(path("app", "node_modules", "lodash", "package.json"), "e1");
+        d.setEcosystem(AbstractNpmAnalyzer.NPM_DEPENDENCY_ECOSYSTEM);
+        d.setName("lodash");
+        d.setVersion("4.17.4");
+        list.add(d);
+        d = create(path("app", "package-lock.json"), "e2");
+        d.setEcosystem(AbstractNpmAnalyzer.NPM_DEPENDENCY_ECOSYSTEM);
+        d.setName("lodash");
+        d.setVersion("4.17.4");
+        list.add(d);
+
+        list.add(create(path("app", "gems", "specifications", "rake.gemspec"), "f1"));
+        list.get(list.size() - 1).setPackagePath(path("app", "gems", "rake"));
+        list.add(create(path("app", "gems", "rake", "rake.gemspec"), "f2"));
+        list.get(list.size() - 1).setPackagePath(path("APP", "gems", "rake"));
+
+        for (int i = 0; i < 25; i++) {
+            d = create(path("app", "lib", "library" + i + "-1." + i + ".jar"), "noise" + i);
+            if (i % 3 == 0) {
+                d.addIdentifier("cpe", "cpe:/a:vendor:library" + (i % 2) + ":1.0", null, Confidence.LOW);
+            }
+            list.add(d);
+        }
+        return list;
+    }
+
+    private TreeMap<String, Set<String>> analyze(AbstractDependencyComparingAnalyzer analyzer) throws Exception {
+        try (Engine engine = new Engine(getSettings())) {
+            for (Dependency d : createDependencies()) {
+                engine.addDependency(d);
+            }
+            analyzer.analyzeDependency(null, engine);
+            final TreeMap<String, Set<String>> result = new TreeMap<>();
+            for (Dependency d : engine.getDependencies()) {
+                final Set<String> related = new TreeSet<>();
+                for (Dependency r : d.getRelatedDependencies()) {
+                    related.add(r.getFilePath());
+                }
+                result.put(d.getFilePath(), related);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Test that the bundling analyzer produces the same results with blocking
+     * as when every pair is evaluated.
+     */
+    @Test
+    public void testBundlingBlockingMatchesExhaustive() throws Exception {
+        final TreeMap<String, Set<String>> expected = analyze(new DependencyBundlingAnalyzer() {
+            @Override
+            protected Set<String> getBlockingKeys(Dependency dependency) {
+                return null;
+            }
+        });
+        final TreeMap<String, Set<String>> result = analyze(new DependencyBundlingAnalyzer());
+        assertTrue(expected.size() < createDependencies().size());
+        assertEquals(expected, result);
+    }
+
+    /**
+     * Test that the merging analyzer produces the same results with blocking
+     * as when every pair is evaluated.
+     */
+    @Test
+    public void testMergingBlockingMatchesExhaustive() throws Exception {
+        final TreeMap<String, Set<String>> expected = analyze(new DependencyMergingAnalyzer() {
+            @Override
+            protected Set<String> getBlockingKeys(Dependency dependency) {
+                return null;
+            }
+        });
+        final TreeMap<String, Set<String>> result = analyze(new DependencyMergingAnalyzer());
+        assertEquals(createDependencies().size() - 1, expected.size());
+        assertEquals(expected, result);
+    }
+}
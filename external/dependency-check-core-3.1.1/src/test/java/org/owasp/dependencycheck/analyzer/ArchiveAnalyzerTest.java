@@ -16,10 +16,21 @@
 package org.owasp.dependencycheck.analyzer;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -27,6 +38,8 @@ import static org.junit.Assert.*;
 import static org.junit.Assume.assumeFalse;
 
 import org.owasp.dependencycheck.BaseTest;
+import org.owasp.dependencycheck.Engine;
+import org.owasp.dependencycheck.dependency.Dependency;
 import org.owasp.dependencycheck.utils.Settings;
 
 /**
@@ -56,6 +69,227 @@ public class ArchiveAnalyzerTest extends BaseTest {
         assertFalse(instance.getFileFilter().accept(new File("c:/test.z4")));
     }
 
+    /**
+     * Test of extractFiles method, of class ArchiveAnalyzer; the entries of a
+     * jar are located using the central directory.
+     */
+    @Test
+    public void testExtractFiles() throws Exception {
+        File dir = createDirectory("archive-extract");
+        File jar = new File(dir, "outer.jar");
+        writeZip(jar, null, "lib/inner.jar", "readme.txt");
+        assertExtracted(jar, new File(dir, "out"));
+    }
+
+    /**
+     * Test of extractFiles method, of class ArchiveAnalyzer; a fully
+     * executable jar is streamed as the script preceding the zip data is
+     * skipped.
+     */
+    @Test
+    public void testExtractFilesExecutableJar() throws Exception {
+        File dir = createDirectory("archive-extract-script");
+        File jar = new File(dir, "outer.jar");
+        writeZip(jar, "#!/bin/sh\nexec java -jar \"$0\" \"$@\"\n", "lib/inner.jar", "readme.txt");
+        assertExtracted(jar, new File(dir, "out"));
+    }
+
+    /**
+     * Test of extractFiles method, of class ArchiveAnalyzer; when the central
+     * directory cannot be read the archive is streamed instead.
+     */
+    @Test
+    public void testExtractFilesCorruptCentralDirectory() throws Exception {
+        File dir = createDirectory("archive-extract-corrupt");
+        File jar = new File(dir, "outer.jar");
+        writeZip(jar, null, "lib/inner.jar", "readme.txt");
+        //overwrite the end of central directory record
+        try (RandomAccessFile raf = new RandomAccessFile(jar, "rw")) {
+            raf.seek(raf.length() - 22);
+            raf.write(new byte[22]);
+        }
+        assertExtracted(jar, new File(dir, "out"));
+    }
+
+    /**
+     * Test of analyze method, of class ArchiveAnalyzer; the temporary
+     * directory of an archive without any supported files is deleted.
+     */
+    @Test
+    public void testAnalyzeNothingExtracted() throws Exception {
+        File dir = createDirectory("archive-extract-empty");
+        File zip = new File(dir, "docs.zip");
+        writeZip(zip, null, "readme.txt", "docs/index.html");
+        ArchiveAnalyzer instance = new ArchiveAnalyzer();
+        instance.initialize(getSettings());
+        instance.accept(zip);
+        try (Engine engine = new Engine(getSettings())) {
+            instance.prepare(engine);
+            Dependency dependency = new Dependency(zip);
+            engine.addDependency(dependency);
+            instance.analyze(dependency, engine);
+            assertEquals(0, engine.getDependencies().length);
+            for (File location : getSettings().getTempDirectory().listFiles()) {
+                if (location.isDirectory() && location.getName().startsWith("check")) {
+                    assertEquals(0, location.list().length);
+                }
+            }
+        } finally {
+            instance.close();
+        }
+    }
+
+    /**
+     * Test of analyze method, of class ArchiveAnalyzer; the nested archives
+     * are extracted in parallel and replaced by their contents.
+     */
+    @Test
+    public void testAnalyzeParallel() throws Exception {
+        getSettings().setBoolean(ArchiveAnalyzer.PARALLEL_EXTRACTION, true);
+        getSettings().setString(ArchiveAnalyzer.EXTRACTION_THREADS, "2");
+        File dir = createDirectory("archive-extract-parallel");
+        Map<String, byte[]> nested = new LinkedHashMap<>();
+        for (int i = 0; i < 4; i++) {
+            File inner = new File(dir, "inner" + i + ".zip");
+            writeZip(inner, null, "lib/library" + i + ".jar", "readme.txt");
+            nested.put("inner" + i + ".zip", Files.readAllBytes(inner.toPath()));
+        }
+        File outer = new File(dir, "outer.zip");
+        writeZip(outer, null, nested);
+
+        ArchiveAnalyzer instance = new ArchiveAnalyzer();
+        instance.initialize(getSettings());
+        instance.accept(outer);
+        try (Engine engine = new Engine(getSettings())) {
+            instance.prepare(engine);
+            Dependency dependency = new Dependency(outer);
+            engine.addDependency(dependency);
+            instance.analyze(dependency, engine);
+            Set<String> names = new HashSet<>();
+            for (Dependency d : engine.getDependencies()) {
+                names.add(d.getActualFile().getName());
+            }
+            Set<String> expected = new HashSet<>();
+            for (int i = 0; i < 4; i++) {
+                expected.add("library" + i + ".jar");
+            }
+            assertEquals(expected, names);
+        } finally {
+            instance.close();
+        }
+    }
+
+    /**
+     * Test of analyze method, of class ArchiveAnalyzer; once the cap on the
+     * temporary disk space is reached the file being extracted is discarded
+     * and the archives remain in the analysis.
+     */
+    @Test
+    public void testAnalyzeTempSizeExceeded() throws Exception {
+        getSettings().setString(ArchiveAnalyzer.MAX_TEMP_SIZE, "1");
+        File dir = createDirectory("archive-extract-cap");
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        contents.put("lib/large.jar", new byte[2 * 1024 * 1024]);
+        File large = new File(dir, "large.zip");
+        writeZip(large, null, contents);
+        File small = new File(dir, "small.zip");
+        writeZip(small, null, "lib/small.jar");
+
+        ArchiveAnalyzer instance = new ArchiveAnalyzer();
+        instance.initialize(getSettings());
+        instance.accept(large);
+        try (Engine engine = new Engine(getSettings())) {
+            instance.prepare(engine);
+            Dependency largeDependency = new Dependency(large);
+            engine.addDependency(largeDependency);
+            instance.analyze(largeDependency, engine);
+            Dependency smallDependency = new Dependency(small);
+            engine.addDependency(smallDependency);
+            instance.analyze(smallDependency, engine);
+
+            assertEquals(2, engine.getDependencies().length);
+            for (Dependency d : engine.getDependencies()) {
+                assertTrue(d.getFileName().endsWith(".zip"));
+            }
+            for (File location : getSettings().getTempDirectory().listFiles()) {
+                if (location.isDirectory() && location.getName().startsWith("check")) {
+                    assertEquals(0, org.apache.commons.io.FileUtils.listFiles(location, null, true).size());
+                }
+            }
+        } finally {
+            instance.close();
+        }
+    }
+
+    /**
+     * Extracts the archive and checks that only the supported file was
+     * extracted.
+     *
+     * @param archive the archive created by {@link #writeZip}
+     * @param destination the directory to extract to
+     */
+    private void assertExtracted(File archive, File destination) throws Exception {
+        ArchiveAnalyzer instance = new ArchiveAnalyzer();
+        instance.initialize(getSettings());
+        try (Engine engine = new Engine(getSettings())) {
+            assertEquals(1, instance.extractFiles(archive, destination, engine));
+            assertTrue(new File(destination, "lib" + File.separator + "inner.jar").isFile());
+            assertFalse(new File(destination, "readme.txt").exists());
+        } finally {
+            instance.close();
+        }
+    }
+
+    /**
+     * Creates an empty directory within the temporary directory.
+     *
+     * @param name the name of the directory
+     * @return the directory
+     */
+    private File createDirectory(String name) throws IOException {
+        File dir = new File(getSettings().getTempDirectory(), name);
+        org.apache.commons.io.FileUtils.deleteQuietly(dir);
+        assertTrue(dir.mkdirs());
+        return dir;
+    }
+
+    /**
+     * Writes a zip file containing the given entries.
+     *
+     * @param file the file to write
+     * @param script an optional script written before the zip data
+     * @param entries the names of the entries
+     */
+    static void writeZip(File file, String script, String... entries) throws IOException {
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        for (String entry : entries) {
+            contents.put(entry, entry.getBytes("UTF-8"));
+        }
+        writeZip(file, script, contents);
+    }
+
+    /**
+     * Writes a zip file containing the given entries.
+     *
+     * @param file the file to write
+     * @param script an optional script written before the zip data
+     * @param entries the content of the entries keyed by name
+     */
+    static void writeZip(File file, String script, Map<String, byte[]> entries) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            if (script != null) {
+                out.write(script.getBytes("UTF-8"));
+            }
+            try (ZipOutputStream zip = new ZipOutputStream(out)) {
+                for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                    zip.putNextEntry(new ZipEntry(entry.getKey()));
+                    zip.write(entry.getValue());
+                    zip.closeEntry();
+                }
+            }
+        }
+    }
+
     private boolean isPreviouslyLoaded(String className) {
         try {
             Method m = ClassLoader.class.getDeclaredMethod("findLoadedClass", String.class);
@@ -19,9 +19,14 @@ package org.owasp.dependencycheck.analyzer;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.junit.Test;
@@ -32,6 +37,7 @@ import org.owasp.dependencycheck.data.cpe.IndexEntry;
 import org.owasp.dependencycheck.dependency.Confidence;
 import org.owasp.dependencycheck.dependency.Dependency;
 import org.owasp.dependencycheck.dependency.Identifier;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import org.owasp.dependencycheck.dependency.EvidenceType;
@@ -293,6 +299,58 @@ public class CPEAnalyzerIT extends BaseDBTestCase {
                 }
             }
             assertTrue("apache:struts was not identified", found);
+
+            assertEquals(0, instance.getSearchCacheHits());
+            List<IndexEntry> cached = instance.searchCPE(vendor, product, vendorWeightings, productWeightings);
+            assertEquals(result, cached);
+            assertEquals(1, instance.getSearchCacheHits());
+            assertEquals(1, instance.getSearchCacheMisses());
+        }
+        instance.close();
+    }
+
+    /**
+     * Test of searchCPE method, of class CPEAnalyzer, when called from many
+     * threads in parallel.
+     *
+     * @throws Exception is thrown when an exception occurs
+     */
+    @Test
+    public void testSearchCPEConcurrently() throws Exception {
+        final String[][] searches = {
+            {"apache software foundation", "struts 2 core"},
+            {"apache", "commons fileupload"},
+            {"springsource", "spring framework"},
+            {"openssl", "openssl"}};
+
+        final CPEAnalyzer instance = new CPEAnalyzer();
+        try (Engine engine = new Engine(getSettings())) {
+            engine.openDatabase(true, true);
+            instance.initialize(getSettings());
+            instance.prepare(engine);
+
+            final List<List<IndexEntry>> expected = new ArrayList<>();
+            for (String[] search : searches) {
+                expected.add(instance.searchCPE(search[0], search[1], null, null));
+            }
+            final ExecutorService executor = Executors.newFixedThreadPool(8);
+            try {
+                final List<Future<List<IndexEntry>>> results = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    final String[] search = searches[i % searches.length];
+                    results.add(executor.submit(new Callable<List<IndexEntry>>() {
+                        @Override
+                        public List<IndexEntry> call() throws Exception {
+                            return instance.searchCPE(search[0], search[1], null, null);
+                        }
+                    }));
+                }
+                for (int i = 0; i < results.size(); i++) {
+                    assertEquals(expected.get(i % searches.length), results.get(i).get());
+                }
+            } finally {
+                executor.shutdown();
+            }
         }
         instance.close();
     }
@@ -0,0 +1,85 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.analyzer;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.owasp.dependencycheck.AnalysisCache;
+import org.owasp.dependencycheck.BaseDBTestCase;
+import org.owasp.dependencycheck.BaseTest;
+import org.owasp.dependencycheck.Engine;
+import org.owasp.dependencycheck.utils.Checksum;
+import org.owasp.dependencycheck.utils.Settings;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the CentralAnalyzer when used by the Engine.
+ */
+public class CentralAnalyzerIT extends BaseDBTestCase {
+
+    /**
+     * Tests that, without an explicit cache directory, the artifacts found by
+     * one scan are kept in the data directory and used by the next scan.
+     */
+    @Test
+    public void testArtifactCacheSurvivesBetweenScans() throws Exception {
+        final File spring = BaseTest.getResourceAsFile(this, "spring-core-3.0.0.RELEASE.jar");
+        FileUtils.deleteDirectory(new File(getSettings().getDataDirectory(), "artifact.cache"));
+        final AtomicInteger requests = new AtomicInteger();
+        final HttpServer server = CentralAnalyzerTest.startCentral(Checksum.getSHA1Checksum(spring), requests);
+        try {
+            final String url = "http://localhost:" + server.getAddress().getPort() + "/solrsearch/select";
+            analyze(spring, url);
+            assertEquals(1, requests.get());
+            analyze(spring, url);
+            assertEquals(1, requests.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Runs a complete scan of the given file with its own settings, as a
+     * separate invocation of dependency-check would.
+     *
+     * @param file the file to scan
+     * @param url the URL of the Central search
+     */
+    private void analyze(File file, String url) throws Exception {
+        final Settings settings = new Settings();
+        try {
+            settings.setBoolean(Settings.KEYS.AUTO_UPDATE, false);
+            settings.setBoolean(Settings.KEYS.ANALYZER_NEXUS_ENABLED, false);
+            settings.setBoolean(Settings.KEYS.ANALYZER_CENTRAL_ENABLED, true);
+            settings.setString(Settings.KEYS.ANALYZER_CENTRAL_URL, url);
+            settings.setBoolean(Settings.KEYS.ANALYZER_BUNDLE_AUDIT_ENABLED, false);
+            settings.setBoolean(Settings.KEYS.ANALYZER_ASSEMBLY_ENABLED, false);
+            settings.setBoolean(AnalysisCache.ENABLED, false);
+            try (Engine engine = new Engine(settings)) {
+                engine.scan(file);
+                engine.analyzeDependencies();
+            }
+        } finally {
+            settings.cleanup(true);
+        }
+    }
+}
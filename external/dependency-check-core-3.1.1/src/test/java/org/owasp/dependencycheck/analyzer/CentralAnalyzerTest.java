@@ -17,23 +17,38 @@
  */
 package org.owasp.dependencycheck.analyzer;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
 import mockit.Expectations;
 import mockit.Mock;
 import mockit.MockUp;
 import mockit.Mocked;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.owasp.dependencycheck.Engine;
 import org.owasp.dependencycheck.analyzer.exception.AnalysisException;
 import org.owasp.dependencycheck.data.central.CentralSearch;
 import org.owasp.dependencycheck.data.nexus.MavenArtifact;
+import org.owasp.dependencycheck.data.nexus.MavenArtifactCache;
 import org.owasp.dependencycheck.dependency.Dependency;
+import org.owasp.dependencycheck.dependency.Evidence;
+import org.owasp.dependencycheck.dependency.EvidenceType;
+import org.owasp.dependencycheck.utils.Settings;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Tests for the CentralAnalyzer.
@@ -154,6 +169,219 @@ public class CentralAnalyzerTest {
         instance.analyze(dependency, null);
     }
 
+    @Test
+    public void testFetchMavenArtifactsUsesCache() throws Exception {
+        final String found = "0123456789abcdef0123456789abcdef01234567";
+        final String missing = "76543210fedcba9876543210fedcba9876543210";
+        final AtomicInteger requests = new AtomicInteger();
+        final HttpServer server = startCentral(found, requests);
+        final Settings settings = new Settings();
+        try {
+            settings.setString(Settings.KEYS.ANALYZER_CENTRAL_URL,
+                    "http://localhost:" + server.getAddress().getPort() + "/solrsearch/select");
+            settings.setString(MavenArtifactCache.DIRECTORY,
+                    Files.createTempDirectory(settings.getTempDirectory().toPath(), "artifacts").toString());
+            final Dependency dependency = new Dependency();
+            dependency.setSha1sum(found);
+            final Dependency notFound = new Dependency();
+            notFound.setSha1sum(missing);
+
+            for (int i = 0; i < 2; i++) {
+                final CentralAnalyzer instance = new CentralAnalyzer();
+                instance.initialize(settings);
+                instance.prepareFileTypeAnalyzer(null);
+                final List<MavenArtifact> artifacts = instance.fetchMavenArtifacts(dependency);
+                assertEquals(1, artifacts.size());
+                assertEquals("org.example", artifacts.get(0).getGroupId());
+                assertEquals("example", artifacts.get(0).getArtifactId());
+                assertEquals("1.0", artifacts.get(0).getVersion());
+                try {
+                    instance.fetchMavenArtifacts(notFound);
+                    fail("FileNotFoundException expected");
+                } catch (FileNotFoundException ex) {
+                    //expected
+                }
+            }
+            assertEquals(2, requests.get());
+        } finally {
+            server.stop(0);
+            settings.cleanup(true);
+        }
+    }
+
+    @Test
+    public void testFetchMavenArtifactsPrefetched() throws Exception {
+        final String found = "0123456789abcdef0123456789abcdef01234567";
+        final String[] missing = {"76543210fedcba9876543210fedcba9876543210", "fedcba9876543210fedcba9876543210fedcba98"};
+        final AtomicInteger requests = new AtomicInteger();
+        final HttpServer server = startCentral(found, requests);
+        final Settings settings = new Settings();
+        try (Engine engine = new Engine(settings)) {
+            settings.setString(Settings.KEYS.ANALYZER_CENTRAL_URL,
+                    "http://localhost:" + server.getAddress().getPort() + "/solrsearch/select");
+            settings.setBoolean(MavenArtifactCache.ENABLED, false);
+            settings.setBoolean(CentralAnalyzer.PREFETCH_ENABLED, true);
+            settings.setInt(CentralAnalyzer.PREFETCH_RATE_LIMIT, 0);
+            final Dependency[] dependencies = {
+                createJar("a.jar", found), createJar("b.jar", missing[0]), createJar("c.jar", found), createJar("d.jar", missing[1])};
+            for (Dependency d : dependencies) {
+                engine.addDependency(d);
+            }
+            final CentralAnalyzer instance = new CentralAnalyzer();
+            instance.initialize(settings);
+            instance.prepareFileTypeAnalyzer(engine);
+            for (Dependency d : dependencies) {
+                if (found.equals(d.getSha1sum())) {
+                    assertEquals("example", instance.fetchMavenArtifacts(d).get(0).getArtifactId());
+                } else {
+                    try {
+                        instance.fetchMavenArtifacts(d);
+                        fail("FileNotFoundException expected");
+                    } catch (FileNotFoundException ex) {
+                        //expected
+                    }
+                }
+            }
+            instance.close();
+            assertEquals(3, requests.get());
+        } finally {
+            server.stop(0);
+            settings.cleanup(true);
+        }
+    }
+
+    @Test
+    public void testPrefetchSkipsRestoredDependencies() throws Exception {
+        final String found = "0123456789abcdef0123456789abcdef01234567";
+        final String missing = "76543210fedcba9876543210fedcba9876543210";
+        final AtomicInteger requests = new AtomicInteger();
+        final HttpServer server = startCentral(found, requests);
+        final Settings settings = new Settings();
+        try (final Engine engine = new Engine(settings)) {
+            settings.setString(Settings.KEYS.ANALYZER_CENTRAL_URL,
+                    "http://localhost:" + server.getAddress().getPort() + "/solrsearch/select");
+            settings.setBoolean(MavenArtifactCache.ENABLED, false);
+            settings.setBoolean(CentralAnalyzer.PREFETCH_ENABLED, true);
+            settings.setInt(CentralAnalyzer.PREFETCH_MAX_IN_FLIGHT, 1);
+            settings.setInt(CentralAnalyzer.PREFETCH_RATE_LIMIT, 0);
+            final Dependency restored = createJar("a.jar", found);
+            final Dependency analyzed = createJar("b.jar", missing);
+            engine.addDependency(restored);
+            engine.addDependency(analyzed);
+            new Expectations(engine) {
+                {
+                    engine.isRestored((Analyzer) any, restored);
+                    result = true;
+                }
+            };
+            final CentralAnalyzer instance = new CentralAnalyzer();
+            instance.initialize(settings);
+            instance.prepareFileTypeAnalyzer(engine);
+            try {
+                instance.fetchMavenArtifacts(analyzed);
+                fail("FileNotFoundException expected");
+            } catch (FileNotFoundException ex) {
+                //expected
+            }
+            instance.close();
+            assertEquals(1, requests.get());
+        } finally {
+            server.stop(0);
+            settings.cleanup(true);
+        }
+    }
+
+    @Test
+    public void testAnalyzeUsesCachedPom() throws Exception {
+        final String found = "0123456789abcdef0123456789abcdef01234567";
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger pomRequests = new AtomicInteger();
+        final HttpServer server = startCentral(found, requests);
+        server.createContext("/pom", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                pomRequests.incrementAndGet();
+                final byte[] content = ("<project><modelVersion>4.0.0</modelVersion><groupId>org.example</groupId>"
+                        + "<artifactId>example</artifactId><version>1.0</version><name>Example</name></project>")
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, content.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(content);
+                }
+            }
+        });
+        final Settings settings = new Settings();
+        try {
+            final String url = "http://localhost:" + server.getAddress().getPort() + "/solrsearch/select";
+            settings.setString(Settings.KEYS.ANALYZER_CENTRAL_URL, url);
+            settings.setString(MavenArtifactCache.DIRECTORY,
+                    Files.createTempDirectory(settings.getTempDirectory().toPath(), "artifacts").toString());
+            final MavenArtifact artifact = new MavenArtifact("org.example", "example", "1.0");
+            artifact.setPomUrl("http://localhost:" + server.getAddress().getPort() + "/pom");
+            MavenArtifactCache.open(settings, url).put(found, Collections.singletonList(artifact));
+
+            for (int i = 0; i < 2; i++) {
+                final CentralAnalyzer instance = new CentralAnalyzer();
+                instance.initialize(settings);
+                instance.prepareFileTypeAnalyzer(null);
+                final Dependency dependency = createJar("example.jar", found);
+                instance.analyzeDependency(dependency, null);
+                boolean pomAnalyzed = false;
+                for (Evidence e : dependency.getEvidence(EvidenceType.VENDOR)) {
+                    pomAnalyzed |= "pom".equals(e.getSource());
+                }
+                assertTrue(pomAnalyzed);
+            }
+            assertEquals(0, requests.get());
+            assertEquals(1, pomRequests.get());
+        } finally {
+            server.stop(0);
+            settings.cleanup(true);
+        }
+    }
+
+    private static Dependency createJar(String name, String sha1) {
+        final Dependency dependency = new Dependency();
+        dependency.setFileName(name);
+        dependency.setFilePath(name);
+        dependency.setActualFilePath(name);
+        dependency.setSha1sum(sha1);
+        return dependency;
+    }
+
+    /**
+     * Starts a stub of the Central search that finds the given SHA1 and
+     * nothing else.
+     *
+     * @param found the SHA1 that is found
+     * @param requests the counter of the requests received
+     * @return the started server
+     */
+    static HttpServer startCentral(final String found, final AtomicInteger requests) throws IOException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/solrsearch/select", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                final String body;
+                if (exchange.getRequestURI().getRawQuery().contains(found)) {
+                    body = "<response><result numFound=\"1\"><doc>"
+                            + "<str name=\"g\">org.example</str><str name=\"a\">example</str><str name=\"v\">1.0</str>"
+                            + "<arr name=\"ec\"><str>.jar</str></arr></doc></result></response>";
+                } else {
+                    body = "<response><result numFound=\"0\"></result></response>";
+                }
+                final byte[] content = body.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, content.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(content);
+                }
+            }
+        });
+        server.start();
+        return server;
+    }
+
     /**
      * We do not want to waste time in unit tests.
      */
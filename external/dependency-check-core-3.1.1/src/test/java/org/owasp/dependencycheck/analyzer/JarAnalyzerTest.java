@@ -180,6 +180,21 @@ public class JarAnalyzerTest extends BaseTest {
         assertEquals(expected, results);
     }
 
+    @Test
+    public void testGetPackageStructureKey() {
+        String name = "org/owasp/dependencycheck/analyzer/JarAnalyzer.class";
+        assertEquals("org/owasp/dependencycheck/analyzer/JarAnalyzer", JarAnalyzer.getPackageStructureKey(name, name.length() - 6));
+        name = "org/owasp/dependencycheck/analyzer/exception/AnalysisException.class";
+        String key = JarAnalyzer.getPackageStructureKey(name, name.length() - 6);
+        assertEquals("org/owasp/dependencycheck/analyzer/exception", key);
+        assertEquals(new JarAnalyzer.ClassNameInformation(name.substring(0, name.length() - 6).toLowerCase()).getPackageStructure(),
+                new JarAnalyzer.ClassNameInformation(key.toLowerCase()).getPackageStructure());
+        name = "a/b/c/d/e/F.class";
+        assertEquals("a/b/c/d", JarAnalyzer.getPackageStructureKey(name, name.length() - 6));
+        name = "Foo.class";
+        assertEquals("Foo", JarAnalyzer.getPackageStructureKey(name, name.length() - 6));
+    }
+
     @Test
     public void testAnalyzeDependency_SkipsMacOSMetaDataFile() throws Exception {
         JarAnalyzer instance = new JarAnalyzer();
@@ -0,0 +1,64 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.cpe;
+
+import java.io.File;
+import org.junit.Test;
+import org.owasp.dependencycheck.BaseDBTestCase;
+import org.owasp.dependencycheck.data.nvdcve.CveDB;
+import org.owasp.dependencycheck.utils.FileUtils;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the CpeMemoryIndex.
+ */
+public class CpeMemoryIndexIT extends BaseDBTestCase {
+
+    /**
+     * Test of open method, of class CpeMemoryIndex, using the persistent
+     * index.
+     */
+    @Test
+    public void testOpenPersistent() throws Exception {
+        final File directory = getSettings().getTempDirectory();
+        getSettings().setBoolean(CpeMemoryIndex.PERSISTENT_INDEX, true);
+        getSettings().setString(CpeMemoryIndex.INDEX_DIRECTORY, directory.getPath());
+        final File stamp = new File(directory, "cpe.index.properties");
+        final CpeMemoryIndex instance = CpeMemoryIndex.getInstance();
+        try (CveDB cve = new CveDB(getSettings())) {
+            instance.open(cve);
+            final int expected = instance.numDocs();
+            instance.close();
+
+            instance.open(cve, getSettings());
+            assertEquals(expected, instance.numDocs());
+            instance.close();
+            assertTrue(stamp.isFile());
+            final long built = stamp.lastModified();
+
+            instance.open(cve, getSettings());
+            assertEquals(expected, instance.numDocs());
+            instance.close();
+            assertEquals(built, stamp.lastModified());
+        } finally {
+            FileUtils.delete(new File(directory, "cpe.index"));
+            FileUtils.delete(stamp);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.nexus;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.owasp.dependencycheck.BaseTest;
+
+/**
+ * Test of the Maven artifact cache.
+ */
+public class MavenArtifactCacheTest extends BaseTest {
+
+    private static final String SHA1 = "0123456789ABCDEF0123456789ABCDEF01234567";
+
+    private File createDirectory() throws Exception {
+        return Files.createTempDirectory(getSettings().getTempDirectory().toPath(), "artifacts").toFile();
+    }
+
+    /**
+     * Test of get and put methods, of class MavenArtifactCache.
+     */
+    @Test
+    public void testGetAndPut() throws Exception {
+        final MavenArtifactCache instance = new MavenArtifactCache(createDirectory(), 60000);
+        assertNull(instance.get(SHA1));
+
+        final MavenArtifact first = new MavenArtifact("org.example", "example", "1.0",
+                "https://repo.example.org/example-1.0.jar");
+        final MavenArtifact second = new MavenArtifact("org.example", "example-shaded", "1.0");
+        instance.put(SHA1, Arrays.asList(first, second));
+
+        final List<MavenArtifact> result = instance.get(SHA1.toLowerCase());
+        assertNotNull(result);
+        assertEquals(2, result.size());
+        assertEquals("org.example", result.get(0).getGroupId());
+        assertEquals("example", result.get(0).getArtifactId());
+        assertEquals("1.0", result.get(0).getVersion());
+        assertEquals(first.getArtifactUrl(), result.get(0).getArtifactUrl());
+        assertEquals(first.getPomUrl(), result.get(0).getPomUrl());
+        assertEquals("example-shaded", result.get(1).getArtifactId());
+        assertNull(result.get(1).getArtifactUrl());
+    }
+
+    /**
+     * Test that SHA1s which were not found are only cached for the configured
+     * time.
+     */
+    @Test
+    public void testNotFound() throws Exception {
+        final File directory = createDirectory();
+        MavenArtifactCache instance = new MavenArtifactCache(directory, 60000);
+        instance.put(SHA1, Collections.<MavenArtifact>emptyList());
+        assertTrue(instance.get(SHA1).isEmpty());
+
+        instance = new MavenArtifactCache(directory, -1);
+        assertNull(instance.get(SHA1));
+    }
+
+    /**
+     * Test that invalid SHA1s are never cached.
+     */
+    @Test
+    public void testInvalidSha1() throws Exception {
+        final MavenArtifactCache instance = new MavenArtifactCache(createDirectory(), 60000);
+        instance.put("../../etc/passwd", Collections.<MavenArtifact>emptyList());
+        assertNull(instance.get("../../etc/passwd"));
+        assertNull(instance.get(null));
+    }
+
+    /**
+     * Test of getPom and putPom methods, of class MavenArtifactCache.
+     */
+    @Test
+    public void testGetAndPutPom() throws Exception {
+        final String url = "https://repo.example.org/org/example/example/1.0/example-1.0.pom";
+        final MavenArtifactCache instance = new MavenArtifactCache(createDirectory(), 60000);
+        assertNull(instance.getPom(url));
+        assertNull(instance.getPom(null));
+
+        final File pom = new File(createDirectory(), "pom.xml");
+        Files.write(pom.toPath(), "<project/>".getBytes(StandardCharsets.UTF_8));
+        instance.putPom(url, pom);
+        final File cached = instance.getPom(url);
+        assertNotNull(cached);
+        assertTrue(pom.delete());
+        assertEquals("<project/>", new String(Files.readAllBytes(cached.toPath()), StandardCharsets.UTF_8));
+        assertNull(instance.getPom(url + ".sha1"));
+    }
+
+    /**
+     * Test of open method, of class MavenArtifactCache.
+     */
+    @Test
+    public void testOpen() throws Exception {
+        getSettings().setString(MavenArtifactCache.DIRECTORY, createDirectory().getPath());
+        final MavenArtifactCache central = MavenArtifactCache.open(getSettings(), "https://central.example.org");
+        final MavenArtifactCache nexus = MavenArtifactCache.open(getSettings(), "https://nexus.example.org");
+        central.put(SHA1, Collections.singletonList(new MavenArtifact("org.example", "example", "1.0")));
+        assertEquals(1, central.get(SHA1).size());
+        assertNull(nexus.get(SHA1));
+
+        getSettings().setBoolean(MavenArtifactCache.ENABLED, false);
+        assertNull(MavenArtifactCache.open(getSettings(), "https://central.example.org"));
+    }
+}
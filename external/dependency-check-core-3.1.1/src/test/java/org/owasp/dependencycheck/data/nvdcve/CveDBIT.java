@@ -18,6 +18,12 @@
 package org.owasp.dependencycheck.data.nvdcve;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.owasp.dependencycheck.BaseDBTestCase;
 import org.owasp.dependencycheck.dependency.Vulnerability;
 import org.owasp.dependencycheck.dependency.VulnerableSoftware;
@@ -91,6 +97,51 @@ public class CveDBIT extends BaseDBTestCase {
         assertEquals("The ParametersInterceptor in Apache Struts before 2.3.16.1 allows remote attackers to \"manipulate\" the ClassLoader via the class parameter, which is passed to the getClass method.", result.getDescription());
     }
 
+    /**
+     * Test of updateVulnerabilities method, of class CveDB; unchanged
+     * vulnerabilities are skipped.
+     */
+    @Test
+    public void testUpdateVulnerabilities() throws Exception {
+        Vulnerability vuln = instance.getVulnerability("CVE-2014-0094");
+        final String description = vuln.getDescription();
+        //the first update stores the content hash
+        instance.updateVulnerabilities(Collections.singletonList(vuln));
+        assertEquals(0, instance.updateVulnerabilities(Collections.singletonList(vuln)));
+
+        vuln.setDescription(description + " (updated)");
+        assertEquals(1, instance.updateVulnerabilities(Collections.singletonList(vuln)));
+        assertEquals(description + " (updated)", instance.getVulnerability("CVE-2014-0094").getDescription());
+
+        vuln.setDescription(description);
+        assertEquals(1, instance.updateVulnerabilities(Collections.singletonList(vuln)));
+        assertEquals(description, instance.getVulnerability("CVE-2014-0094").getDescription());
+    }
+
+    /**
+     * Test of updateVulnerabilities method, of class CveDB; a batch containing
+     * the same vulnerability twice is written within one transaction.
+     */
+    @Test
+    public void testUpdateVulnerabilitiesDuplicate() throws Exception {
+        Vulnerability vuln = instance.getVulnerability("CVE-2014-0094");
+        final String description = vuln.getDescription();
+        final int software = vuln.getVulnerableSoftware().size();
+        List<Vulnerability> batch = new ArrayList<>();
+        batch.add(vuln);
+        batch.add(vuln);
+
+        vuln.setDescription(description + " (duplicate)");
+        instance.updateVulnerabilities(batch);
+        Vulnerability result = instance.getVulnerability("CVE-2014-0094");
+        assertEquals(description + " (duplicate)", result.getDescription());
+        assertEquals(software, result.getVulnerableSoftware().size());
+
+        vuln.setDescription(description);
+        instance.updateVulnerabilities(batch);
+        assertEquals(description, instance.getVulnerability("CVE-2014-0094").getDescription());
+    }
+
     /**
      * Test of getVulnerabilities method, of class CveDB.
      */
@@ -126,6 +177,62 @@ public class CveDBIT extends BaseDBTestCase {
         assertTrue("Expected " + expected + ", but was not identified", found);
     }
 
+    /**
+     * Test that the vulnerabilities loaded in bulk by getVulnerabilities match
+     * those loaded individually by getVulnerability, of class CveDB.
+     */
+    @Test
+    public void testGetVulnerabilitiesBulkLoad() throws Exception {
+        final List<Vulnerability> results = instance.getVulnerabilities("cpe:/a:apache:tomcat:7.0.0");
+        assertTrue(results.size() > 1);
+        for (Vulnerability v : results) {
+            final Vulnerability single = instance.getVulnerability(v.getName());
+            assertNotNull(single);
+            assertEquals(single.getDescription(), v.getDescription());
+            assertEquals(single.getCwe(), v.getCwe());
+            assertEquals(single.getCvssScore(), v.getCvssScore(), 0.0f);
+            assertEquals(single.getReferences().size(), v.getReferences().size());
+            assertEquals(single.getVulnerableSoftware(), v.getVulnerableSoftware());
+            assertNotNull(v.getMatchedCPE());
+        }
+    }
+
+    /**
+     * Test of the read-only lookups, of class CveDB, executed from multiple
+     * threads in parallel.
+     */
+    @Test
+    public void testReadOnlyConcurrentLookups() throws Exception {
+        instance.close();
+        getSettings().setInt(CveDB.READ_POOL_SIZE, 3);
+        instance = new CveDB(getSettings(), true);
+        final CveDB readOnly = instance;
+        final Vulnerability expected = readOnly.getVulnerability("CVE-2014-0094");
+        assertNotNull(expected);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            final List<Future<Vulnerability>> results = new ArrayList<>();
+            for (int i = 0; i < 24; i++) {
+                results.add(executor.submit(new Callable<Vulnerability>() {
+                    @Override
+                    public Vulnerability call() throws Exception {
+                        assertTrue(readOnly.getCPEs("apache", "struts").size() > 5);
+                        return readOnly.getVulnerability("CVE-2014-0094");
+                    }
+                }));
+            }
+            for (Future<Vulnerability> result : results) {
+                final Vulnerability v = result.get();
+                assertEquals(expected.getDescription(), v.getDescription());
+                assertEquals(expected.getVulnerableSoftware().size(), v.getVulnerableSoftware().size());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(readOnly.getVulnerabilities("cpe:/a:apache:struts:2.1.2").size() > 5);
+    }
+
     /**
      * Test of getMatchingSoftware method, of class CveDB.
      */
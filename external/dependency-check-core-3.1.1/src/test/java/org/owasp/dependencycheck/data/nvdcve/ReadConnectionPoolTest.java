@@ -0,0 +1,117 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.nvdcve;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import mockit.Mocked;
+import mockit.Verifications;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * Test of the read connection pool.
+ */
+public class ReadConnectionPoolTest {
+
+    @Mocked
+    private ConnectionFactory connectionFactory;
+
+    @Mocked
+    private Connection connection;
+
+    /**
+     * Test that a session is reused once it is released.
+     */
+    @Test
+    public void testBorrowAndRelease() throws Exception {
+        ReadConnectionPool instance = new ReadConnectionPool(connectionFactory, null, 1);
+        ReadConnectionPool.Session session = instance.borrow();
+        instance.release(session);
+        assertSame(session, instance.borrow());
+        instance.release(session);
+        instance.close();
+    }
+
+    /**
+     * Test that threads waiting for a session fail once the pool is closed
+     * and that a borrowed session is only closed when it is returned.
+     */
+    @Test
+    public void testClose() throws Exception {
+        final ReadConnectionPool instance = new ReadConnectionPool(connectionFactory, null, 1);
+        final ReadConnectionPool.Session borrowed = instance.borrow();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ReadConnectionPool.Session> waiting = executor.submit(new Callable<ReadConnectionPool.Session>() {
+                @Override
+                public ReadConnectionPool.Session call() throws DatabaseException {
+                    return instance.borrow();
+                }
+            });
+            Thread.sleep(200);
+            instance.close();
+            try {
+                waiting.get(10, TimeUnit.SECONDS);
+                fail("the pool has been closed");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof DatabaseException);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        new Verifications() {{
+            connection.close();
+            times = 0;
+        }};
+
+        instance.release(borrowed);
+        new Verifications() {{
+            connection.close();
+            times = 1;
+        }};
+        try {
+            instance.borrow();
+            fail("the pool has been closed");
+        } catch (DatabaseException ex) {
+            //expected
+        }
+    }
+
+    /**
+     * Test that the idle sessions are closed with the pool.
+     */
+    @Test
+    public void testCloseIdle() throws DatabaseException, SQLException {
+        ReadConnectionPool instance = new ReadConnectionPool(connectionFactory, null, 2);
+        instance.release(instance.borrow());
+        instance.close();
+        new Verifications() {{
+            connection.close();
+            times = 1;
+        }};
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.nvdcve;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.junit.Test;
+import org.owasp.dependencycheck.BaseTest;
+import org.owasp.dependencycheck.utils.DependencyVersion;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the VersionRangeIndex.
+ */
+public class VersionRangeIndexTest extends BaseTest {
+
+    private Map<String, Boolean> software(String vendor, String product, Object... versions) {
+        final Map<String, Boolean> software = new HashMap<>();
+        for (int i = 0; i < versions.length; i += 2) {
+            software.put("cpe:/a:" + vendor + ":" + product + ":" + versions[i], (Boolean) versions[i + 1]);
+        }
+        return software;
+    }
+
+    private VersionRangeIndex createSpringIndex() {
+        final Map<String, Map<String, Boolean>> softwareByCve = new LinkedHashMap<>();
+        softwareByCve.put("CVE-1", software("springsource", "spring_framework",
+                "3.2.5", false, "3.2.6", false, "3.2.7", true, "4.0.1", true, "4.0.0:m1", false));
+        softwareByCve.put("CVE-2", software("springsource", "spring_framework", "2.5.6", true));
+        softwareByCve.put("CVE-3", software("springsource", "spring_framework", "3.2.10", false, "3.2.10.0", false));
+        softwareByCve.put("CVE-4", software("springsource", "spring_framework", "-", false));
+        softwareByCve.put("CVE-5", software("springsource", "spring_framework", "4.1.0.rc1", true));
+        return new VersionRangeIndex("springsource", "spring_framework", softwareByCve);
+    }
+
+    /**
+     * Test of getMatchingSoftware method, of class VersionRangeIndex.
+     */
+    @Test
+    public void testGetMatchingSoftware() {
+        VersionRangeIndex instance = createSpringIndex();
+        assertEquals(5, instance.size());
+
+        Map<String, Entry<String, Boolean>> result = instance.getMatchingSoftware(new DependencyVersion("3.2.2"));
+        assertEquals(Arrays.asList("CVE-1", "CVE-4", "CVE-5"), Arrays.asList(result.keySet().toArray()));
+        assertEquals("cpe:/a:springsource:spring_framework:3.2.7", result.get("CVE-1").getKey());
+        assertTrue(result.get("CVE-1").getValue());
+
+        result = instance.getMatchingSoftware(new DependencyVersion("3.2.10"));
+        assertEquals(Arrays.asList("CVE-3", "CVE-4", "CVE-5"), Arrays.asList(result.keySet().toArray()));
+
+        result = instance.getMatchingSoftware(new DependencyVersion("2.0"));
+        assertEquals(Arrays.asList("CVE-1", "CVE-2", "CVE-4", "CVE-5"), Arrays.asList(result.keySet().toArray()));
+
+        result = instance.getMatchingSoftware(new DependencyVersion("4.0.0"));
+        assertEquals("cpe:/a:springsource:spring_framework:4.0.1", result.get("CVE-1").getKey());
+
+        result = instance.getMatchingSoftware(new DependencyVersion("4.2"));
+        assertEquals(Arrays.asList("CVE-4"), Arrays.asList(result.keySet().toArray()));
+
+        result = instance.getMatchingSoftware(new DependencyVersion("-"));
+        assertEquals(Arrays.asList("CVE-1", "CVE-2", "CVE-4", "CVE-5"), Arrays.asList(result.keySet().toArray()));
+    }
+
+    /**
+     * Test that the matched software of a CVE entry affecting all previous
+     * versions is the first matching entry of the CVE, not the highest
+     * boundary.
+     */
+    @Test
+    public void testGetMatchingSoftwareReportsFirstEntry() {
+        final Map<String, Boolean> software = new LinkedHashMap<>();
+        software.put("cpe:/a:apache:commons_fileupload:1.3.1", true);
+        software.put("cpe:/a:apache:commons_fileupload:1.2.2", false);
+        software.put("cpe:/a:apache:commons_fileupload:1.3.2", true);
+        software.put("cpe:/a:apache:commons_fileupload:1.3", true);
+        final Map<String, Map<String, Boolean>> softwareByCve = new LinkedHashMap<>();
+        softwareByCve.put("CVE-1", software);
+        VersionRangeIndex instance = new VersionRangeIndex("apache", "commons_fileupload", softwareByCve);
+
+        Map<String, Entry<String, Boolean>> result = instance.getMatchingSoftware(new DependencyVersion("1.2.1"));
+        assertEquals("cpe:/a:apache:commons_fileupload:1.3.1", result.get("CVE-1").getKey());
+        result = instance.getMatchingSoftware(new DependencyVersion("1.3.2"));
+        assertEquals("cpe:/a:apache:commons_fileupload:1.3.2", result.get("CVE-1").getKey());
+        //an explicitly listed version is reported before the boundaries
+        result = instance.getMatchingSoftware(new DependencyVersion("1.2.2"));
+        assertEquals("cpe:/a:apache:commons_fileupload:1.2.2", result.get("CVE-1").getKey());
+        assertFalse(result.get("CVE-1").getValue());
+    }
+
+    /**
+     * Test of getMatchingSoftware method, of class VersionRangeIndex, for
+     * apache struts where version two is treated as a different product.
+     */
+    @Test
+    public void testGetMatchingSoftwareStruts() {
+        final Map<String, Map<String, Boolean>> softwareByCve = new LinkedHashMap<>();
+        softwareByCve.put("CVE-1", software("apache", "struts", "1.3.10", true));
+        softwareByCve.put("CVE-2", software("apache", "struts", "2.3.16", true));
+        VersionRangeIndex instance = new VersionRangeIndex("apache", "struts", softwareByCve);
+
+        Map<String, Entry<String, Boolean>> result = instance.getMatchingSoftware(new DependencyVersion("1.2.9"));
+        assertEquals(Arrays.asList("CVE-1"), Arrays.asList(result.keySet().toArray()));
+        result = instance.getMatchingSoftware(new DependencyVersion("2.3.1"));
+        assertEquals(Arrays.asList("CVE-2"), Arrays.asList(result.keySet().toArray()));
+    }
+
+    /**
+     * Test of getMatchingSoftware method, of class VersionRangeIndex, with
+     * versions that are not purely numeric.
+     */
+    @Test
+    public void testGetMatchingSoftwareNonNumeric() {
+        final Map<String, Map<String, Boolean>> softwareByCve = new LinkedHashMap<>();
+        softwareByCve.put("CVE-1", software("openssl", "openssl", "1.0.1e", false, "1.0.1p", false));
+        softwareByCve.put("CVE-2", software("openssl", "openssl", "1.0.1q", true));
+        softwareByCve.put("CVE-3", software("openssl", "openssl", "1.0.1o", false));
+        VersionRangeIndex instance = new VersionRangeIndex("openssl", "openssl", softwareByCve);
+
+        Map<String, Entry<String, Boolean>> result = instance.getMatchingSoftware(new DependencyVersion("1.0.1o"));
+        assertEquals(Arrays.asList("CVE-2", "CVE-3"), Arrays.asList(result.keySet().toArray()));
+        result = instance.getMatchingSoftware(new DependencyVersion("1.0.0"));
+        assertEquals(Arrays.asList("CVE-2"), Arrays.asList(result.keySet().toArray()));
+    }
+}
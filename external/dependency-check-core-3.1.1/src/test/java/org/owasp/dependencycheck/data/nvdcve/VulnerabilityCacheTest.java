@@ -0,0 +1,122 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.nvdcve;
+
+import org.junit.Test;
+import org.owasp.dependencycheck.BaseTest;
+import org.owasp.dependencycheck.dependency.Vulnerability;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for the VulnerabilityCache.
+ */
+public class VulnerabilityCacheTest extends BaseTest {
+
+    private Vulnerability createVulnerability(String name, int software) {
+        Vulnerability v = new Vulnerability();
+        v.setName(name);
+        v.setDescription("description of " + name);
+        v.setCvssScore(5.0f);
+        for (int i = 0; i < software; i++) {
+            v.addVulnerableSoftware("cpe:/a:apache:struts:2.0." + i);
+        }
+        return v;
+    }
+
+    /**
+     * Test of get and put, of class VulnerabilityCache.
+     */
+    @Test
+    public void testGetPut() {
+        VulnerabilityCache instance = new VulnerabilityCache(100);
+        assertNull(instance.get("CVE-2017-5638"));
+        instance.put(createVulnerability("CVE-2017-5638", 3));
+
+        Vulnerability first = instance.get("CVE-2017-5638");
+        assertNotNull(first);
+        assertEquals("description of CVE-2017-5638", first.getDescription());
+        assertEquals(3, first.getVulnerableSoftware().size());
+        first.setMatchedCPE("cpe:/a:apache:struts:2.0.1", null);
+
+        Vulnerability second = instance.get("CVE-2017-5638");
+        assertNotSame(first, second);
+        assertNull(second.getMatchedCPE());
+
+        assertEquals(2, instance.getHitCount());
+        assertEquals(1, instance.getMissCount());
+        assertEquals(4, instance.getWeight());
+    }
+
+    /**
+     * Test of the weight bound and least recently used eviction, of class
+     * VulnerabilityCache.
+     */
+    @Test
+    public void testEviction() {
+        VulnerabilityCache instance = new VulnerabilityCache(10);
+        instance.put(createVulnerability("CVE-1", 3));
+        instance.put(createVulnerability("CVE-2", 3));
+        assertNotNull(instance.get("CVE-1"));
+        instance.put(createVulnerability("CVE-3", 3));
+
+        assertEquals(1, instance.getEvictionCount());
+        assertNotNull(instance.get("CVE-1"));
+        assertNull(instance.get("CVE-2"));
+        assertNotNull(instance.get("CVE-3"));
+        assertEquals(8, instance.getWeight());
+
+        instance.put(createVulnerability("CVE-4", 20));
+        assertNull(instance.get("CVE-4"));
+    }
+
+    /**
+     * Test of invalidate and invalidateAll, of class VulnerabilityCache.
+     */
+    @Test
+    public void testInvalidate() {
+        VulnerabilityCache instance = new VulnerabilityCache(100);
+        instance.put(createVulnerability("CVE-1", 1));
+        instance.put(createVulnerability("CVE-2", 1));
+        instance.invalidate("CVE-1");
+        assertNull(instance.get("CVE-1"));
+        assertNotNull(instance.get("CVE-2"));
+
+        instance.invalidateAll();
+        assertNull(instance.get("CVE-2"));
+        assertEquals(0, instance.size());
+
+        instance.put(createVulnerability("CVE-2", 1));
+        assertNotNull(instance.get("CVE-2"));
+        assertEquals(0, instance.getEvictionCount());
+    }
+
+    /**
+     * Test that a cache with a maximum weight of zero does not cache, of class
+     * VulnerabilityCache.
+     */
+    @Test
+    public void testDisabled() {
+        VulnerabilityCache instance = new VulnerabilityCache(0);
+        instance.put(createVulnerability("CVE-1", 1));
+        assertNull(instance.get("CVE-1"));
+        assertEquals(0, instance.size());
+    }
+}
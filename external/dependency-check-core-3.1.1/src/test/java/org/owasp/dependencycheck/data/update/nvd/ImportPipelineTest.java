@@ -0,0 +1,94 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.data.update.nvd;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.Verifications;
+import org.junit.Test;
+import org.owasp.dependencycheck.BaseTest;
+import org.owasp.dependencycheck.data.nvdcve.CveDB;
+import org.owasp.dependencycheck.data.update.exception.UpdateException;
+import org.owasp.dependencycheck.dependency.Vulnerability;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the import pipeline.
+ */
+public class ImportPipelineTest extends BaseTest {
+
+    @Mocked
+    private CveDB cveDB;
+    @Mocked
+    private DownloadTask downloadTask;
+
+    /**
+     * Tests that the import fails, instead of blocking the parsers, when the
+     * writer fails.
+     */
+    @Test(timeout = 60000)
+    public void testExecuteWriterFails() throws Exception {
+        final File first = getResourceAsFile(this, "nvdcve-2.0-2012.xml");
+        final File second = getResourceAsFile(this, "nvdcve-2012.xml");
+        final NvdCveInfo cve = new NvdCveInfo();
+        cve.setId("2012");
+        cve.setNeedsUpdate(true);
+        new Expectations() {
+            {
+                downloadTask.getNvdCveInfo();
+                result = cve;
+                downloadTask.download();
+                result = true;
+                downloadTask.getFirst();
+                result = first;
+                downloadTask.getSecond();
+                result = second;
+                cveDB.updateVulnerabilities((List<Vulnerability>) any);
+                result = new IllegalStateException("write failed");
+            }
+        };
+        getSettings().setString(ImportPipeline.QUEUE_SIZE, "1");
+        getSettings().setString(ImportPipeline.BATCH_SIZE, "1");
+
+        final ExecutorService downloadExecutor = Executors.newSingleThreadExecutor();
+        final ExecutorService processingExecutor = Executors.newSingleThreadExecutor();
+        try {
+            final ImportPipeline instance = new ImportPipeline(cveDB, getSettings(), downloadExecutor, processingExecutor);
+            instance.execute(Collections.singletonList(cve));
+            fail("The import should fail when the writer fails");
+        } catch (UpdateException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        } finally {
+            downloadExecutor.shutdownNow();
+            processingExecutor.shutdownNow();
+        }
+        new Verifications() {
+            {
+                downloadTask.cleanup();
+                times = 1;
+            }
+        };
+    }
+}
@@ -18,7 +18,9 @@
 package org.owasp.dependencycheck.dependency;
 
 import java.io.File;
+import java.nio.file.Files;
 import java.util.HashSet;
+import java.util.Random;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
@@ -29,6 +31,7 @@ import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 import org.owasp.dependencycheck.BaseTest;
 import org.owasp.dependencycheck.data.nexus.MavenArtifact;
+import org.owasp.dependencycheck.utils.Checksum;
 
 /**
  *
@@ -148,6 +151,28 @@ public class DependencyTest extends BaseTest {
         assertEquals(expResult, result);
     }
 
+    /**
+     * Test that the hashes of an empty file and of a file larger than the
+     * hash buffer match those computed by Checksum.
+     */
+    @Test
+    public void testDetermineHashes() throws Exception {
+        File dir = new File(getSettings().getTempDirectory(), "dependency-hashes");
+        dir.mkdirs();
+        File empty = new File(dir, "empty.jar");
+        Files.write(empty.toPath(), new byte[0]);
+        File large = new File(dir, "large.jar");
+        byte[] content = new byte[200 * 1024 + 17];
+        new Random(42).nextBytes(content);
+        Files.write(large.toPath(), content);
+
+        for (File file : new File[]{empty, large}) {
+            Dependency instance = new Dependency(file);
+            assertEquals(Checksum.getMD5Checksum(file), instance.getMd5sum());
+            assertEquals(Checksum.getSHA1Checksum(file), instance.getSha1sum());
+        }
+    }
+
     /**
      * Test of setSha1sum method, of class Dependency.
      */
@@ -236,4 +261,27 @@ public class DependencyTest extends BaseTest {
         assertTrue(instance.size() == 0);
         assertTrue(instance.getIdentifiers().isEmpty());
     }
+
+    /**
+     * Test of getIterator method, of class Dependency.
+     */
+    @Test
+    public void testGetIterator() {
+        Dependency instance = new Dependency();
+        instance.addEvidence(EvidenceType.VENDOR, "manifest", "vendor", "apache", Confidence.HIGH);
+        instance.addEvidence(EvidenceType.VENDOR, "pom", "groupid", "org.apache", Confidence.HIGHEST);
+        int count = 0;
+        for (Evidence e : instance.getIterator(EvidenceType.VENDOR, Confidence.HIGH)) {
+            assertEquals("apache", e.getValue());
+            count += 1;
+        }
+        assertEquals(1, count);
+        assertFalse(instance.getIterator(EvidenceType.PRODUCT, Confidence.HIGH).iterator().hasNext());
+        assertFalse(instance.contains(EvidenceType.VENDOR, Confidence.LOW));
+
+        instance.addEvidence(EvidenceType.VENDOR, "jar", "package name", "apache", Confidence.LOW);
+        assertTrue(instance.contains(EvidenceType.VENDOR, Confidence.LOW));
+        assertTrue(instance.getIterator(EvidenceType.VENDOR, Confidence.LOW).iterator().hasNext());
+        assertEquals(3, instance.getEvidence(EvidenceType.VENDOR).size());
+    }
 }
@@ -0,0 +1,87 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.reporting;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.owasp.dependencycheck.BaseTest;
+import org.owasp.dependencycheck.analyzer.Analyzer;
+import org.owasp.dependencycheck.dependency.Dependency;
+import org.owasp.dependencycheck.dependency.Vulnerability;
+
+/**
+ * Tests of the report generator.
+ */
+public class ReportGeneratorTest extends BaseTest {
+
+    private static Dependency dependency(String name) {
+        Dependency d = new Dependency();
+        d.setFileName(name);
+        d.setFilePath("/lib/" + name);
+        d.setMd5sum("0123456789abcdef0123456789abcdef");
+        d.setSha1sum("0123456789abcdef0123456789abcdef01234567");
+        Vulnerability v = new Vulnerability();
+        v.setName("CVE-2018-0001");
+        v.setDescription("description");
+        v.setCvssScore(5.0f);
+        d.addVulnerability(v);
+        return d;
+    }
+
+    /**
+     * Test of write method with Format.ALL, of class ReportGenerator.
+     */
+    @Test
+    public void testWriteAll() throws Exception {
+        File dir = new File("target/test-reports/all");
+        List<Dependency> dependencies = new ArrayList<>();
+        dependencies.add(dependency("struts2-core-2.1.2.jar"));
+        dependencies.add(dependency("Axis2-adb-1.4.1.jar"));
+        dependencies.add(dependency("commons-lang3-3.7.jar"));
+
+        getSettings().setString(ReportGenerator.REPORT_THREADS, "4");
+        ReportGenerator instance = new ReportGenerator("Test", dependencies, new ArrayList<Analyzer>(), null, getSettings());
+        instance.write(dir.getPath(), ReportGenerator.Format.ALL);
+
+        for (String name : new String[]{"dependency-check-report.html", "dependency-check-vulnerability.html",
+            "dependency-check-report.xml", "dependency-check-report.json", "dependency-check-report.csv"}) {
+            assertTrue(name, new File(dir, name).isFile());
+        }
+        JsonArray reported;
+        try (Reader reader = new InputStreamReader(Files.newInputStream(new File(dir, "dependency-check-report.json").toPath()),
+                StandardCharsets.UTF_8)) {
+            reported = new JsonParser().parse(reader).getAsJsonObject().getAsJsonArray("dependencies");
+        }
+        assertEquals(3, reported.size());
+        assertEquals("Axis2-adb-1.4.1.jar", reported.get(0).getAsJsonObject().get("fileName").getAsString());
+        assertEquals("commons-lang3-3.7.jar", reported.get(1).getAsJsonObject().get("fileName").getAsString());
+        assertEquals("struts2-core-2.1.2.jar", reported.get(2).getAsJsonObject().get("fileName").getAsString());
+        //the caller's list is not modified
+        assertEquals("struts2-core-2.1.2.jar", dependencies.get(0).getFileName());
+    }
+}
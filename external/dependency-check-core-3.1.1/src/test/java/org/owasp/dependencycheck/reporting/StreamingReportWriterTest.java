@@ -0,0 +1,182 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.reporting;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.owasp.dependencycheck.BaseTest;
+import org.owasp.dependencycheck.analyzer.Analyzer;
+import org.owasp.dependencycheck.dependency.Confidence;
+import org.owasp.dependencycheck.dependency.Dependency;
+import org.owasp.dependencycheck.dependency.EvidenceType;
+import org.owasp.dependencycheck.dependency.Vulnerability;
+
+/**
+ * Tests of the streaming report writers.
+ */
+public class StreamingReportWriterTest extends BaseTest {
+
+    private static Vulnerability vulnerability(String name, float cvss) {
+        Vulnerability v = new Vulnerability();
+        v.setName(name);
+        v.setDescription("Description of " + name + " with \"quotes\", <markup> & a\nline break\u0001");
+        v.setCvssScore(cvss);
+        v.setCwe("CWE-20 Improper Input Validation");
+        v.setNotes("notes");
+        v.setCvssAccessVector("NETWORK");
+        v.setCvssAccessComplexity("LOW");
+        v.setCvssAuthentication("NONE");
+        v.setCvssConfidentialityImpact("PARTIAL");
+        v.setCvssIntegrityImpact("PARTIAL");
+        v.setCvssAvailabilityImpact("PARTIAL");
+        v.addReference("CONFIRM", "struts", "https://struts.apache.org/" + name);
+        v.addVulnerableSoftware("cpe:/a:apache:struts:2.1.2");
+        v.addVulnerableSoftware("cpe:/a:apache:struts:2.1.1", "2.1.1");
+        return v;
+    }
+
+    private static Dependency dependency(String name) {
+        Dependency d = new Dependency();
+        d.setFileName(name);
+        d.setFilePath("/lib/" + name);
+        d.setMd5sum("0123456789abcdef0123456789abcdef");
+        d.setSha1sum("0123456789abcdef0123456789abcdef01234567");
+        d.setDescription("The Apache Struts framework");
+        d.setLicense("Apache 2.0");
+        d.addEvidence(EvidenceType.VENDOR, "manifest", "vendor", " apache ", Confidence.HIGH);
+        d.addEvidence(EvidenceType.PRODUCT, "manifest", "title", "struts2-core", Confidence.HIGHEST);
+        d.addEvidence(EvidenceType.VERSION, "manifest", "version", "2.1.2", Confidence.MEDIUM);
+        return d;
+    }
+
+    private static List<Dependency> createDependencies() {
+        List<Dependency> dependencies = new ArrayList<>();
+        Dependency struts = dependency("struts2-core-2.1.2.jar");
+        struts.addIdentifier("maven", "org.apache.struts:struts2-core:2.1.2", "https://search.maven.org/", Confidence.HIGH);
+        struts.addIdentifier("cpe", "cpe:/a:apache:struts:2.1.2", "https://web.nvd.nist.gov/", Confidence.HIGHEST);
+        struts.addVulnerability(vulnerability("CVE-2012-0391", 7.5f));
+        struts.addVulnerability(vulnerability("CVE-2013-2115", 3.5f));
+        struts.addSuppressedVulnerability(vulnerability("CVE-2008-6504", 5.0f));
+        Dependency related = dependency("struts2-core-2.1.2-sources.jar");
+        related.addIdentifier("maven", "org.apache.struts:struts2-core:2.1.2", "https://search.maven.org/");
+        related.addIdentifier("cpe", "cpe:/a:apache:struts:2.1.2", "https://web.nvd.nist.gov/");
+        struts.addRelatedDependency(related);
+        dependencies.add(struts);
+        dependencies.add(dependency("commons-lang3-3.7.jar"));
+        return dependencies;
+    }
+
+    private ReportGenerator createGenerator() {
+        return new ReportGenerator("Test <Report>", createDependencies(), new ArrayList<Analyzer>(), null, getSettings());
+    }
+
+    private static JsonObject parse(File file) throws Exception {
+        try (Reader reader = new InputStreamReader(Files.newInputStream(file.toPath()), StandardCharsets.UTF_8)) {
+            return new JsonParser().parse(reader).getAsJsonObject();
+        }
+    }
+
+    /**
+     * Test that the streamed JSON report contains the same dependencies as the
+     * report rendered from the template.
+     */
+    @Test
+    public void testJsonMatchesTemplate() throws Exception {
+        File dir = new File("target/test-reports/streaming");
+        File template = new File(dir, "template.json");
+        File streamed = new File(dir, "streamed.json");
+
+        getSettings().setString(ReportGenerator.STREAMING_FORMATS, "HTML");
+        createGenerator().write(template.getPath(), ReportGenerator.Format.JSON);
+        getSettings().setString(ReportGenerator.STREAMING_FORMATS, "JSON");
+        createGenerator().write(streamed.getPath(), ReportGenerator.Format.JSON);
+
+        JsonObject expected = parse(template);
+        JsonObject result = parse(streamed);
+        assertEquals(expected.get("reportSchema"), result.get("reportSchema"));
+        assertEquals(expected.get("scanInfo"), result.get("scanInfo"));
+        JsonElement dependencies = result.get("dependencies");
+        assertEquals(2, dependencies.getAsJsonArray().size());
+        assertEquals(expected.get("dependencies"), dependencies);
+    }
+
+    /**
+     * Test that the streamed XML report is valid according to the schema.
+     */
+    @Test
+    public void testXmlIsValid() throws Exception {
+        File streamed = new File("target/test-reports/streaming/streamed.xml");
+        getSettings().setString(ReportGenerator.STREAMING_FORMATS, "XML");
+        createGenerator().write(streamed.getPath(), ReportGenerator.Format.XML);
+
+        SchemaFactory sf = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        try (InputStream xsd = ReportGenerator.class.getClassLoader().getResourceAsStream("schema/dependency-check.1.6.xsd")) {
+            Schema schema = sf.newSchema(new StreamSource(xsd));
+            schema.newValidator().validate(new StreamSource(streamed));
+        }
+        String xml = new String(Files.readAllBytes(streamed.toPath()), StandardCharsets.UTF_8);
+        assertTrue(xml.contains("<name>Test &lt;Report&gt;</name>"));
+        assertTrue(xml.contains("<suppressedVulnerability source=\"NVD\">"));
+    }
+
+    /**
+     * Test that the streamed CSV report contains a row per vulnerability.
+     */
+    @Test
+    public void testCsv() throws Exception {
+        File streamed = new File("target/test-reports/streaming/streamed.csv");
+        getSettings().setString(ReportGenerator.STREAMING_FORMATS, "CSV");
+        createGenerator().write(streamed.getPath(), ReportGenerator.Format.CSV);
+
+        List<String> lines = Files.readAllLines(streamed.toPath(), StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).startsWith("\"Project\",\"ScanDate\""));
+        assertTrue(lines.get(1).startsWith("Test <Report>,"));
+        assertTrue(lines.get(1).contains(",CVE-2012-0391,CWE-20 Improper Input Validation,"));
+        assertTrue(lines.get(1).contains(",NVD,\"High\",7.5,org.apache.struts:struts2-core:2.1.2,HIGHEST,"));
+        assertTrue(lines.get(2).contains(",CVE-2013-2115,"));
+        assertTrue(lines.get(2).contains(",\"Low\",3.5,"));
+    }
+
+    /**
+     * Test of clean method, of class XmlReportWriter.
+     */
+    @Test
+    public void testClean() {
+        assertEquals("", XmlReportWriter.clean(null));
+        assertEquals("abc", XmlReportWriter.clean("abc"));
+        assertEquals("ab\tc", XmlReportWriter.clean("a\u0000b\tc\u001F"));
+        assertEquals("a\uD83D\uDE00b", XmlReportWriter.clean("a\uD83D\uDE00\uFFFEb"));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.utils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+import org.owasp.dependencycheck.BaseTest;
+import org.owasp.dependencycheck.exception.H2DBLockException;
+
+/**
+ * Test of the H2 database lock.
+ */
+public class H2DBLockTest extends BaseTest {
+
+    private File lockFile;
+
+    @Before
+    public void setUpLockDirectory() throws Exception {
+        File dir = new File(getSettings().getTempDirectory(), "h2dblock");
+        dir.mkdirs();
+        getSettings().setString(Settings.KEYS.DATA_DIRECTORY, dir.getAbsolutePath());
+        getSettings().setString(H2DBLock.LOCK_TIMEOUT, "1");
+        lockFile = new File(dir, "dc.update.lock");
+        Files.deleteIfExists(lockFile.toPath());
+    }
+
+    /**
+     * Test that the exclusive lock cannot be obtained twice.
+     */
+    @Test
+    public void testExclusiveLock() throws Exception {
+        H2DBLock first = new H2DBLock(getSettings());
+        H2DBLock second = new H2DBLock(getSettings());
+        first.lock();
+        try {
+            assertTrue(first.isLocked());
+            assertTrue(lockFile.isFile());
+            try {
+                second.lock();
+                fail("the lock is held");
+            } catch (H2DBLockException ex) {
+                assertFalse(second.isLocked());
+            }
+        } finally {
+            first.release();
+        }
+        assertFalse(first.isLocked());
+        assertFalse(lockFile.exists());
+        second.lock();
+        assertTrue(second.isLocked());
+        second.release();
+    }
+
+    /**
+     * Test that a waiting process obtains the lock shortly after it is
+     * released.
+     */
+    @Test
+    public void testWaitsForRelease() throws Exception {
+        getSettings().setString(H2DBLock.LOCK_TIMEOUT, "30");
+        final H2DBLock first = new H2DBLock(getSettings());
+        first.lockShared();
+        Thread releaser = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                first.release();
+            }
+        };
+        releaser.start();
+        long locks = H2DBLock.getLockCount();
+        H2DBLock second = new H2DBLock(getSettings());
+        second.lock();
+        try {
+            assertTrue(second.isLocked());
+            assertTrue(second.getWaitTime() >= 400);
+            assertTrue(second.getWaitTime() < 10000);
+            assertTrue(H2DBLock.getLockCount() > locks);
+            assertTrue(H2DBLock.getTotalWaitTime() >= second.getWaitTime());
+        } finally {
+            second.release();
+            releaser.join();
+        }
+    }
+
+    /**
+     * Test that a lock file left behind by a process that is no longer
+     * running does not block the lock.
+     */
+    @Test
+    public void testStaleLockFile() throws Exception {
+        Files.write(lockFile.toPath(), "stale".getBytes(StandardCharsets.UTF_8));
+        H2DBLock instance = new H2DBLock(getSettings());
+        instance.lock();
+        try {
+            assertTrue(instance.isLocked());
+            assertTrue(instance.getWaitTime() < 1000);
+        } finally {
+            instance.release();
+        }
+        assertFalse(lockFile.exists());
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.utils;
+
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Test of the rate limiter.
+ */
+public class RateLimiterTest {
+
+    /**
+     * Test of reserve method, of class RateLimiter.
+     */
+    @Test
+    public void testReserve() {
+        final RateLimiter instance = new RateLimiter(4);
+        final long interval = TimeUnit.MILLISECONDS.toNanos(250);
+        final long now = System.nanoTime();
+        assertEquals(0, instance.reserve(now));
+        assertEquals(interval, instance.reserve(now));
+        assertEquals(2 * interval, instance.reserve(now));
+        assertEquals(interval, instance.reserve(now + interval * 2));
+        //an idle limiter does not accumulate permits
+        assertEquals(0, instance.reserve(now + interval * 10));
+        assertEquals(interval, instance.reserve(now + interval * 10));
+    }
+
+    /**
+     * Test of the constructor, of class RateLimiter.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRate() {
+        new RateLimiter(0);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.xml;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+import org.owasp.dependencycheck.BaseTest;
+
+/**
+ * Test of the rule file cache.
+ */
+public class RuleFileCacheTest extends BaseTest {
+
+    /**
+     * Test of get, getByETag and put methods, of class RuleFileCache.
+     */
+    @Test
+    public void testGetAndPut() {
+        final RuleFileCache<String> instance = new RuleFileCache<>();
+        assertNull(instance.get("rules.xml", "abc"));
+
+        instance.put("rules.xml", "abc", null, "first");
+        assertEquals("first", instance.get("rules.xml", "abc"));
+        assertNull(instance.get("rules.xml", "def"));
+        assertNull(instance.get("rules.xml", null));
+        assertNull(instance.get("other.xml", "abc"));
+        assertNull(instance.getByETag("rules.xml", null));
+
+        instance.put("rules.xml", "def", "\"v2\"", "second");
+        assertNull(instance.get("rules.xml", "abc"));
+        assertEquals("second", instance.get("rules.xml", "def"));
+        assertEquals("second", instance.getByETag("rules.xml", "\"v2\""));
+        assertNull(instance.getByETag("rules.xml", "\"v3\""));
+
+        instance.clear();
+        assertNull(instance.get("rules.xml", "def"));
+    }
+
+    /**
+     * Test of getChecksum method, of class RuleFileCache.
+     */
+    @Test
+    public void testGetChecksum() throws Exception {
+        final byte[] content = "<suppressions/>".getBytes(StandardCharsets.UTF_8);
+        final File file = getSettings().getTempFile("rules", "xml");
+        Files.write(file.toPath(), content);
+        final String expected = RuleFileCache.getChecksum(content);
+        assertEquals(40, expected.length());
+        assertEquals(expected, RuleFileCache.getChecksum(file));
+        assertEquals("da39a3ee5e6b4b0d3255bfef95601890afd80709", RuleFileCache.getChecksum(new byte[0]).toLowerCase());
+    }
+
+    /**
+     * Test of getETag method, of class RuleFileCache.
+     */
+    @Test
+    public void testGetETagNonHttp() throws Exception {
+        assertNull(RuleFileCache.getETag(new URL("file:/tmp/rules.xml"), getSettings()));
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * This file is part of dependency-check-core.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) 2018 The OWASP Foundation. All Rights Reserved.
+ */
+package org.owasp.dependencycheck.xml.suppression;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.owasp.dependencycheck.BaseTest;
+import org.owasp.dependencycheck.dependency.Dependency;
+import org.owasp.dependencycheck.dependency.Vulnerability;
+
+/**
+ * Test of the suppression rule index.
+ */
+public class SuppressionRuleIndexTest extends BaseTest {
+
+    private static PropertyType property(String value, boolean regex, boolean caseSensitive) {
+        PropertyType p = new PropertyType();
+        p.setValue(value);
+        p.setRegex(regex);
+        p.setCaseSensitive(caseSensitive);
+        return p;
+    }
+
+    private static Vulnerability vulnerability(String name, String cwe, float cvss) {
+        Vulnerability v = new Vulnerability();
+        v.setName(name);
+        v.setCwe(cwe);
+        v.setCvssScore(cvss);
+        return v;
+    }
+
+    private static Dependency createDependency() {
+        Dependency d = new Dependency();
+        d.setFileName("spring-core-3.0.0.jar");
+        d.setFilePath("/lib/spring-core-3.0.0.jar");
+        d.setSha1sum("0123456789abcdef0123456789abcdef01234567");
+        d.addIdentifier("cpe", "cpe:/a:springsource:spring_framework:3.0.0", "url");
+        d.addIdentifier("cpe", "cpe:/a:vmware:springsource_spring_framework:3.0.0", "url");
+        d.addIdentifier("cpe", "cpe:/a:mod_security:mod_security:3.0.0", "url");
+        d.addIdentifier("maven", "org.springframework:spring-core:3.0.0", "url");
+        d.addVulnerability(vulnerability("CVE-2010-1622", "CWE-94 Code Injection", 6.0f));
+        d.addVulnerability(vulnerability("CVE-2011-2730", "CWE-16 Configuration", 7.5f));
+        d.addVulnerability(vulnerability("CVE-2013-6429", "CWE-20 Improper Input Validation", 4.3f));
+        d.addVulnerability(vulnerability("CVE-2014-0054", "CWE-352 Cross-Site Request Forgery", 6.8f));
+        return d;
+    }
+
+    private static List<SuppressionRule> createRules() {
+        List<SuppressionRule> rules = new ArrayList<>();
+        //0 - cpe without version, different case
+        SuppressionRule rule = new SuppressionRule();
+        rule.addCpe(property("cpe:/a:VMware:springsource", false, false));
+        rules.add(rule);
+        //1 - regex cpe
+        rule = new SuppressionRule();
+        rule.addCpe(property("cpe:/a:mod_security:.*", true, false));
+        rules.add(rule);
+        //2 - cve, lower case
+        rule = new SuppressionRule();
+        rule.addCve("cve-2010-1622");
+        rules.add(rule);
+        //3 - cwe
+        rule = new SuppressionRule();
+        rule.addCwe("16");
+        rules.add(rule);
+        //4 - cvss
+        rule = new SuppressionRule();
+        rule.addCvssBelow(5.0f);
+        rules.add(rule);
+        //5 - another sha1
+        rule = new SuppressionRule();
+        rule.setSha1("ffffffffffffffffffffffffffffffffffffffff");
+        rule.addCve("CVE-2014-0054");
+        rules.add(rule);
+        //6 - matching sha1
+        rule = new SuppressionRule();
+        rule.setSha1("0123456789ABCDEF0123456789ABCDEF01234567");
+        rule.addCve("CVE-2014-0054");
+        rules.add(rule);
+        //7 - unrelated cpe and cve
+        rule = new SuppressionRule();
+        rule.addCpe(property("cpe:/a:apache:struts:2.0.0", false, false));
+        rule.addCve("CVE-2017-5638");
+        rules.add(rule);
+        //8 - suppresses nothing
+        rule = new SuppressionRule();
+        rule.setFilePath(property(".*", true, false));
+        rules.add(rule);
+        //9 - exact cpe, case sensitive
+        rule = new SuppressionRule();
+        rule.addCpe(property("cpe:/a:springsource:spring_framework:3.0.0", false, true));
+        rules.add(rule);
+        return rules;
+    }
+
+    /**
+     * Test of getCandidates method, of class SuppressionRuleIndex.
+     */
+    @Test
+    public void testGetCandidates() {
+        SuppressionRuleIndex instance = new SuppressionRuleIndex(createRules());
+        assertEquals(10, instance.size());
+        BitSet candidates = instance.getCandidates(createDependency());
+        for (int i : new int[]{0, 1, 2, 3, 4, 6, 9}) {
+            assertTrue("rule " + i, candidates.get(i));
+        }
+        for (int i : new int[]{5, 7, 8}) {
+            assertFalse("rule " + i, candidates.get(i));
+        }
+        assertTrue(instance.getCandidates(new Dependency()).isEmpty());
+    }
+
+    /**
+     * Test that processing the index produces the same result as processing
+     * every rule.
+     */
+    @Test
+    public void testProcessMatchesAllRules() {
+        Dependency expected = createDependency();
+        for (SuppressionRule rule : createRules()) {
+            rule.process(expected);
+        }
+        Dependency result = createDependency();
+        new SuppressionRuleIndex(createRules()).process(result);
+
+        assertEquals(expected.getIdentifiers(), result.getIdentifiers());
+        assertEquals(expected.getSuppressedIdentifiers(), result.getSuppressedIdentifiers());
+        assertEquals(expected.getVulnerabilities(), result.getVulnerabilities());
+        assertEquals(expected.getSuppressedVulnerabilities(), result.getSuppressedVulnerabilities());
+        assertEquals(1, result.getIdentifiers().size());
+        assertTrue(result.getVulnerabilities().isEmpty());
+    }
+
+    /**
+     * Test of getCweKey method, of class SuppressionRuleIndex.
+     */
+    @Test
+    public void testGetCweKey() {
+        assertEquals("79", SuppressionRuleIndex.getCweKey("CWE-79 Improper Neutralization"));
+        assertEquals("NVD-CWE-OTHER", SuppressionRuleIndex.getCweKey("cwe-nvd-cwe-Other Other"));
+        assertEquals(null, SuppressionRuleIndex.getCweKey("NVD-CWE-Other"));
+        assertEquals(null, SuppressionRuleIndex.getCweKey(null));
+    }
+}